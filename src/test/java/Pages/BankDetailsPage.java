@@ -0,0 +1,42 @@
+package Pages;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+
+// My Account > bank details form on the user profile.
+public class BankDetailsPage extends BasePage {
+
+    public BankDetailsPage(WebDriver driver) {
+        super(driver);
+    }
+
+    // The flow lands on the profile after login, so there is no click to time: the screen is measured
+    // from here until its bank details form is up and the app is idle.
+    public void open() {
+        navigate("profile", () -> element("bank.form"));
+    }
+
+    public void selectAccountType(String type) {
+        click("bank.accountType");
+        element("bank.accountTypeOption", type).click();
+    }
+
+    public void enterAccount(String accountNo, String ifscCode) {
+        element("bank.accountNo").sendKeys(accountNo);
+        element("bank.accountNoConfirm").sendKeys(accountNo);
+        element("bank.ifsc").sendKeys(ifscCode);
+    }
+
+    // The file input is hidden behind a styled button; reveal it so sendKeys is accepted.
+    public void uploadDocument(String path) {
+        WebElement upload = present("bank.document");
+        ((JavascriptExecutor) driver).executeScript("arguments[0].style.display='block';", upload);
+        upload.sendKeys(path);
+    }
+
+    public void submit() {
+        forceClick("bank.submit");
+        invalidate();
+    }
+}
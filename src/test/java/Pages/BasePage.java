@@ -0,0 +1,123 @@
+package Pages;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+
+import Utilities.AppWait;
+import Utilities.Config;
+import Utilities.PageVitals;
+
+/*
+    Common base for the page objects.
+
+    Elements are looked up by registry key (see LocatorRegistry) and waited for with AppWait. Once
+    resolved, an element is cached until the page changes state - page methods that navigate or open
+    a dialog call invalidate() - so repeated use (clear + sendKeys, click after scroll) costs no extra
+    lookups. Cached elements are StaleSafeElement proxies, so a re-render between lookup and use is
+    recovered by resolving the locator again rather than failing the step.
+
+    Actions that open one of the screens with a performance budget go through navigate(), which
+    records the screen's load metrics (PageVitals) once it is up.
+
+    Optional popups listed in app.interrupts (<name>:<locator key of the dismiss button>, default the
+    KYC prompt) are registered with AppWait, so whichever element wait is running when one shows up skips it.
+*/
+public abstract class BasePage {
+
+    static {
+        for (String entry : Config.get("app.interrupts", "kyc:common.kycSkip").split("\\s*,\\s*")) {
+            String[] parts = entry.split(":", 2);
+            if (parts.length == 2) {
+                AppWait.interrupt(parts[0], LocatorRegistry.by(parts[1]));
+            }
+        }
+    }
+
+    protected final WebDriver driver;
+    private final Map<String, WebElement> cache = new HashMap<>();
+
+    protected BasePage(WebDriver driver) {
+        this.driver = driver;
+    }
+
+    // Forget every cached element; call after anything that replaces the current view.
+    public void invalidate() {
+        cache.clear();
+    }
+
+    // Runs an action that brings up another screen, then measures that screen under the given page name.
+    protected void navigate(String page, Runnable action) {
+        long started = System.nanoTime();
+        action.run();
+        invalidate();
+        PageVitals.record(driver, page, System.nanoTime() - started);
+    }
+
+    // A clickable element, waited for on first use and cached afterwards.
+    protected WebElement element(String key) {
+        return cached(key, LocatorRegistry.by(key), null, false);
+    }
+
+    protected WebElement element(String key, String arg) {
+        return cached(key + "(" + arg + ")", LocatorRegistry.by(key, arg), null, false);
+    }
+
+    protected WebElement element(String key, Duration timeout) {
+        return cached(key, LocatorRegistry.by(key), timeout, false);
+    }
+
+    // An element that only has to be in the DOM (e.g. hidden file inputs).
+    protected WebElement present(String key) {
+        return cached(key, LocatorRegistry.by(key), null, true);
+    }
+
+    protected void click(String key) {
+        element(key).click();
+    }
+
+    protected void type(String key, String text) {
+        WebElement field = element(key);
+        field.clear();
+        field.sendKeys(text);
+    }
+
+    // Scroll into view and click from JavaScript, for buttons covered by sticky headers or overlays.
+    protected void forceClick(String key) {
+        try {
+            forceClick(element(key));
+        } catch (StaleElementReferenceException e) {
+            cache.remove(key);
+            forceClick(element(key));
+        }
+    }
+
+    protected void forceClick(WebElement element) {
+        ((JavascriptExecutor) driver).executeScript("arguments[0].scrollIntoView({block:'center'}); arguments[0].click();", element);
+    }
+
+    private WebElement cached(String cacheKey, By locator, Duration timeout, boolean presentOnly) {
+        WebElement element = cache.get(cacheKey);
+        if (element == null) {
+            // Resolved up front so a missing element fails here, with the wait's timeout message.
+            element = StaleSafeElement.wrap(cacheKey, resolve(locator, timeout, presentOnly),
+                () -> resolve(locator, timeout, presentOnly));
+            cache.put(cacheKey, element);
+        }
+        return element;
+    }
+
+    private WebElement resolve(By locator, Duration timeout, boolean presentOnly) {
+        AppWait wait = AppWait.on(driver);
+        if (presentOnly) {
+            return timeout == null ? wait.present(locator) : wait.present(locator, timeout);
+        }
+        return timeout == null ? wait.clickable(locator) : wait.clickable(locator, timeout);
+    }
+}
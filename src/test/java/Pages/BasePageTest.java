@@ -0,0 +1,67 @@
+package Pages;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import Utilities.StubBrowser;
+
+// Cached page elements must survive the app re-rendering them between lookup and use.
+public class BasePageTest {
+
+    private StubBrowser browser;
+
+    @BeforeClass
+    public void startBrowser() {
+        browser = StubBrowser.start();
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void stopBrowser() {
+        if (browser != null) {
+            browser.close();
+        }
+    }
+
+    @Test
+    public void cachedElementIsReusedWithoutNewLookups() {
+        StubPage page = new StubPage(browser.driver());
+        page.clickContinue();
+        browser.resetCommandCount();
+
+        page.clickContinue();
+
+        Assert.assertEquals(browser.commandCount(), 1, "Second click should reuse the cached element");
+        Assert.assertEquals(clicks(), 2L);
+    }
+
+    @Test
+    public void staleElementIsResolvedAgain() {
+        StubPage page = new StubPage(browser.driver());
+        page.clickContinue();
+        ((JavascriptExecutor) browser.driver()).executeScript("window.render();");
+
+        page.clickContinue();
+
+        Assert.assertEquals(clicks(), 2L, "Click on the re-rendered button should have been retried, not lost");
+    }
+
+    private long clicks() {
+        return (Long) ((JavascriptExecutor) browser.driver()).executeScript("return window.clicks;");
+    }
+
+    private static final class StubPage extends BasePage {
+
+        StubPage(WebDriver driver) {
+            super(driver);
+            driver.get(StubBrowser.pageUrl("rerender.html"));
+        }
+
+        void clickContinue() {
+            click("common.continue");
+        }
+    }
+}
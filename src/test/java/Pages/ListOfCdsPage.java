@@ -0,0 +1,58 @@
+package Pages;
+
+import org.openqa.selenium.WebDriver;
+
+// 'List of CDs' screen: sell a CD (offer price) or utilize it (make, model, dealer, confirm).
+public class ListOfCdsPage extends BasePage {
+
+    public ListOfCdsPage(WebDriver driver) {
+        super(driver);
+    }
+
+    public void open() {
+        navigate("listOfCds", () -> click("nav.listOfCds"));
+    }
+
+    public void clickSell() {
+        click("cds.sell");
+        invalidate();
+    }
+
+    public void enterOfferPrice(String price) {
+        element("cds.offerPrice").sendKeys(price);
+    }
+
+    public void createOffer() {
+        click("cds.createOffer");
+        invalidate();
+    }
+
+    public void clickUtilize() {
+        click("cds.utilize");
+        invalidate();
+    }
+
+    public void selectMake(String make) {
+        click("cds.make");
+        element("cds.option", make).click();
+    }
+
+    public void selectModel(String model) {
+        click("cds.model");
+        element("cds.option", model).click();
+    }
+
+    public void enterDealerName(String dealer) {
+        element("cds.dealerName").sendKeys(dealer);
+    }
+
+    public void clickContinue() {
+        click("common.continue");
+        invalidate();
+    }
+
+    public void confirm() {
+        click("common.confirm");
+        invalidate();
+    }
+}
@@ -0,0 +1,69 @@
+package Pages;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.openqa.selenium.By;
+
+import Utilities.RunLog;
+
+/*
+    Every locator the page objects use, loaded from src/test/resources/locators.properties.
+    Entries are "<strategy>:<value>" with strategy css, id or xpath; "{0}" is filled from the page's argument.
+    A single entry can be overridden for a run with -Dlocator.<key>=<strategy>:<value>.
+*/
+public final class LocatorRegistry {
+
+    private static final Properties FILE = load();
+    private static final Map<String, By> CACHE = new ConcurrentHashMap<>();
+
+    private LocatorRegistry() {
+    }
+
+    public static By by(String key) {
+        return CACHE.computeIfAbsent(key, k -> parse(k, raw(k)));
+    }
+
+    public static By by(String key, String arg) {
+        return parse(key, raw(key).replace("{0}", arg));
+    }
+
+    private static String raw(String key) {
+        String value = System.getProperty("locator." + key, FILE.getProperty(key));
+        if (value == null || value.trim().isEmpty()) {
+            throw new IllegalStateException("No locator registered for '" + key + "' in locators.properties");
+        }
+        return value.trim();
+    }
+
+    private static By parse(String key, String entry) {
+        int colon = entry.indexOf(':');
+        String strategy = colon < 0 ? "" : entry.substring(0, colon).trim();
+        String value = colon < 0 ? "" : entry.substring(colon + 1).trim();
+        switch (strategy) {
+            case "css":
+                return By.cssSelector(value);
+            case "id":
+                return By.id(value);
+            case "xpath":
+                return By.xpath(value);
+            default:
+                throw new IllegalStateException("Locator '" + key + "' must start with css:, id: or xpath: but was: " + entry);
+        }
+    }
+
+    private static Properties load() {
+        Properties props = new Properties();
+        try (InputStream in = LocatorRegistry.class.getClassLoader().getResourceAsStream("locators.properties")) {
+            if (in != null) {
+                props.load(in);
+            }
+        } catch (IOException e) {
+            RunLog.info("Could not read locators.properties: " + e.getMessage());
+        }
+        return props;
+    }
+}
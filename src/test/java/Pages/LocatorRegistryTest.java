@@ -0,0 +1,40 @@
+package Pages;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Properties;
+
+import org.openqa.selenium.By;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+// Keeps locators.properties loadable and free of the positional XPaths and CSS selectors it replaced.
+public class LocatorRegistryTest {
+
+    @Test
+    public void everyEntryParsesAndAvoidsPositionalSelectors() throws IOException {
+        Properties entries = new Properties();
+        try (InputStream in = getClass().getClassLoader().getResourceAsStream("locators.properties")) {
+            entries.load(in);
+        }
+        Assert.assertFalse(entries.isEmpty(), "locators.properties is empty");
+        for (String key : entries.stringPropertyNames()) {
+            By locator = LocatorRegistry.by(key, "x");
+            Assert.assertNotNull(locator, key);
+            String value = entries.getProperty(key);
+            Assert.assertFalse(value.matches("xpath:.*(\\)\\[\\d+\\]|/\\w+\\[\\d+\\]).*"), "Positional XPath for '" + key + "': " + value);
+            Assert.assertFalse(value.matches(".*:nth-(last-)?(child|of-type)\\(.*"), "Positional CSS for '" + key + "': " + value);
+            Assert.assertFalse(value.startsWith("xpath:/html") || value.contains("/main/"), "Absolute XPath for '" + key + "': " + value);
+        }
+    }
+
+    @Test
+    public void argumentIsSubstituted() {
+        Assert.assertEquals(LocatorRegistry.by("cds.option", "SUZUKI"), By.cssSelector("[aria-label='SUZUKI']"));
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void unknownKeyFails() {
+        LocatorRegistry.by("no.such.locator");
+    }
+}
@@ -0,0 +1,26 @@
+package Pages;
+
+import org.openqa.selenium.WebDriver;
+
+// Public landing page: Login/Register button and the mobile-number form.
+public class LoginPage extends BasePage {
+
+    public LoginPage(WebDriver driver) {
+        super(driver);
+    }
+
+    public void openLoginForm() {
+        forceClick("login.open");
+        invalidate();
+    }
+
+    public void enterMobile(String mobileNumber) {
+        type("login.mobile", mobileNumber);
+    }
+
+    // Sends the OTP; callers register with OtpWaiter before this so the new OTP is not missed.
+    public void submit() {
+        forceClick("login.submit");
+        invalidate();
+    }
+}
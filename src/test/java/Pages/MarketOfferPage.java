@@ -0,0 +1,53 @@
+package Pages;
+
+import org.openqa.selenium.WebDriver;
+
+// Buyer side: 'Transaction History' with its market offers (place a bid), and 'My Bids' (cancel a bid).
+public class MarketOfferPage extends BasePage {
+
+    public MarketOfferPage(WebDriver driver) {
+        super(driver);
+    }
+
+    // Sidebar 'Transaction History'.
+    public void open() {
+        navigate("transactionHistory", () -> forceClick("nav.transactionHistory"));
+    }
+
+    public void viewAllOffers() {
+        navigate("marketOffers", () -> forceClick("offer.viewAll"));
+    }
+
+    public void placeOfferToBuy() {
+        forceClick("offer.placeToBuy");
+        invalidate();
+    }
+
+    public void enterBidPrice(String price) {
+        type("offer.bidPrice", price);
+    }
+
+    public void createBid() {
+        forceClick("offer.createBid");
+        invalidate();
+    }
+
+    public void openMyBids() {
+        navigate("myBids", () -> forceClick("nav.myBids"));
+    }
+
+    public void cancelBid() {
+        forceClick("offer.cancelBid");
+        invalidate();
+    }
+
+    public void confirm() {
+        forceClick("common.confirm");
+        invalidate();
+    }
+
+    public void clickContinue() {
+        forceClick("common.continue");
+        invalidate();
+    }
+}
@@ -0,0 +1,41 @@
+package Pages;
+
+import java.time.Duration;
+
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.WebDriver;
+
+import Utilities.AppWait;
+import Utilities.OtpEntry;
+import Utilities.RunLog;
+
+// OTP screen after Login, plus the optional KYC popup the app may show right after it.
+public class OtpPage extends BasePage {
+
+    public OtpPage(WebDriver driver) {
+        super(driver);
+    }
+
+    // Entering the last digit logs in; the screen the app lands on is measured as "home".
+    public void enter(String otp) {
+        navigate("home", () -> OtpEntry.fill(driver, otp));
+    }
+
+    /*
+        Races the KYC popup against the post-login layout instead of waiting out a fixed timeout for the
+        popup: returns as soon as the sidebar is up, true if the popup showed first and was skipped.
+        A popup that only appears later is skipped by the next wait of any step (app.interrupts).
+        Neither showing within the timeout is not an error here; the next step reports it.
+    */
+    public boolean dismissKycPopupIfPresent(Duration timeout) {
+        long before = AppWait.interruptsHandled(driver, "kyc");
+        try {
+            AppWait.on(driver).visible(LocatorRegistry.by("nav.sidebar"), timeout);
+        } catch (TimeoutException e) {
+            RunLog.info("Post-login layout not up after " + timeout.toMillis() + "ms: " + e.getMessage());
+        } finally {
+            invalidate();
+        }
+        return AppWait.interruptsHandled(driver, "kyc") > before;
+    }
+}
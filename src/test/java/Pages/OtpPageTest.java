@@ -0,0 +1,66 @@
+package Pages;
+
+import java.time.Duration;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import Utilities.AppWait;
+import Utilities.StubBrowser;
+
+// The optional KYC popup must cost nothing when it does not show, and be skipped whenever it does.
+public class OtpPageTest {
+
+    private StubBrowser browser;
+
+    @BeforeClass
+    public void startBrowser() {
+        browser = StubBrowser.start();
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void stopBrowser() {
+        if (browser != null) {
+            browser.close();
+        }
+    }
+
+    @Test
+    public void missingPopupDoesNotCostTheTimeout() {
+        browser.driver().get(StubBrowser.pageUrl("kyc.html") + "?popup=none");
+        long started = System.nanoTime();
+
+        boolean dismissed = new OtpPage(browser.driver()).dismissKycPopupIfPresent(Duration.ofSeconds(5));
+
+        Assert.assertFalse(dismissed);
+        Assert.assertTrue(System.nanoTime() - started < Duration.ofSeconds(2).toNanos(), "Should return once the sidebar is up");
+    }
+
+    @Test
+    public void popupBeforeTheSidebarIsSkipped() {
+        browser.driver().get(StubBrowser.pageUrl("kyc.html") + "?popup=first");
+
+        Assert.assertTrue(new OtpPage(browser.driver()).dismissKycPopupIfPresent(Duration.ofSeconds(5)));
+        Assert.assertEquals(popups(), 0L, "Popup should be gone");
+    }
+
+    @Test
+    public void latePopupIsSkippedByTheNextWait() {
+        browser.driver().get(StubBrowser.pageUrl("kyc.html") + "?popup=late");
+        OtpPage page = new OtpPage(browser.driver());
+        Assert.assertFalse(page.dismissKycPopupIfPresent(Duration.ofSeconds(5)), "Sidebar comes first");
+
+        page.forceClick("common.continue");
+
+        Assert.assertEquals(AppWait.interruptsHandled(browser.driver(), "kyc"), 1L);
+        Assert.assertEquals(popups(), 0L);
+        Assert.assertEquals(((JavascriptExecutor) browser.driver()).executeScript("return window.clicks;"), 1L);
+    }
+
+    private long popups() {
+        return (Long) ((JavascriptExecutor) browser.driver()).executeScript("return document.querySelectorAll('#kyc').length;");
+    }
+}
@@ -0,0 +1,75 @@
+package Pages;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.function.Supplier;
+
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.WrapsElement;
+
+import Utilities.Config;
+import Utilities.RunLog;
+
+/*
+    WebElement handed out by the page objects. It forwards every call to the last resolved element and,
+    when Angular has re-rendered it (StaleElementReferenceException), resolves the locator again and
+    repeats the call - up to pages.staleRetries times - instead of failing the step.
+    It also implements WrapsElement, so it can be passed to executeScript like a plain element.
+*/
+final class StaleSafeElement implements InvocationHandler {
+
+    private static final int MAX_RETRIES = Config.getInt("pages.staleRetries", 2);
+
+    private final String name;
+    private final Supplier<WebElement> resolver;
+    private WebElement current;
+
+    private StaleSafeElement(String name, WebElement resolved, Supplier<WebElement> resolver) {
+        this.name = name;
+        this.current = resolved;
+        this.resolver = resolver;
+    }
+
+    static WebElement wrap(String name, WebElement resolved, Supplier<WebElement> resolver) {
+        return (WebElement) Proxy.newProxyInstance(StaleSafeElement.class.getClassLoader(),
+            new Class<?>[] {WebElement.class, WrapsElement.class}, new StaleSafeElement(name, resolved, resolver));
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        if (method.getDeclaringClass() == Object.class) {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    return "PageElement[" + name + "]";
+            }
+        }
+        if ("getWrappedElement".equals(method.getName())) {
+            return element();
+        }
+        for (int attempt = 0; ; attempt++) {
+            try {
+                return method.invoke(element(), args);
+            } catch (InvocationTargetException e) {
+                if (!(e.getCause() instanceof StaleElementReferenceException) || attempt >= MAX_RETRIES) {
+                    throw e.getCause();
+                }
+                RunLog.info("Element '" + name + "' went stale during " + method.getName() + "(), re-resolving.");
+                current = null;
+            }
+        }
+    }
+
+    private synchronized WebElement element() {
+        if (current == null) {
+            current = resolver.get();
+        }
+        return current;
+    }
+}
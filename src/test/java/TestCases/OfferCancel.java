@@ -15,95 +15,94 @@
 package TestCases;
 
 import java.time.Duration;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
 import java.io.IOException;
-import java.sql.*;
-import org.openqa.selenium.By;
-import org.openqa.selenium.JavascriptExecutor;
 import org.openqa.selenium.WebDriver;
-import org.openqa.selenium.WebElement;
-import org.openqa.selenium.chrome.ChromeDriver;
-import org.openqa.selenium.chrome.ChromeOptions;
 import org.openqa.selenium.interactions.Actions;
-import org.openqa.selenium.support.ui.ExpectedConditions;
-import org.openqa.selenium.support.ui.WebDriverWait;
 import org.testng.Assert;
 import org.testng.annotations.*;
 
-import io.github.bonigarcia.wdm.WebDriverManager;
-
-public class OfferCancel {
+import Pages.LoginPage;
+import Pages.MarketOfferPage;
+import Pages.OtpPage;
+import Utilities.AccountLease;
+import Utilities.AccountRole;
+import Utilities.BaseFlow;
+import Utilities.Checkpoint;
+import Utilities.FlowRole;
+import Utilities.LoginStep;
+import Utilities.OtpWaiter;
+import Utilities.RunLog;
+
+@FlowRole(AccountRole.BUYER)
+public class OfferCancel extends BaseFlow {
 
     private WebDriver driver;
     private Actions actions;
-    private WebDriverWait wait;
-    private static String mobileNumber = "9999999990";
-    private static String otp;
+    private LoginPage loginPage;
+    private OtpPage otpPage;
+    private MarketOfferPage offerPage;
+    private AccountLease account;
+    private String mobileNumber;
+    private OtpWaiter.PendingOtp pendingOtp;
+    private String otp;
 
     @BeforeClass
     public void setup() {
-        System.out.println("***************  TestCase Execution for Buyer Bids Cancellation Flow  ***************");
+        RunLog.info("TestCase Execution for Buyer Bids Cancellation Flow");
         try {
-            // Set ChromeDriver path if not present in system environment
-        	WebDriverManager.chromedriver().setup();
-            // Chrome Preferences
-            Map<String, Object> prefs = new HashMap<>();
-            prefs.put("profile.default_content_settings.popups", 0);
-            prefs.put("download.prompt_for_download", false);
-            prefs.put("download.directory_upgrade", true);
-            prefs.put("safebrowsing.enabled", true);
-            prefs.put("profile.default_content_setting_values.automatic_downloads", 1);
-            ChromeOptions options = new ChromeOptions();
-            options.setExperimentalOption("prefs", prefs);
-            
-            driver = new ChromeDriver(options);
+            driver = leaseDriver();
+            account = leaseAccount();
+            mobileNumber = account.getMobileNumber();
             actions = new Actions(driver);
-            driver.manage().window().maximize();
-            wait = new WebDriverWait(driver, Duration.ofSeconds(30));
-            System.out.println("WebDriver setup successful.");
+            loginPage = new LoginPage(driver);
+            otpPage = new OtpPage(driver);
+            offerPage = new MarketOfferPage(driver);
+            RunLog.info("WebDriver setup successful.");
         } catch (Exception e) {
             Assert.fail("FAILED [Setup]: WebDriver failed to setup: " + e.getMessage());
         }
     }
     @Test(priority = 1)
     public void testOpenLoginPage() {
-        System.out.println("\n========== Step 2: Navigate to the login page ==========");
+        RunLog.step("Step 2: Navigate to the login page");
         try {
-            driver.get("https://digielv.mmcm.in/");
+            openApp(driver, mobileNumber);
             Assert.assertNotNull(driver.getTitle(), "FAILED [Navigation]: Page did not load or title is null.");
         } catch (Exception e) {
             Assert.fail("FAILED [Page Load]: Could not load the login page. Reason: " + e.getMessage());
         }
     }
 
+    @LoginStep
     @Test(priority = 2, dependsOnMethods = "testOpenLoginPage")
     public void testClickLoginRegisterButton() {
-        System.out.println("\n========== Step 3: Click Login/Register button ==========");
+        RunLog.step("Step 3: Click Login/Register button");
         try {
-            driver.findElement(By.xpath("//*[@id=\"navbarNav\"]/ul/li[5]/a/button")).click();
+            loginPage.openLoginForm();
         } catch (Exception e) {
             Assert.fail("FAILED [Login/Register]: Couldn't find or click the Login/Register button. Reason: " + e.getMessage());
         }
     }
 
+    @LoginStep
     @Test(priority = 3, dependsOnMethods = "testClickLoginRegisterButton")
     public void testEnterMobileAndClickLogin() {
-        System.out.println("\n========== Step 4: Enter mobile number and click Login ==========");
+        RunLog.step("Step 4: Enter mobile number and click Login");
         try {
-            driver.findElement(By.xpath("//input[@placeholder='Enter Your Mobile Number']")).sendKeys(mobileNumber);
-            driver.findElement(By.xpath("//button[normalize-space(text())='Login']")).click();
+            loginPage.enterMobile(mobileNumber);
+            pendingOtp = OtpWaiter.shared().expect(mobileNumber);
+            loginPage.submit();
         } catch (Exception e) {
             Assert.fail("FAILED [Mobile/Login]: Could not enter mobile or click Login. Reason: " + e.getMessage());
         }
     }
 
+    @LoginStep
     @Test(priority = 4, dependsOnMethods = "testEnterMobileAndClickLogin")
     public void testFetchOtpFromDB() {
-        System.out.println("\n========== Step 5: Fetch OTP from database ==========");
+        RunLog.step("Step 5: Fetch OTP from database");
         try {
-            otp = fetchOtpFromDatabase(mobileNumber);
+            otp = pendingOtp.await();
             Assert.assertNotNull(otp, "FAILED [OTP Fetch]: OTP fetched is null from DB (DB error or wrong mobile).");
             Assert.assertEquals(otp.length(), 6, "FAILED [OTP Fetch]: OTP is not 6 digits. OTP=" + otp);
         } catch (Exception e) {
@@ -111,61 +110,37 @@ public class OfferCancel {
         }
     }
 
+    @LoginStep
     @Test(priority = 5, dependsOnMethods = "testFetchOtpFromDB")
-    public void testEnterOtpInputs() throws InterruptedException {
-        System.out.println("\n========== Step 6: Enter OTP into input fields ==========");
+    public void testEnterOtpInputs() {
+        RunLog.step("Step 6: Enter OTP into input fields");
         try {
-            WebDriverWait otpWait = new WebDriverWait(driver, Duration.ofSeconds(20));
-            List<WebElement> otpInputs = otpWait.until(
-                ExpectedConditions.visibilityOfAllElementsLocatedBy(
-                    By.xpath("//p-inputotp//input[contains(@class,'p-inputotp-input')]")
-                )
-            );
-            Assert.assertEquals(otpInputs.size(), 6, "FAILED [OTP Boxes]: Did not find 6 OTP input boxes. Found: " + otpInputs.size());
-            for (int i = 0; i < 6; i++) {
-                WebElement input = otpInputs.get(i);
-                ((JavascriptExecutor) driver).executeScript("arguments[0].scrollIntoView(true);", input);
-                input.click();
-                input.clear();
-                input.sendKeys(Character.toString(otp.charAt(i)));
-                Thread.sleep(100);
-            }
-            System.out.println("OTP entered successfully: " + otp);
+            otpPage.enter(otp);
+            RunLog.info("OTP entered successfully: " + otp);
         } catch (Exception e) {
             Assert.fail("FAILED [OTP Entry]: Could not enter OTP. Reason: " + e.getMessage());
         }
     }
 
+    @LoginStep
     @Test(priority = 6, dependsOnMethods = "testEnterOtpInputs")
     public void testDismissKycPopupIfPresent() {
-        System.out.println("\n========== Step 7: Handle/dismiss optional KYC popup if it appears ==========");
-        try {
-            WebDriverWait popupWait = new WebDriverWait(driver, Duration.ofSeconds(5));
-            WebElement cancelPopupButton = popupWait.until(
-                ExpectedConditions.elementToBeClickable(
-                    // Edit to match actual button if necessary; fallback to original ID path:
-                    By.xpath("//*[normalize-space()=\"Skip For Now\"]")
-                )
-            );
-            cancelPopupButton.click();
-            System.out.println("KYC cancellation popup appeared and was dismissed.");
-        } catch (Exception e) {
-            System.out.println("No KYC cancellation popup appeared. Continuing to next step.");
+        RunLog.step("Step 7: Handle/dismiss optional KYC popup if it appears");
+        if (otpPage.dismissKycPopupIfPresent(Duration.ofSeconds(5))) {
+            RunLog.info("KYC cancellation popup appeared and was handled.");
+        } else {
+            RunLog.info("No KYC popup present, continuing.");
         }
+        rememberSession(driver, mobileNumber);
     }
 
 
+    @Checkpoint
     @Test(priority = 7, dependsOnMethods = "testDismissKycPopupIfPresent")
     public void testMyBids() {
-        System.out.println("\n========== Step 9: Click 'My Bids' button ==========");
+        RunLog.step("Step 9: Click 'My Bids' button");
         try {
-            WebDriverWait BidBtnWait = new WebDriverWait(driver, Duration.ofSeconds(10));
-            WebElement allOfferBtn = BidBtnWait.until(
-                ExpectedConditions.elementToBeClickable(
-                    By.xpath("//a[normalize-space()='My Bids']")
-                )
-            );
-            allOfferBtn.click();
+            offerPage.openMyBids();
         } catch (Exception e) {
             Assert.fail("FAILED [My Bids]: Could not click 'My Bids'. Reason: " + e.getMessage());
         }
@@ -174,15 +149,9 @@ public class OfferCancel {
     
         @Test(priority = 8, dependsOnMethods = "testMyBids")
         public void testClickCancelBid() {
-        	   System.out.println("\n========== Step 10: Click 'Cancel' button ==========");
+        	   RunLog.step("Step 10: Click 'Cancel' button");
         try {
-            WebDriverWait buyOfferBtnWait = new WebDriverWait(driver, Duration.ofSeconds(10));
-            WebElement buyOfferBtn = buyOfferBtnWait.until(
-                ExpectedConditions.elementToBeClickable(
-                    By.xpath("//*[@class=\"btn btn-danger w-100 rounded-pill ng-star-inserted\" and contains(text(),'Cancel Bid')]")
-                )
-            );
-            buyOfferBtn.click();
+            offerPage.cancelBid();
         } catch (Exception e) {
             Assert.fail("FAILED [Cancel Bid]: Could not click 'Cancel Bid Button'. Reason: " + e.getMessage());
         }
@@ -190,15 +159,9 @@ public class OfferCancel {
     
     @Test(priority = 9, dependsOnMethods = "testClickCancelBid")
     public void testcliconconfirmbutton() {
-    	   System.out.println("\n========== Step 10: Click 'Confirm' button ==========");
+    	   RunLog.step("Step 10: Click 'Confirm' button");
            try {
-               WebDriverWait Confirmbtn = new WebDriverWait(driver, Duration.ofSeconds(10));
-               WebElement Button = Confirmbtn.until(
-                   ExpectedConditions.elementToBeClickable(
-                       By.xpath("(//*[@class=\"btn btn-success rounded-pill\" and contains(text(), \"Confirm\")])[2]")
-                   )
-               );
-               Button.click();
+               offerPage.confirm();
            } catch (Exception e) {
                Assert.fail("FAILED [Cancel Bid]: Could not click 'Cancle Bid Button'. Reason: " + e.getMessage());
            }
@@ -206,15 +169,9 @@ public class OfferCancel {
     	
     @Test(priority = 10, dependsOnMethods = "testcliconconfirmbutton")
     public void ContinueButton() {
-    	   System.out.println("\n========== Step 10: Click 'Continue' button ==========");
+    	   RunLog.step("Step 10: Click 'Continue' button");
            try {
-               WebDriverWait Continuebtn = new WebDriverWait(driver, Duration.ofSeconds(10));
-               WebElement Button1 = Continuebtn.until(
-                   ExpectedConditions.elementToBeClickable(
-                       By.xpath("(//*[@class=\"btn btn-primary w-100 rounded-pill\" and contains(text(), ' Continue ')])[1]")
-                   )
-               );
-               Button1.click();
+               offerPage.clickContinue();
            } catch (Exception e) {
                Assert.fail("FAILED [Continue Button]: Could not click 'Continue Button'. Reason: " + e.getMessage());
            }
@@ -222,48 +179,16 @@ public class OfferCancel {
 
     @AfterClass
     public void teardown() {
-        System.out.println("Test Execution Completed.");
+        RunLog.info("Test Execution Completed.");
 
         if (driver != null) {
-            try {
-                System.out.println("Logged Out Successfully!");
-            } finally {
-                driver.quit();   //
-            }
-        }
-
-        if (mobileNumber != null && !mobileNumber.isEmpty()) {
-            updateIsLoggedInInDB(mobileNumber);
+            RunLog.info("Logged Out Successfully!");
         }
+        endSession(driver, account);
     }
 
 
     // === Utility Methods ===
-    	public static String updateIsLoggedInInDB(String mobileNumber) {
-        String url = "jdbc:postgresql://elv-hyd-uat-cluster.cluster-ro-cxua0wsmu5p7.ap-south-1.rds.amazonaws.com:1521/mmcmuat";
-        String user = "uatuser";
-        String password = "password@123";
-        String update = "UPDATE common.user_mstr SET is_logged_in = 0 WHERE mobile_no = ?";
-
-        try {
-            Class.forName("org.postgresql.Driver");
-            Connection conn = DriverManager.getConnection(url, user, password);
-            PreparedStatement pstmt = conn.prepareStatement(update);
-            pstmt.setLong(1, Long.parseLong(mobileNumber));  
-            int rows = pstmt.executeUpdate();
-            if (rows > 0) {
-                System.out.println("is_logged_in reset in DB for mobile: " + mobileNumber);
-            } else {
-                System.out.println("No row updated for mobile: " + mobileNumber);
-            }
-            pstmt.close();
-            conn.close();
-        } catch (Exception e) {
-            System.out.println("Error updating is_logged_in in DB: " + e.getMessage());
-        }
-		return update;  
-    }
-    
     // Utility method to read exactly 10 digits from the console
     public static String readTenDigitsFromConsole() {
         StringBuilder sb = new StringBuilder(10);
@@ -286,30 +211,4 @@ public class OfferCancel {
         }
         return sb.toString();
     }
-
-    // Utility method to fetch OTP by mobile number from DB
-    public static String fetchOtpFromDatabase(String mobileNumber) {
-        String otp = null;
-        String url = "jdbc:postgresql://elv-hyd-uat-cluster.cluster-ro-cxua0wsmu5p7.ap-south-1.rds.amazonaws.com:1521/mmcmuat";
-        String user = "uatuser";
-        String password = "password@123";
-        String query1 = "SELECT otp FROM common.user_mstr WHERE mobile_no = " + mobileNumber;
-        try {
-            Class.forName("org.postgresql.Driver");
-            Connection conn = DriverManager.getConnection(url, user, password);
-            Statement stmt1 = conn.createStatement();
-            ResultSet rs1 = stmt1.executeQuery(query1);
-            if (rs1.next()) {
-                otp = rs1.getString("otp");
-            } else {
-                Assert.fail("FAILED [DB Query]: No user found with mobile number: " + mobileNumber);
-            }
-            rs1.close();
-            stmt1.close();
-            conn.close();
-        } catch (Exception e) {
-            Assert.fail("FAILED [DB OTP Fetch]: DB error while fetching OTP: " + e.getMessage());
-        }
-        return otp;
-    }
 }
@@ -1,22 +1,25 @@
 package TestCases;
 
 import java.time.Duration;
-import java.util.List;
 import java.io.IOException;
-import java.sql.*;
-import org.openqa.selenium.By;
-import org.openqa.selenium.JavascriptExecutor;
 import org.openqa.selenium.WebDriver;
-import org.openqa.selenium.WebElement;
-import org.openqa.selenium.chrome.ChromeDriver;
 import org.openqa.selenium.interactions.Actions;
-import org.openqa.selenium.support.ui.ExpectedConditions;
-import org.openqa.selenium.support.ui.WebDriverWait;
 import org.testng.Assert;
 import org.testng.annotations.*;
-import io.github.bonigarcia.wdm.WebDriverManager;
+import Pages.ListOfCdsPage;
+import Pages.LoginPage;
+import Pages.OtpPage;
+import Utilities.AccountLease;
+import Utilities.AccountRole;
+import Utilities.BaseFlow;
+import Utilities.Checkpoint;
+import Utilities.FlowRole;
+import Utilities.LoginStep;
+import Utilities.OtpWaiter;
+import Utilities.RunLog;
 
-public class Own_CDUtilize {
+@FlowRole(AccountRole.SELLER)
+public class Own_CDUtilize extends BaseFlow {
 	
 	/*    Testcase Steps:
             1. Read mobile number
@@ -38,20 +41,26 @@ public class Own_CDUtilize {
 
     private WebDriver driver;
     private Actions actions;
-    private WebDriverWait wait;
-    private static String mobileNumber = "9999999990";
-    private static String otp;
+    private LoginPage loginPage;
+    private OtpPage otpPage;
+    private ListOfCdsPage cdsPage;
+    private AccountLease account;
+    private String mobileNumber;
+    private OtpWaiter.PendingOtp pendingOtp;
+    private String otp;
 
     @BeforeClass
     public void setup() {
-        System.out.println("***************  TestCase Execution for Seller CD Utilization Flow  ***************");
+        RunLog.info("TestCase Execution for Seller CD Utilization Flow");
         try {
-            WebDriverManager.chromedriver().setup();
-            driver = new ChromeDriver();
+            driver = leaseDriver();
+            account = leaseAccount();
+            mobileNumber = account.getMobileNumber();
             actions = new Actions(driver);
-            driver.manage().window().maximize();
-            wait = new WebDriverWait(driver, Duration.ofSeconds(30));
-            System.out.println("WebDriver setup successful.");
+            loginPage = new LoginPage(driver);
+            otpPage = new OtpPage(driver);
+            cdsPage = new ListOfCdsPage(driver);
+            RunLog.info("WebDriver setup successful.");
         } catch (Exception e) {
             Assert.fail("FAILED [Setup]: WebDriver failed to setup: " + e.getMessage());
         }
@@ -59,41 +68,45 @@ public class Own_CDUtilize {
 
     @Test(priority = 1)
     public void testOpenLoginPage() {
-        System.out.println("\n========== Step 2: Navigate to the login page ==========");
+        RunLog.step("Step 2: Navigate to the login page");
         try {
-            driver.get("https://digielv.mmcm.in/");
+            openApp(driver, mobileNumber);
             Assert.assertNotNull(driver.getTitle(), "FAILED [Navigation]: Page did not load or title is null.");
         } catch (Exception e) {
             Assert.fail("FAILED [Page Load]: Could not load the login page. Reason: " + e.getMessage());
         }
     }
 
+    @LoginStep
     @Test(priority = 2, dependsOnMethods = "testOpenLoginPage")
     public void testClickLoginRegisterButton() {
-        System.out.println("\n========== Step 3: Click Login/Register button ==========");
+        RunLog.step("Step 3: Click Login/Register button");
         try {
-            driver.findElement(By.xpath("//*[@id=\"navbarNav\"]/ul/li[5]/a/button")).click();
+            loginPage.openLoginForm();
         } catch (Exception e) {
             Assert.fail("FAILED [Login/Register]: Couldn't find or click the Login/Register button. Reason: " + e.getMessage());
         }
     }
 
+    @LoginStep
     @Test(priority = 3, dependsOnMethods = "testClickLoginRegisterButton")
     public void testEnterMobileAndClickLogin() {
-        System.out.println("\n========== Step 4: Enter mobile number and click Login ==========");
+        RunLog.step("Step 4: Enter mobile number and click Login");
         try {
-            driver.findElement(By.xpath("//input[@placeholder='Enter Your Mobile Number']")).sendKeys(mobileNumber);
-            driver.findElement(By.xpath("//button[normalize-space(text())='Login']")).click();
+            loginPage.enterMobile(mobileNumber);
+            pendingOtp = OtpWaiter.shared().expect(mobileNumber);
+            loginPage.submit();
         } catch (Exception e) {
             Assert.fail("FAILED [Mobile/Login]: Could not enter mobile or click Login. Reason: " + e.getMessage());
         }
     }
 
+    @LoginStep
     @Test(priority = 4, dependsOnMethods = "testEnterMobileAndClickLogin")
     public void testFetchOtpFromDB() {
-        System.out.println("\n========== Step 5: Fetch OTP from database ==========");
+        RunLog.step("Step 5: Fetch OTP from database");
         try {
-            otp = fetchOtpFromDatabase(mobileNumber);
+            otp = pendingOtp.await();
             Assert.assertNotNull(otp, "FAILED [OTP Fetch]: OTP fetched is null from DB (DB error or wrong mobile).");
             Assert.assertEquals(otp.length(), 6, "FAILED [OTP Fetch]: OTP is not 6 digits. OTP=" + otp);
         } catch (Exception e) {
@@ -101,56 +114,35 @@ public class Own_CDUtilize {
         }
     }
 
+    @LoginStep
     @Test(priority = 5, dependsOnMethods = "testFetchOtpFromDB")
-    public void testEnterOtpInputs() throws InterruptedException {
-        System.out.println("\n========== Step 6: Enter OTP into input fields ==========");
+    public void testEnterOtpInputs() {
+        RunLog.step("Step 6: Enter OTP into input fields");
         try {
-            WebDriverWait otpWait = new WebDriverWait(driver, Duration.ofSeconds(20));
-            List<WebElement> otpInputs = otpWait.until(
-                ExpectedConditions.visibilityOfAllElementsLocatedBy(
-                    By.xpath("//p-inputotp//input[contains(@class,'p-inputotp-input')]")
-                )
-            );
-            Assert.assertEquals(otpInputs.size(), 6, "FAILED [OTP Boxes]: Did not find 6 OTP input boxes. Found: " + otpInputs.size());
-            for (int i = 0; i < 6; i++) {
-                WebElement input = otpInputs.get(i);
-                ((JavascriptExecutor) driver).executeScript("arguments[0].scrollIntoView(true);", input);
-                input.click();
-                input.clear();
-                input.sendKeys(Character.toString(otp.charAt(i)));
-                Thread.sleep(100);
-            }
+            otpPage.enter(otp);
         } catch (Exception e) {
             Assert.fail("FAILED [OTP Entry]: Could not enter OTP. Reason: " + e.getMessage());
         }
     }
 
+    @LoginStep
     @Test(priority = 6, dependsOnMethods = "testEnterOtpInputs")
     public void testDismissKycPopupIfPresent() {
-        System.out.println("\n========== Step 7: Handle/dismiss optional KYC popup if it appears ==========");
-        try {
-            WebDriverWait popupWait = new WebDriverWait(driver, Duration.ofSeconds(5));
-            WebElement cancelPopupButton = popupWait.until(
-                ExpectedConditions.elementToBeClickable(
-                    By.xpath("//*[@id=\"content\"]/main/app-user-profile/div/div[2]/div/div[3]/button[1]")
-                )
-            );
-            cancelPopupButton.click();
-            System.out.println("KYC cancellation popup appeared and was handled.");
-        } catch (Exception e) {
-            System.out.println("No KYC popup present, continuing. (Reason: " + e.getMessage() + ")");
+        RunLog.step("Step 7: Handle/dismiss optional KYC popup if it appears");
+        if (otpPage.dismissKycPopupIfPresent(Duration.ofSeconds(5))) {
+            RunLog.info("KYC cancellation popup appeared and was handled.");
+        } else {
+            RunLog.info("No KYC popup present, continuing.");
         }
+        rememberSession(driver, mobileNumber);
     }
 
+    @Checkpoint
     @Test(priority = 7, dependsOnMethods = "testDismissKycPopupIfPresent")
     public void testNavigateToListOfCDs() {
-        System.out.println("\n========== Step 8: Click 'List of CDs' from the sidebar ==========");
+        RunLog.step("Step 8: Click 'List of CDs' from the sidebar");
         try {
-            WebDriverWait SideBar = new WebDriverWait(driver, Duration.ofSeconds(10));
-            WebElement ListCDs = SideBar.until(
-                ExpectedConditions.elementToBeClickable(By.xpath("//a[contains(normalize-space(.), 'List of CDs')]"))
-            );
-            ListCDs.click();
+            cdsPage.open();
         } catch (Exception e) {
             Assert.fail("FAILED [Sidebar/List of CDs]: Could not click 'List of CDs'. Reason: " + e.getMessage());
         }
@@ -158,13 +150,9 @@ public class Own_CDUtilize {
 
     @Test(priority = 8, dependsOnMethods = "testNavigateToListOfCDs")
     public void testClickUtilizeButton() {
-        System.out.println("\n========== Step 9: Click Utilize button for a CD ==========");
+        RunLog.step("Step 9: Click Utilize button for a CD");
         try {
-            WebDriverWait buttonWait = new WebDriverWait(driver, Duration.ofSeconds(10));
-            WebElement utilizeBtn = buttonWait.until(
-                ExpectedConditions.elementToBeClickable(By.xpath("//*[@class='btn w-md-50 w-100 rounded-pill btn-primary ng-star-inserted'][1]"))
-            );
-            utilizeBtn.click();
+            cdsPage.clickUtilize();
         } catch (Exception e) {
             Assert.fail("FAILED [Utilize Button]: Could not click Utilize button. Reason: " + e.getMessage());
         }
@@ -172,19 +160,9 @@ public class Own_CDUtilize {
 
     @Test(priority = 9, dependsOnMethods = "testClickUtilizeButton")
     public void testSelectMake() {
-        System.out.println("\n========== Step 10: Select Make ==========");
+        RunLog.step("Step 10: Select Make");
         try {
-            WebDriverWait makeWait = new WebDriverWait(driver, Duration.ofSeconds(10));
-            WebElement make = makeWait.until(
-                ExpectedConditions.elementToBeClickable(By.xpath("//*[@placeholder=\"Select Make\"]"))
-            );
-            make.click();
-
-            WebDriverWait makedrop = new WebDriverWait(driver, Duration.ofSeconds(10));
-            WebElement makeOption = makedrop.until(
-                ExpectedConditions.elementToBeClickable(By.xpath("//*[@aria-label=\"SUZUKI\"]"))
-            );
-            makeOption.click();
+            cdsPage.selectMake("SUZUKI");
         } catch (Exception e) {
             Assert.fail("FAILED [Select Make]: Could not select Make. Reason: " + e.getMessage());
         }
@@ -192,19 +170,9 @@ public class Own_CDUtilize {
 
     @Test(priority = 10, dependsOnMethods = "testSelectMake")
     public void testSelectModel() {
-        System.out.println("\n========== Step 11: Select Model ==========");
+        RunLog.step("Step 11: Select Model");
         try {
-            WebDriverWait modelWait = new WebDriverWait(driver, Duration.ofSeconds(10));
-            WebElement model = modelWait.until(
-                ExpectedConditions.elementToBeClickable(By.xpath("//*[@placeholder=\"Select Model\"]"))
-            );
-            model.click();
-
-            WebDriverWait modeldrop = new WebDriverWait(driver, Duration.ofSeconds(10));
-            WebElement modelOption = modeldrop.until(
-                ExpectedConditions.elementToBeClickable(By.xpath("//*[@aria-label=\"Burgman Street\"]"))
-            );
-            modelOption.click();
+            cdsPage.selectModel("Burgman Street");
         } catch (Exception e) {
             Assert.fail("FAILED [Select Model]: Could not select Model. Reason: " + e.getMessage());
         }
@@ -212,13 +180,9 @@ public class Own_CDUtilize {
 
     @Test(priority = 11, dependsOnMethods = "testSelectModel")
     public void testEnterDealerName() {
-        System.out.println("\n========== Step 12: Enter Dealer Name ==========");
+        RunLog.step("Step 12: Enter Dealer Name");
         try {
-            WebDriverWait dealerWait = new WebDriverWait(driver, Duration.ofSeconds(10));
-            WebElement dealerName = dealerWait.until(
-                ExpectedConditions.elementToBeClickable(By.xpath("//*[@placeholder=\"Add Dealer Name\"]"))
-            );
-            dealerName.sendKeys("NA");
+            cdsPage.enterDealerName("NA");
         } catch (Exception e) {
             Assert.fail("FAILED [Dealer Name]: Could not enter dealer name. Reason: " + e.getMessage());
         }
@@ -226,9 +190,9 @@ public class Own_CDUtilize {
 
     @Test(priority = 12, dependsOnMethods = "testEnterDealerName")
     public void testClickContinueAfterDealer() {
-        System.out.println("\n========== Step 13: Click Continue after entering Dealer Name ==========");
+        RunLog.step("Step 13: Click Continue after entering Dealer Name");
         try {
-            driver.findElement(By.xpath("//button[@class=\"btn btn-primary w-50 rounded-pill\" and text()=\"Continue\"]")).click();
+            cdsPage.clickContinue();
         } catch (Exception e) {
             Assert.fail("FAILED [Continue Dealer]: Could not click Continue after dealer name. Reason: " + e.getMessage());
         }
@@ -236,13 +200,9 @@ public class Own_CDUtilize {
 
     @Test(priority = 13, dependsOnMethods = "testClickContinueAfterDealer")
     public void testClickConfirmUtilize() {
-        System.out.println("\n========== Step 14: Click Confirm to utilize CD ==========");
+        RunLog.step("Step 14: Click Confirm to utilize CD");
         try {
-            WebDriverWait buttonWait = new WebDriverWait(driver, Duration.ofSeconds(10));
-            WebElement confirmBtn = buttonWait.until(
-                ExpectedConditions.elementToBeClickable(By.xpath("(//*[@class=\"btn btn-success rounded-pill\" and contains(text(), 'Confirm')])[2]"))
-            );
-            confirmBtn.click();
+            cdsPage.confirm();
         } catch (Exception e) {
             Assert.fail("FAILED [Confirm Utilization]: Could not click Confirm for utilization. Reason: " + e.getMessage());
         }
@@ -250,14 +210,10 @@ public class Own_CDUtilize {
 
     @Test(priority = 14, dependsOnMethods = "testClickConfirmUtilize")
     public void testFinalContinue() {
-        System.out.println("\n========== Step 15: Click Final Continue after utilization ==========");
+        RunLog.step("Step 15: Click Final Continue after utilization");
         try {
-            WebDriverWait buttonWait = new WebDriverWait(driver, Duration.ofSeconds(10));
-            WebElement continueBtn = buttonWait.until(
-                ExpectedConditions.elementToBeClickable(By.xpath("(//*[@class=\"btn btn-primary w-100 rounded-pill\" and contains(text(), 'Continue')])[3]"))
-            );
-            continueBtn.click();
-            System.out.println("Test scenario for CD Utilization completed successfully.");
+            cdsPage.clickContinue();
+            RunLog.info("Test scenario for CD Utilization completed successfully.");
         } catch (Exception e) {
             Assert.fail("FAILED [Final Continue]: Could not click the final Continue after utilization. Reason: " + e.getMessage());
         }
@@ -265,48 +221,16 @@ public class Own_CDUtilize {
     
     @AfterClass
     public void teardown() {
-        System.out.println("Test Execution Completed.");
+        RunLog.info("Test Execution Completed.");
 
         if (driver != null) {
-            try {
-                System.out.println("Logged Out Successfully!");
-            } finally {
-                driver.quit();   //
-            }
-        }
-
-        if (mobileNumber != null && !mobileNumber.isEmpty()) {
-            updateIsLoggedInInDB(mobileNumber);
+            RunLog.info("Logged Out Successfully!");
         }
+        endSession(driver, account);
     }
 
 
     // === Utility Methods ===
-    	public static String updateIsLoggedInInDB(String mobileNumber) {
-        String url = "jdbc:postgresql://elv-hyd-uat-cluster.cluster-ro-cxua0wsmu5p7.ap-south-1.rds.amazonaws.com:1521/mmcmuat";
-        String user = "uatuser";
-        String password = "password@123";
-        String update = "UPDATE common.user_mstr SET is_logged_in = 0 WHERE mobile_no = ?";
-
-        try {
-            Class.forName("org.postgresql.Driver");
-            Connection conn = DriverManager.getConnection(url, user, password);
-            PreparedStatement pstmt = conn.prepareStatement(update);
-            pstmt.setLong(1, Long.parseLong(mobileNumber));  
-            int rows = pstmt.executeUpdate();
-            if (rows > 0) {
-                System.out.println("is_logged_in reset in DB for mobile: " + mobileNumber);
-            } else {
-                System.out.println("No row updated for mobile: " + mobileNumber);
-            }
-            pstmt.close();
-            conn.close();
-        } catch (Exception e) {
-            System.out.println("Error updating is_logged_in in DB: " + e.getMessage());
-        }
-		return update;  
-    }
- 
 
     // Utility method to read 10 digits from console
     public static String readTenDigitsFromConsole() {
@@ -330,33 +254,4 @@ public class Own_CDUtilize {
         }
         return sb.toString();
     }
-
-    // Utility method to fetch OTP by mobile
-    public static String fetchOtpFromDatabase(String mobileNumber) {
-        String otp = null;
-        String url = "jdbc:postgresql://elv-hyd-uat-cluster.cluster-ro-cxua0wsmu5p7.ap-south-1.rds.amazonaws.com:1521/mmcmuat";
-        String user = "uatuser";
-        String password = "password@123";
-        String query1 = "SELECT otp FROM common.user_mstr WHERE mobile_no = " + mobileNumber;
-        try {
-            Class.forName("org.postgresql.Driver");
-            Connection conn = DriverManager.getConnection(url, user, password);
-            Statement stmt1 = conn.createStatement();
-            ResultSet rs1 = stmt1.executeQuery(query1);
-            if (rs1.next()) {
-                otp = rs1.getString("otp");
-            } else {
-                Assert.fail("FAILED [DB Query]: No user found with mobile number: " + mobileNumber);
-            }
-            rs1.close();
-            stmt1.close();
-            conn.close();
-        } catch (Exception e) {
-            Assert.fail("FAILED [DB OTP Fetch]: DB error while fetching OTP: " + e.getMessage());
-        }
-        return otp;
-    }
 }
-
-
-
@@ -0,0 +1,42 @@
+package Utilities;
+
+/*
+    Exclusive hold on one test account. Close it (or pass it to AccountLeaseManager.release)
+    when the flow is done; an unreturned lease is reclaimed once it expires.
+*/
+public final class AccountLease implements AutoCloseable {
+
+    private final AccountLeaseManager owner;
+    private final String mobileNumber;
+    private final AccountRole role;
+    private final long expiresAtMillis;
+
+    AccountLease(AccountLeaseManager owner, String mobileNumber, AccountRole role, long expiresAtMillis) {
+        this.owner = owner;
+        this.mobileNumber = mobileNumber;
+        this.role = role;
+        this.expiresAtMillis = expiresAtMillis;
+    }
+
+    public String getMobileNumber() {
+        return mobileNumber;
+    }
+
+    public AccountRole getRole() {
+        return role;
+    }
+
+    public boolean isExpired() {
+        return System.currentTimeMillis() >= expiresAtMillis;
+    }
+
+    @Override
+    public void close() {
+        owner.release(this);
+    }
+
+    @Override
+    public String toString() {
+        return role + ":" + mobileNumber;
+    }
+}
@@ -0,0 +1,174 @@
+package Utilities;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/*
+    Hands out exclusive leases on UAT test accounts so concurrent flows never log the same
+    mobile number in twice (the app would kick the first session out).
+
+    Accounts are listed per role in config.properties, e.g.
+        accounts.buyer=9911991191,9999999990
+        accounts.seller=9999999990
+    A number may carry several roles; it is still leased to only one flow at a time.
+    When a lease is returned (or reclaimed after accounts.leaseTtlMinutes) the account's
+    is_logged_in flag is cleared through the LoginStateStore before anyone else can take it
+    (kept in memory with app.backend=stub, where there is no database).
+*/
+public final class AccountLeaseManager implements AutoCloseable {
+
+    private static volatile AccountLeaseManager shared;
+
+    private final Map<AccountRole, List<String>> accountsByRole;
+    private final Map<String, AccountLease> active = new ConcurrentHashMap<>();
+    private final LoginStateStore store;
+    private final long ttlMillis;
+    private final long waitMillis;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition returned = lock.newCondition();
+    private final ScheduledExecutorService reaper;
+
+    public AccountLeaseManager(Map<AccountRole, List<String>> accountsByRole, LoginStateStore store, long ttlMillis, long waitMillis) {
+        this.accountsByRole = new EnumMap<>(AccountRole.class);
+        for (Map.Entry<AccountRole, List<String>> entry : accountsByRole.entrySet()) {
+            this.accountsByRole.put(entry.getKey(), Collections.unmodifiableList(new ArrayList<>(entry.getValue())));
+        }
+        this.store = store;
+        this.ttlMillis = ttlMillis;
+        this.waitMillis = waitMillis;
+        this.reaper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "account-lease-reaper");
+            t.setDaemon(true);
+            return t;
+        });
+        long period = Math.max(1000, Math.min(ttlMillis / 4, 30_000));
+        reaper.scheduleWithFixedDelay(this::reclaimExpired, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    public static AccountLeaseManager shared() {
+        if (shared == null) {
+            synchronized (AccountLeaseManager.class) {
+                if (shared == null) {
+                    Map<AccountRole, List<String>> accounts = new EnumMap<>(AccountRole.class);
+                    for (AccountRole role : AccountRole.values()) {
+                        accounts.put(role, parseList(Config.get("accounts." + role.name().toLowerCase(), "")));
+                    }
+                    shared = new AccountLeaseManager(
+                        accounts,
+                        "stub".equals(Config.get("app.backend", "uat")) ? new InMemoryLoginStateStore() : new JdbcLoginStateStore(DbClient.shared()),
+                        TimeUnit.MINUTES.toMillis(Config.getLong("accounts.leaseTtlMinutes", 30)),
+                        TimeUnit.SECONDS.toMillis(Config.getLong("accounts.waitSeconds", 300)));
+                }
+            }
+        }
+        return shared;
+    }
+
+    public AccountLease lease(AccountRole role) {
+        return lease(role, waitMillis);
+    }
+
+    // Like lease(role), but takes the preferred account if it carries the role and is free.
+    public AccountLease lease(AccountRole role, String preferredMobile) {
+        return lease(role, preferredMobile, waitMillis);
+    }
+
+    public AccountLease lease(AccountRole role, long waitMillis) {
+        return lease(role, null, waitMillis);
+    }
+
+    // Take the first free account with the given role, waiting up to waitMillis for one to be returned.
+    private AccountLease lease(AccountRole role, String preferredMobile, long waitMillis) {
+        List<String> candidates = accountsByRole.getOrDefault(role, Collections.emptyList());
+        if (preferredMobile != null && candidates.contains(preferredMobile)) {
+            candidates = new ArrayList<>(candidates);
+            candidates.remove(preferredMobile);
+            candidates.add(0, preferredMobile);
+        }
+        if (candidates.isEmpty()) {
+            throw new IllegalArgumentException("No accounts configured for role " + role + " (set accounts." + role.name().toLowerCase() + ")");
+        }
+        long deadline = System.currentTimeMillis() + waitMillis;
+        // Scan and wait under the lock release() signals with, so a return between the two cannot be missed.
+        lock.lock();
+        try {
+            while (true) {
+                for (String mobileNumber : candidates) {
+                    if (!active.containsKey(mobileNumber)) {
+                        AccountLease lease = new AccountLease(this, mobileNumber, role, System.currentTimeMillis() + ttlMillis);
+                        active.put(mobileNumber, lease);
+                        return lease;
+                    }
+                }
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    throw new IllegalStateException("No " + role + " account became free within " + waitMillis + "ms; in use: " + active.values());
+                }
+                returned.await(remaining, TimeUnit.MILLISECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a " + role + " account", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Clear the account's login flag, then make it available again. Releasing twice is harmless.
+    public void release(AccountLease lease) {
+        if (lease == null || active.get(lease.getMobileNumber()) != lease) {
+            return;
+        }
+        try {
+            store.resetLoggedIn(lease.getMobileNumber());
+        } catch (Exception e) {
+            RunLog.info("Error resetting is_logged_in for " + lease.getMobileNumber() + ": " + e.getMessage());
+        }
+        lock.lock();
+        try {
+            if (active.remove(lease.getMobileNumber(), lease)) {
+                returned.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Stops the reaper thread. Leases still held stay valid but are no longer reclaimed on expiry.
+    @Override
+    public void close() {
+        reaper.shutdownNow();
+    }
+
+    public int activeLeaseCount() {
+        return active.size();
+    }
+
+    private void reclaimExpired() {
+        for (AccountLease lease : active.values()) {
+            if (lease.isExpired()) {
+                RunLog.info("Account lease expired, reclaiming: " + lease);
+                release(lease);
+            }
+        }
+    }
+
+    private static List<String> parseList(String value) {
+        List<String> numbers = new ArrayList<>();
+        for (String part : value.split(",")) {
+            if (!part.trim().isEmpty()) {
+                numbers.add(part.trim());
+            }
+        }
+        return numbers;
+    }
+}
@@ -0,0 +1,113 @@
+package Utilities;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class AccountLeaseManagerTest {
+
+    private static AccountLeaseManager manager(LoginStateStore store, long ttlMillis, long waitMillis) {
+        Map<AccountRole, List<String>> accounts = new EnumMap<>(AccountRole.class);
+        accounts.put(AccountRole.BUYER, Arrays.asList("9911991191", "9999999990"));
+        accounts.put(AccountRole.SELLER, Collections.singletonList("9999999990"));
+        return new AccountLeaseManager(accounts, store, ttlMillis, waitMillis);
+    }
+
+    @Test
+    public void releaseResetsLoggedInFlag() {
+        InMemoryLoginStateStore store = new InMemoryLoginStateStore();
+        try (AccountLeaseManager leases = manager(store, 60_000, 1_000)) {
+            AccountLease lease = leases.lease(AccountRole.SELLER);
+            store.markLoggedIn(lease.getMobileNumber());
+            lease.close();
+
+            Assert.assertFalse(store.isLoggedIn("9999999990"), "is_logged_in should be cleared when the lease is returned");
+            Assert.assertEquals(leases.activeLeaseCount(), 0);
+        }
+    }
+
+    @Test
+    public void sharedNumberIsNeverLeasedTwice() {
+        try (AccountLeaseManager leases = manager(new InMemoryLoginStateStore(), 60_000, 200)) {
+            AccountLease seller = leases.lease(AccountRole.SELLER);
+            AccountLease buyer = leases.lease(AccountRole.BUYER);
+            Assert.assertNotEquals(buyer.getMobileNumber(), seller.getMobileNumber());
+
+            try {
+                leases.lease(AccountRole.BUYER);
+                Assert.fail("Both buyer accounts are leased, a third lease must time out");
+            } catch (IllegalStateException expected) {
+                // pool exhausted
+            }
+        }
+    }
+
+    @Test
+    public void preferredAccountIsTakenWhenFree() {
+        try (AccountLeaseManager leases = manager(new InMemoryLoginStateStore(), 60_000, 200)) {
+            Assert.assertEquals(leases.lease(AccountRole.BUYER, "9999999990").getMobileNumber(), "9999999990");
+            Assert.assertEquals(leases.lease(AccountRole.BUYER, "9999999990").getMobileNumber(), "9911991191",
+                "A busy preferred account falls back to any free one");
+        }
+    }
+
+    @Test
+    public void concurrentFlowsGetExclusiveAccounts() throws Exception {
+        try (AccountLeaseManager leases = manager(new InMemoryLoginStateStore(), 60_000, 10_000)) {
+            Set<String> inUse = ConcurrentHashMap.newKeySet();
+            AtomicInteger collisions = new AtomicInteger();
+            int workers = 8;
+            ExecutorService pool = Executors.newFixedThreadPool(workers);
+            CountDownLatch done = new CountDownLatch(workers);
+
+            for (int w = 0; w < workers; w++) {
+                pool.execute(() -> {
+                    try {
+                        for (int i = 0; i < 50; i++) {
+                            try (AccountLease lease = leases.lease(AccountRole.BUYER)) {
+                                if (!inUse.add(lease.getMobileNumber())) {
+                                    collisions.incrementAndGet();
+                                }
+                                Thread.yield();
+                                inUse.remove(lease.getMobileNumber());
+                            }
+                        }
+                    } finally {
+                        done.countDown();
+                    }
+                });
+            }
+            Assert.assertTrue(done.await(30, TimeUnit.SECONDS), "Workers did not finish");
+            pool.shutdownNow();
+
+            Assert.assertEquals(collisions.get(), 0, "Two flows held the same account at once");
+            Assert.assertEquals(leases.activeLeaseCount(), 0);
+        }
+    }
+
+    @Test
+    public void expiredLeaseIsReclaimed() throws Exception {
+        InMemoryLoginStateStore store = new InMemoryLoginStateStore();
+        try (AccountLeaseManager leases = manager(store, 100, 5_000)) {
+            AccountLease abandoned = leases.lease(AccountRole.SELLER);
+            store.markLoggedIn(abandoned.getMobileNumber());
+
+            AccountLease next = leases.lease(AccountRole.SELLER);
+            Assert.assertEquals(next.getMobileNumber(), "9999999990");
+            Assert.assertTrue(abandoned.isExpired());
+            next.close();
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package Utilities;
+
+// Role tags for UAT test accounts; a flow leases an account carrying the role it needs.
+public enum AccountRole {
+    BUYER,
+    SELLER,
+    PROFILE
+}
@@ -0,0 +1,218 @@
+package Utilities;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import org.HdrHistogram.Histogram;
+
+/*
+    Browserless load on the marketplace API: replays the calls of an ApiScenario at a fixed arrival
+    rate (open model - new requests keep arriving on schedule however slow the server gets, unlike a
+    fixed set of users that each wait for their previous response).
+
+    Arrivals are evenly spaced, or Poisson with poisson=true. Each request is sent with
+    HttpClient.sendAsync, so an outstanding request holds a connection but no thread. This deliberately
+    replaces the first version's blocking send on a thread per request: the suite builds for Java 17,
+    where that meant one platform thread per outstanding request - thousands past the server's capacity.
+    On 21+ the client still runs its response handling on virtual threads (picked up reflectively, see
+    virtualThreads()); on 17 it uses its default pool. At most maxInFlight requests are outstanding; arrivals beyond that are dropped and counted,
+    never delayed. A rate level returns only when all its requests are done: after the last arrival it
+    waits up to the request timeout + 5s, then cancels what is left and counts it as failed, so no
+    request of one level is still running while the next one is measured.
+
+    Latency is measured from each request's scheduled arrival, so a backlog in the driver or the server
+    shows up in the percentiles instead of being hidden (coordinated omission).
+*/
+public final class ApiLoadDriver {
+
+    private final HttpClient client;
+    private final String baseUrl;
+    private final ApiScenario scenario;
+    private final Map<String, String> headers;
+    private final Duration timeout;
+    private final int maxInFlight;
+    private final boolean poisson;
+    private final AtomicLong seq = new AtomicLong();
+
+    public ApiLoadDriver(String baseUrl, ApiScenario scenario, Map<String, String> headers, Duration timeout,
+                         int maxInFlight, boolean poisson) {
+        HttpClient.Builder builder = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).connectTimeout(timeout);
+        ExecutorService virtual = virtualThreadExecutor();
+        if (virtual != null) {
+            builder.executor(virtual);
+        }
+        this.client = builder.build();
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        this.scenario = scenario;
+        this.headers = headers;
+        this.timeout = timeout;
+        this.maxInFlight = maxInFlight;
+        this.poisson = poisson;
+    }
+
+    // A virtual-thread-per-task executor when the JVM has one (21+), else null.
+    static ExecutorService virtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    static boolean virtualThreads() {
+        try {
+            Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    // Offer ratePerSecond for warmup + measure; only arrivals scheduled after the warm-up are counted.
+    public Level run(double ratePerSecond, Duration warmup, Duration measure, long randomSeed) throws InterruptedException {
+        Level level = new Level(ratePerSecond, measure);
+        AtomicInteger inFlight = new AtomicInteger();
+        Set<CompletableFuture<HttpResponse<Void>>> pending = ConcurrentHashMap.newKeySet();
+        Random random = new Random(randomSeed);
+        double intervalNanos = 1e9 / ratePerSecond;
+        long start = System.nanoTime();
+        long measureFrom = start + warmup.toNanos();
+        long end = measureFrom + measure.toNanos();
+        level.measureFrom = measureFrom;
+        double offset = 0;
+        try {
+            for (long arrival = start; arrival < end; arrival = start + (long) offset) {
+                parkUntil(arrival);
+                boolean measured = arrival >= measureFrom;
+                ApiScenario.ApiCall call = scenario.pick(random);
+                offset += poisson ? -Math.log(1 - random.nextDouble()) * intervalNanos : intervalNanos;
+                if (inFlight.incrementAndGet() > maxInFlight) {
+                    inFlight.decrementAndGet();
+                    if (measured) {
+                        level.dropped.increment();
+                    }
+                    continue;
+                }
+                if (measured) {
+                    level.sent.increment();
+                }
+                long scheduled = arrival;
+                CompletableFuture<HttpResponse<Void>> response = client.sendAsync(request(call), HttpResponse.BodyHandlers.discarding());
+                // Added before the callback, which may run at once and must find it to remove.
+                pending.add(response);
+                response.whenComplete((r, error) -> {
+                    pending.remove(response);
+                    if (measured) {
+                        record(r, scheduled, level);
+                    }
+                    // Last, so a request no longer in flight is already counted.
+                    inFlight.decrementAndGet();
+                });
+            }
+        } finally {
+            awaitOrCancel(inFlight, pending, level);
+        }
+        return level;
+    }
+
+    // Waits for the level's outstanding requests; the ones still running after timeout + 5s are cancelled.
+    private void awaitOrCancel(AtomicInteger inFlight, Set<CompletableFuture<HttpResponse<Void>>> pending, Level level) {
+        long deadline = System.nanoTime() + timeout.toNanos() + TimeUnit.SECONDS.toNanos(5);
+        while (inFlight.get() > 0 && System.nanoTime() < deadline) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(5));
+        }
+        if (inFlight.get() > 0) {
+            int left = inFlight.get();
+            // Cancelling completes the futures, and their callbacks count them as failed.
+            new ArrayList<>(pending).forEach(f -> f.cancel(true));
+            while (inFlight.get() > 0) {
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+            }
+            RunLog.info("API load: cancelled " + left + " requests still running " + (timeout.toMillis() + 5000)
+                + " ms after the last arrival at " + level.offeredRate + " req/s.");
+        }
+    }
+
+    private HttpRequest request(ApiScenario.ApiCall call) {
+        String body = call.body(seq.incrementAndGet());
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(baseUrl + call.path)).timeout(timeout)
+            .method(call.method, body == null ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofString(body));
+        if (body != null) {
+            request.header("Content-Type", "application/json");
+        }
+        headers.forEach(request::header);
+        return request.build();
+    }
+
+    // A null response is a request that failed, timed out or was cancelled.
+    private static void record(HttpResponse<Void> response, long scheduled, Level level) {
+        if (response == null || response.statusCode() >= 400) {
+            level.errors.increment();
+        } else {
+            long now = System.nanoTime();
+            level.latency.recordValue(Math.max(1, TimeUnit.NANOSECONDS.toMicros(now - scheduled)));
+            level.lastDone.accumulateAndGet(now, Math::max);
+        }
+    }
+
+    private static void parkUntil(long nanoTime) {
+        long remaining;
+        while ((remaining = nanoTime - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+
+    // Outcome of one arrival rate. Latency in microseconds, successful requests only.
+    public static final class Level {
+        final double offeredRate;
+        final Duration measured;
+        final Histogram latency = StepLatency.newHistogram();
+        final LongAdder sent = new LongAdder();
+        final LongAdder errors = new LongAdder();
+        final LongAdder dropped = new LongAdder();
+        final AtomicLong lastDone = new AtomicLong();
+        long measureFrom;
+
+        Level(double offeredRate, Duration measured) {
+            this.offeredRate = offeredRate;
+            this.measured = measured;
+        }
+
+        // Successful responses per second, from the start of the measured window until the last of them
+        // arrived - past capacity the backlog drains after the window, which this rate reflects.
+        public double throughput() {
+            long window = Math.max(measured.toNanos(), lastDone.get() - measureFrom);
+            return latency.getTotalCount() / (window / 1e9);
+        }
+
+        public double errorPct() {
+            long attempts = sent.sum() + dropped.sum();
+            return attempts == 0 ? 0 : (errors.sum() + dropped.sum()) * 100.0 / attempts;
+        }
+
+        // Little's law: requests in the system on average = throughput x mean latency.
+        public double meanConcurrency() {
+            return throughput() * latency.getMean() / 1e6;
+        }
+
+        public Histogram latency() {
+            return latency;
+        }
+    }
+}
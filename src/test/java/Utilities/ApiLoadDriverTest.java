@@ -0,0 +1,60 @@
+package Utilities;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Properties;
+import java.util.Random;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+// Runs the driver against a local StubServer with limited workers; takes a few seconds, no browser needed.
+public class ApiLoadDriverTest {
+
+    @Test
+    public void scenarioLinesAreParsedAndPickedByWeight() {
+        Properties props = new Properties();
+        props.setProperty("createBid", "3 post /api/bids {\"ref\":\"{seq}\"}");
+        props.setProperty("listOffers", "1 GET /api/offers");
+        props.setProperty("disabled", "0 GET /api/none");
+        ApiScenario scenario = ApiScenario.parse(props);
+
+        Assert.assertEquals(scenario.calls().size(), 2);
+        ApiScenario.ApiCall bid = scenario.calls().get(0);
+        Assert.assertEquals(bid.method, "POST");
+        Assert.assertEquals(bid.body(7), "{\"ref\":\"7\"}");
+        Assert.assertNull(scenario.calls().get(1).body(1));
+
+        Random random = new Random(3);
+        long bids = 0;
+        for (int i = 0; i < 4000; i++) {
+            if (scenario.pick(random) == bid) {
+                bids++;
+            }
+        }
+        Assert.assertEquals(bids / 4000.0, 0.75, 0.03);
+    }
+
+    @Test
+    public void latencyGrowsOnceArrivalsExceedServerCapacity() throws Exception {
+        Properties props = new Properties();
+        props.setProperty("createBid", "1 POST /api/bids {\"ref\":\"{seq}\"}");
+        ApiScenario scenario = ApiScenario.parse(props);
+        // 4 workers x 20 ms = 200 req/s capacity.
+        try (StubServer server = StubServer.start(20, 4)) {
+            ApiLoadDriver driver = new ApiLoadDriver(server.url(""), scenario, Collections.emptyMap(),
+                Duration.ofSeconds(5), 10_000, false);
+            ApiLoadDriver.Level light = driver.run(50, Duration.ofMillis(300), Duration.ofSeconds(1), 1);
+            ApiLoadDriver.Level overload = driver.run(400, Duration.ofMillis(300), Duration.ofSeconds(1), 1);
+            System.out.println(ApiLoadRunner.table(Arrays.asList(light, overload)));
+
+            Assert.assertEquals(light.errorPct(), 0.0);
+            Assert.assertEquals(light.latency().getTotalCount(), 50, 3);
+            Assert.assertTrue(light.latency().getValueAtPercentile(50) >= 20_000, "Service time is 20 ms");
+            Assert.assertTrue(overload.throughput() < 260, "Capacity is about 200 req/s: " + overload.throughput());
+            Assert.assertTrue(overload.latency().getValueAtPercentile(99) > 5 * light.latency().getValueAtPercentile(99),
+                "Queueing past capacity must show in p99 (measured from the scheduled arrival)");
+        }
+    }
+}
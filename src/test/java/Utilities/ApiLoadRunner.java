@@ -0,0 +1,130 @@
+package Utilities;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.HdrHistogram.Histogram;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+/*
+    Throughput-vs-latency sweep of the marketplace API with ApiLoadDriver, run with testng-api-load.xml:
+
+        mvn test -Dsurefire.suiteXmlFiles=src/test/resources/testng-api-load.xml -Dapi.sweep=500,1000,2000,4000
+
+    For every arrival rate in api.sweep (requests/sec) the scenario is offered for api.warmupSeconds
+    (not counted) plus api.stepSeconds. Progress goes to the run log, one line per rate; the full table
+    is printed at the end and written to profiler.outputDir:
+        api-load.csv             one row per rate: throughput, p50/p90/p99/p99.9/max ms, errors, concurrency
+        api-load-<rate>rps.hgrm  HdrHistogram percentile distribution of the rate, in ms (plot with the
+                                 HdrHistogram plotter to compare the rates)
+
+    With api.mock=true (default) the calls go to a local StubServer with api.mock.serviceMs of service
+    time and api.mock.workers parallel workers; otherwise to api.baseUrl, with api.authToken sent as a
+    bearer token. The sweep is meant to go past the knee, so only its first rate is held to api.maxErrorPct.
+*/
+public class ApiLoadRunner {
+
+    private StubServer mock;
+    private String baseUrl;
+
+    @BeforeClass
+    public void startMock() throws IOException {
+        if (Config.getBoolean("api.mock", true)) {
+            mock = StubServer.start(Config.getLong("api.mock.serviceMs", 20), Config.getInt("api.mock.workers", 200));
+            baseUrl = mock.url("");
+        } else {
+            baseUrl = Config.get("api.baseUrl", null);
+            Assert.assertNotNull(baseUrl, "FAILED [API Load]: set api.baseUrl, or api.mock=true for the local mock server");
+        }
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void stopMock() {
+        if (mock != null) {
+            mock.close();
+        }
+    }
+
+    @Test
+    public void throughputLatencySweep() throws IOException, InterruptedException {
+        ApiScenario scenario = ApiScenario.fromConfig();
+        Map<String, String> headers = new LinkedHashMap<>();
+        String token = Config.get("api.authToken", null);
+        if (token != null) {
+            headers.put("Authorization", "Bearer " + token);
+        }
+        ApiLoadDriver driver = new ApiLoadDriver(baseUrl, scenario, headers,
+            Duration.ofMillis(Config.getLong("api.timeoutMs", 10_000)), Config.getInt("api.maxInFlight", 10_000),
+            Config.getBoolean("api.poisson", true));
+        RunLog.info("API load: " + scenario.calls() + " against " + baseUrl + ", async HTTP"
+            + (ApiLoadDriver.virtualThreads() ? " on virtual threads" : " (Java < 21: no virtual threads)"));
+
+        List<ApiLoadDriver.Level> levels = new ArrayList<>();
+        for (String rate : Config.get("api.sweep", "100,200,400,800,1600").split("\\s*,\\s*")) {
+            ApiLoadDriver.Level level = driver.run(Double.parseDouble(rate),
+                Duration.ofSeconds(Config.getLong("api.warmupSeconds", 5)),
+                Duration.ofSeconds(Config.getLong("api.stepSeconds", 20)), Config.getLong("load.seed", 42));
+            levels.add(level);
+            RunLog.info(String.format("API load at %.0f req/s: %.1f req/s served, p99 %.1f ms, %.2f%% errors",
+                level.offeredRate, level.throughput(), StepLatency.millis(level.latency().getValueAtPercentile(99)), level.errorPct()));
+        }
+        String table = table(levels);
+        System.out.println("API throughput vs latency:\n" + table);
+        export(levels);
+
+        ApiLoadDriver.Level first = levels.get(0);
+        double maxErrorPct = Config.getInt("api.maxErrorPct", 1);
+        Assert.assertTrue(first.errorPct() <= maxErrorPct, String.format(
+            "FAILED [API Load]: %.1f%% of requests failed or were dropped at %.0f req/s (allowed %.1f%%)",
+            first.errorPct(), first.offeredRate, maxErrorPct));
+    }
+
+    static String table(List<ApiLoadDriver.Level> levels) {
+        StringBuilder sb = new StringBuilder(String.format("%10s %10s %9s %9s %9s %9s %9s %7s %11s%n",
+            "offered/s", "done/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms", "err %", "concurrency"));
+        levels.forEach(level -> sb.append(row(level)).append('\n'));
+        return sb.toString();
+    }
+
+    private static String row(ApiLoadDriver.Level level) {
+        Histogram h = level.latency();
+        return String.format("%10.0f %10.1f %9.1f %9.1f %9.1f %9.1f %9.1f %7.2f %11.1f", level.offeredRate, level.throughput(),
+            StepLatency.millis(h.getValueAtPercentile(50)), StepLatency.millis(h.getValueAtPercentile(90)),
+            StepLatency.millis(h.getValueAtPercentile(99)), StepLatency.millis(h.getValueAtPercentile(99.9)),
+            StepLatency.millis(h.getMaxValue()), level.errorPct(), level.meanConcurrency());
+    }
+
+    private static void export(List<ApiLoadDriver.Level> levels) {
+        Path dir = Paths.get(Config.get("profiler.outputDir", "target/perf"));
+        try {
+            Files.createDirectories(dir);
+            StringBuilder csv = new StringBuilder("offeredPerSec,throughputPerSec,p50Ms,p90Ms,p99Ms,p999Ms,maxMs,errorPct,meanConcurrency\n");
+            for (ApiLoadDriver.Level level : levels) {
+                Histogram h = level.latency();
+                csv.append(String.format("%.0f,%.1f,%.2f,%.2f,%.2f,%.2f,%.2f,%.2f,%.1f%n", level.offeredRate, level.throughput(),
+                    StepLatency.millis(h.getValueAtPercentile(50)), StepLatency.millis(h.getValueAtPercentile(90)),
+                    StepLatency.millis(h.getValueAtPercentile(99)), StepLatency.millis(h.getValueAtPercentile(99.9)),
+                    StepLatency.millis(h.getMaxValue()), level.errorPct(), level.meanConcurrency()));
+                try (PrintStream out = new PrintStream(Files.newOutputStream(
+                        dir.resolve(String.format("api-load-%.0frps.hgrm", level.offeredRate))), false, StandardCharsets.UTF_8.name())) {
+                    h.outputPercentileDistribution(out, 1000.0);
+                }
+            }
+            Files.write(dir.resolve("api-load.csv"), csv.toString().getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            RunLog.info("Could not write API load results to " + dir + ": " + e.getMessage());
+        }
+    }
+}
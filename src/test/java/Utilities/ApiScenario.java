@@ -0,0 +1,144 @@
+package Utilities;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.openqa.selenium.json.Json;
+
+/*
+    The API calls the load driver (ApiLoadDriver) replays, with their relative weights.
+
+    Read from api-scenario.properties by default, or with -Dapi.scenarioFile from the network-calls.json
+    that NetworkCapture writes during a UI run, keeping only the steps listed in -Dapi.steps. Captured
+    URLs are replayed against api.baseUrl (path and query only).
+*/
+public final class ApiScenario {
+
+    private final List<ApiCall> calls;
+    private final int totalWeight;
+
+    ApiScenario(List<ApiCall> calls) {
+        if (calls.isEmpty()) {
+            throw new IllegalArgumentException("The API scenario has no calls");
+        }
+        this.calls = Collections.unmodifiableList(new ArrayList<>(calls));
+        this.totalWeight = calls.stream().mapToInt(c -> c.weight).sum();
+    }
+
+    public static ApiScenario fromConfig() throws IOException {
+        String file = Config.get("api.scenarioFile", null);
+        if (file != null) {
+            return fromCaptured(Paths.get(file), new HashSet<>(Arrays.asList(Config.get("api.steps", "").split("\\s*,\\s*"))));
+        }
+        Properties props = new Properties();
+        try (InputStream in = ApiScenario.class.getClassLoader().getResourceAsStream("api-scenario.properties")) {
+            if (in == null) {
+                throw new IOException("Missing api-scenario.properties");
+            }
+            props.load(in);
+        }
+        return parse(props);
+    }
+
+    // <name>=<weight> <METHOD> <path> [body]
+    static ApiScenario parse(Properties props) {
+        List<ApiCall> calls = new ArrayList<>();
+        for (Map.Entry<String, String> entry : toMap(props).entrySet()) {
+            String[] parts = entry.getValue().trim().split("\\s+", 4);
+            if (parts.length < 3) {
+                throw new IllegalArgumentException("API call '" + entry.getKey() + "' must be '<weight> <METHOD> <path> [body]': " + entry.getValue());
+            }
+            int weight;
+            try {
+                weight = Integer.parseInt(parts[0]);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Bad weight for API call '" + entry.getKey() + "': " + parts[0]);
+            }
+            if (weight > 0) {
+                calls.add(new ApiCall(entry.getKey(), weight, parts[1].toUpperCase(), parts[2], parts.length > 3 ? parts[3] : null));
+            }
+        }
+        return new ApiScenario(calls);
+    }
+
+    // Calls recorded by NetworkCapture for the given steps, each with weight 1 (an empty set keeps all).
+    static ApiScenario fromCaptured(Path file, Set<String> steps) throws IOException {
+        List<Map<String, Object>> recorded = new Json().toType(new String(Files.readAllBytes(file), StandardCharsets.UTF_8), Json.LIST_OF_MAPS_TYPE);
+        Set<String> wanted = new HashSet<>(steps);
+        wanted.remove("");
+        List<ApiCall> calls = new ArrayList<>();
+        for (Map<String, Object> call : recorded) {
+            String step = String.valueOf(call.get("step"));
+            if (!wanted.isEmpty() && !wanted.contains(step)) {
+                continue;
+            }
+            URI uri = URI.create(String.valueOf(call.get("url")));
+            String path = uri.getRawPath() + (uri.getRawQuery() == null ? "" : "?" + uri.getRawQuery());
+            Object body = call.get("body");
+            calls.add(new ApiCall(step, 1, String.valueOf(call.get("method")), path, body == null ? null : String.valueOf(body)));
+        }
+        return new ApiScenario(calls);
+    }
+
+    private static Map<String, String> toMap(Properties props) {
+        Map<String, String> map = new TreeMap<>();
+        props.stringPropertyNames().forEach(name -> map.put(name, props.getProperty(name)));
+        return map;
+    }
+
+    public List<ApiCall> calls() {
+        return calls;
+    }
+
+    public ApiCall pick(Random random) {
+        int ticket = random.nextInt(totalWeight);
+        for (ApiCall call : calls) {
+            ticket -= call.weight;
+            if (ticket < 0) {
+                return call;
+            }
+        }
+        throw new IllegalStateException("Unreachable: weights sum to " + totalWeight);
+    }
+
+    public static final class ApiCall {
+        final String name;
+        final int weight;
+        final String method;
+        final String path;
+        final String body;
+
+        ApiCall(String name, int weight, String method, String path, String body) {
+            this.name = name;
+            this.weight = weight;
+            this.method = method;
+            this.path = path;
+            this.body = body;
+        }
+
+        // Body with {seq} filled in, or null for calls without one.
+        String body(long seq) {
+            return body == null ? null : body.replace("{seq}", String.valueOf(seq));
+        }
+
+        @Override
+        public String toString() {
+            return name + " " + method + " " + path;
+        }
+    }
+}
@@ -0,0 +1,289 @@
+package Utilities;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptException;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.ScriptTimeoutException;
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.chrome.ChromeDriver;
+
+/*
+    Waits that understand the Angular app instead of polling ExpectedConditions every 500ms.
+
+    Each poll is a single script (scripts/app-wait.js) that first checks the app is idle - all Angular
+    testabilities stable and no XHR/fetch in flight (counted by scripts/pending-http.js) - and then the
+    element's state, returning the element itself when ready. Polling starts at app.wait.pollMinMs and
+    backs off to app.wait.pollMaxMs, dropping back to the minimum when the app goes from busy to idle,
+    since that is when the page is about to change. If the app never settles (long polling, timers),
+    the idle requirement is dropped after app.wait.idleMaxMs so a busy page cannot stall the wait.
+
+    By default the probe does not poll over the wire at all: scripts/dom-wait.js runs it inside one async
+    script call, re-checking on every DOM mutation (MutationObserver) and on an in-page backstop timer of
+    app.wait.pollMaxMs, and only answers once the element is ready. A wait therefore costs one round trip
+    unless the document is replaced mid-wait, in which case the call is simply issued again. Set
+    app.wait.strategy=poll to go back to probing from Java.
+
+    Optional popups registered with interrupt() (the KYC prompt after login) are skipped by whichever
+    wait is running when they show up, in the same probe, so no step has to wait for them to maybe appear.
+
+    Inside a flow step a wait never outlasts the step's learned time budget (StepBudgets).
+    Time spent in every wait is recorded against the current step (WaitStats).
+    Timeouts throw Selenium's TimeoutException, like WebDriverWait.
+*/
+public final class AppWait {
+
+    private static final long POLL_MIN_MS = Config.getLong("app.wait.pollMinMs", 25);
+    private static final long POLL_MAX_MS = Config.getLong("app.wait.pollMaxMs", 250);
+    private static final long IDLE_MAX_MS = Config.getLong("app.wait.idleMaxMs", 3000);
+    private static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(Config.getLong("app.wait.timeoutSeconds", 30));
+    private static final boolean OBSERVE = !"poll".equalsIgnoreCase(Config.get("app.wait.strategy", "observer"));
+    // The probe is wrapped as a function so dom-wait.js can re-run it on every mutation. Both scripts
+    // return a ready element bare rather than inside the result map, so driver decorators (CommandProfiler)
+    // wrap it like any other element.
+    private static final String PROBE = "function __probe() {\n" + Scripts.load("app-wait.js") + "\n}\n";
+    private static final String OBSERVER_SCRIPT = PROBE + Scripts.load("dom-wait.js");
+    private static final String POLL_SCRIPT = PROBE
+        + "var result = __probe.apply(null, arguments);\nreturn result.state === 'ready' && result.el ? result.el : result;";
+    // Keep each async call inside the driver's script timeout (see DriverPool); longer waits are split.
+    private static final long MAX_CALL_MS = Math.max(1000, Config.getLong("driver.scriptTimeoutSeconds", 60) * 1000 - 2000);
+    private static final Map<String, String[]> INTERRUPTS = new ConcurrentHashMap<>();
+
+    private final WebDriver driver;
+    private final boolean observe;
+
+    private AppWait(WebDriver driver, boolean observe) {
+        this.driver = driver;
+        this.observe = observe;
+    }
+
+    public static AppWait on(WebDriver driver) {
+        return new AppWait(driver, OBSERVE);
+    }
+
+    // Same waits, probed from Java every pollMinMs..pollMaxMs. Kept for comparison and as a fallback.
+    public AppWait polling() {
+        return new AppWait(driver, false);
+    }
+
+    // Registers the XHR/fetch counter for every future document in this browser. Called once per browser.
+    public static void installInstrumentation(WebDriver driver) {
+        if (driver instanceof ChromeDriver) {
+            Map<String, Object> params = new HashMap<>();
+            params.put("source", Scripts.load("pending-http.js"));
+            ((ChromeDriver) driver).executeCdpCommand("Page.addScriptToEvaluateOnNewDocument", params);
+        }
+    }
+
+    // Skip this popup (click its dismiss element) whenever it is on screen during a wait.
+    public static void interrupt(String name, By dismiss) {
+        INTERRUPTS.put(name, Locators.toScriptLocator(dismiss));
+    }
+
+    // How often the named popup has been skipped in the current document.
+    public static long interruptsHandled(WebDriver driver, String name) {
+        Object count = ((JavascriptExecutor) driver).executeScript("return (window.__interrupts || {})[arguments[0]] || 0;", name);
+        return ((Number) count).longValue();
+    }
+
+    public WebElement clickable(By locator) {
+        return clickable(locator, DEFAULT_TIMEOUT);
+    }
+
+    public WebElement clickable(By locator, Duration timeout) {
+        return (WebElement) until(locator, "clickable", timeout);
+    }
+
+    public WebElement visible(By locator) {
+        return visible(locator, DEFAULT_TIMEOUT);
+    }
+
+    public WebElement visible(By locator, Duration timeout) {
+        return (WebElement) until(locator, "visible", timeout);
+    }
+
+    public WebElement present(By locator) {
+        return present(locator, DEFAULT_TIMEOUT);
+    }
+
+    public WebElement present(By locator, Duration timeout) {
+        return (WebElement) until(locator, "present", timeout);
+    }
+
+    /*
+        Whether a failed probe only means the page is changing under it: the async script outlived its
+        timeout, or the document or its JS context went away mid-script. Anything else - a closed
+        browser (NoSuchSessionException), an open alert, a broken probe - is a real failure.
+    */
+    static boolean navigating(WebDriverException e) {
+        if (e instanceof ScriptTimeoutException) {
+            return true;
+        }
+        if (!(e instanceof JavascriptException) || e.getMessage() == null) {
+            return false;
+        }
+        String message = e.getMessage().toLowerCase();
+        return message.contains("document unloaded") || message.contains("execution context was destroyed")
+            || message.contains("cannot find context") || message.contains("inspected target navigated");
+    }
+
+    // The first element present for any of the locators, tried in order, e.g. whichever of two screens shows up.
+    public WebElement anyPresent(Duration timeout, By... locators) {
+        return (WebElement) poll(Arrays.toString(locators), Locators.anyOf(locators), "present", timeout, false);
+    }
+
+    @SuppressWarnings("unchecked")
+    public List<WebElement> allVisible(By locator, Duration timeout) {
+        return (List<WebElement>) until(locator, "allVisible", timeout);
+    }
+
+    // Block until Angular is stable and no HTTP request is pending.
+    public void idle(Duration timeout) {
+        poll(null, new String[] {"css selector", ""}, "none", timeout, true);
+    }
+
+    private Object until(By locator, String mode, Duration timeout) {
+        return poll(String.valueOf(locator), Locators.toScriptLocator(locator), mode, timeout, false);
+    }
+
+    // locator describes what is waited for in timeout messages; null when only waiting for idle.
+    private Object poll(String locator, String[] strategy, String mode, Duration timeout, boolean idleOnly) {
+        List<List<String>> interrupts = interruptsExcept(strategy);
+        Duration budgeted = StepBudgets.clamp(timeout);
+        WaitStats.setWaiting(true);
+        try {
+            return observe ? observe(locator, strategy, interrupts, mode, budgeted, idleOnly)
+                : pollFromJava(locator, strategy, interrupts, mode, budgeted, idleOnly);
+        } catch (TimeoutException e) {
+            if (budgeted.compareTo(timeout) < 0) {
+                throw new TimeoutException(e.getMessage() + "; cut from " + timeout.toMillis() + "ms: " + StepBudgets.describe(), e);
+            }
+            throw e;
+        } finally {
+            WaitStats.setWaiting(false);
+        }
+    }
+
+    // Registered popups as [name, strategy, value], leaving out the one being waited for itself.
+    private static List<List<String>> interruptsExcept(String[] strategy) {
+        List<List<String>> list = new ArrayList<>();
+        INTERRUPTS.forEach((name, dismiss) -> {
+            if (!Arrays.equals(dismiss, strategy)) {
+                list.add(Arrays.asList(name, dismiss[0], dismiss[1]));
+            }
+        });
+        return list;
+    }
+
+    private Object observe(String locator, String[] strategy, List<List<String>> interrupts, String mode, Duration timeout, boolean idleOnly) {
+        long start = System.nanoTime();
+        long deadline = start + timeout.toNanos();
+        long idleMaxMs = idleOnly ? timeout.toMillis() : IDLE_MAX_MS;
+        int calls = 0;
+        String lastState = "none";
+        try {
+            while (true) {
+                long remainingMs = Math.max(1, (deadline - System.nanoTime()) / 1_000_000);
+                long waitedMs = (System.nanoTime() - start) / 1_000_000;
+                Map<String, Object> result;
+                try {
+                    calls++;
+                    result = asResult(((JavascriptExecutor) driver).executeAsyncScript(OBSERVER_SCRIPT,
+                        strategy[0], strategy[1], mode, true, interrupts, Math.min(remainingMs, MAX_CALL_MS),
+                        Math.max(0, idleMaxMs - waitedMs), POLL_MAX_MS));
+                } catch (WebDriverException e) {
+                    // Document unloaded while the observer was waiting (navigation); observe the new one.
+                    if (!navigating(e)) {
+                        throw e;
+                    }
+                    result = Collections.singletonMap("state", "busy");
+                    sleep(Math.min(POLL_MIN_MS, remainingMs));
+                }
+                String state = String.valueOf(result.get("state"));
+                if ("ready".equals(state)) {
+                    return result.get("el");
+                }
+                if ("error".equals(state)) {
+                    throw new WebDriverException("Wait for " + locator + " failed in the page: " + result.get("message"));
+                }
+                lastState = state;
+                if (System.nanoTime() >= deadline) {
+                    throw new TimeoutException("Timed out after " + timeout.toMillis() + "ms waiting for "
+                        + (locator == null ? "the app to become idle" : locator + " to be " + mode) + " (last state: " + lastState + ")");
+                }
+            }
+        } finally {
+            WaitStats.record(StepContext.key(), System.nanoTime() - start, calls);
+        }
+    }
+
+    private Object pollFromJava(String locator, String[] strategy, List<List<String>> interrupts, String mode, Duration timeout, boolean idleOnly) {
+        long start = System.nanoTime();
+        long deadline = start + timeout.toNanos();
+        long intervalMs = POLL_MIN_MS;
+        int polls = 0;
+        String lastState = "none";
+        try {
+            while (true) {
+                long waitedMs = (System.nanoTime() - start) / 1_000_000;
+                boolean requireIdle = idleOnly || waitedMs < IDLE_MAX_MS;
+                Map<String, Object> result;
+                try {
+                    polls++;
+                    result = asResult(((JavascriptExecutor) driver)
+                        .executeScript(POLL_SCRIPT, strategy[0], strategy[1], mode, requireIdle, interrupts));
+                } catch (WebDriverException e) {
+                    // Navigation in progress or document replaced mid-script; treat like "not yet".
+                    if (!navigating(e)) {
+                        throw e;
+                    }
+                    result = Collections.singletonMap("state", "busy");
+                }
+                String state = String.valueOf(result.get("state"));
+                if ("ready".equals(state)) {
+                    return result.get("el");
+                }
+                if (System.nanoTime() >= deadline) {
+                    throw new TimeoutException("Timed out after " + timeout.toMillis() + "ms waiting for "
+                        + (locator == null ? "the app to become idle" : locator + " to be " + mode) + " (last state: " + state + ")");
+                }
+                intervalMs = "busy".equals(lastState) && !"busy".equals(state) ? POLL_MIN_MS : Math.min(intervalMs * 2, POLL_MAX_MS);
+                lastState = state;
+                sleep(Math.min(intervalMs, Math.max(1, (deadline - System.nanoTime()) / 1_000_000)));
+            }
+        } finally {
+            WaitStats.record(StepContext.key(), System.nanoTime() - start, polls);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> asResult(Object returned) {
+        if (returned instanceof Map) {
+            return (Map<String, Object>) returned;
+        }
+        Map<String, Object> ready = new HashMap<>();
+        ready.put("state", "ready");
+        ready.put("el", returned);
+        return ready;
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TimeoutException("Interrupted while waiting", e);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package Utilities;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.support.ui.ExpectedConditions;
+import org.openqa.selenium.support.ui.WebDriverWait;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+/*
+    Microbenchmark for a single "wait until clickable" on stub/delayed.html, where the button renders
+    disabled while an HTTP call is pending and is enabled 1.2s after load. Compares WebDriver commands
+    and lag (time from the button becoming clickable to the wait returning) for:
+        WebDriverWait + ExpectedConditions   what the flows used before AppWait
+        AppWait.polling()                    the idle-aware probe, polled from Java
+        AppWait (observer)                   the probe driven by a MutationObserver in the page
+    Runs per variant: -Dbench.waitRuns (default 5).
+*/
+public class AppWaitBenchmarkTest {
+
+    private static final By BUTTON = By.cssSelector("#content button");
+
+    private StubBrowser browser;
+
+    @BeforeClass
+    public void startBrowser() {
+        browser = StubBrowser.start();
+        browser.driver().manage().timeouts().scriptTimeout(Duration.ofSeconds(30));
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void stopBrowser() {
+        if (browser != null) {
+            browser.close();
+        }
+    }
+
+    @Test
+    public void observerWaitBeatsPollingOnRoundTrips() {
+        int runs = Config.getInt("bench.waitRuns", 5);
+        Result legacy = measure(runs, driver -> new WebDriverWait(driver, Duration.ofSeconds(10))
+            .until(ExpectedConditions.elementToBeClickable(BUTTON)));
+        Result polling = measure(runs, driver -> AppWait.on(driver).polling().clickable(BUTTON, Duration.ofSeconds(10)));
+        Result observer = measure(runs, driver -> AppWait.on(driver).clickable(BUTTON, Duration.ofSeconds(10)));
+
+        System.out.println(String.format("%-28s %14s %14s", "wait (" + runs + " runs)", "commands/wait", "avg lag ms"));
+        System.out.println(legacy.row("WebDriverWait"));
+        System.out.println(polling.row("AppWait.polling()"));
+        System.out.println(observer.row("AppWait (observer)"));
+
+        Assert.assertEquals(observer.commands, runs, "Observer wait should cost exactly one command per wait");
+        Assert.assertTrue(observer.commands < legacy.commands,
+            "Observer wait should need fewer commands than WebDriverWait (" + observer.commands + " vs " + legacy.commands + ")");
+    }
+
+    private Result measure(int runs, Function<WebDriver, WebElement> waitForButton) {
+        Result result = new Result(runs);
+        for (int i = 0; i < runs; i++) {
+            browser.driver().get(StubBrowser.pageUrl("delayed.html"));
+            browser.resetCommandCount();
+            WebElement button = waitForButton.apply(browser.driver());
+            long returnedAt = System.currentTimeMillis();
+            result.commands += browser.commandCount();
+
+            Object readyAt = ((JavascriptExecutor) browser.driver()).executeScript("return window.readyAt;");
+            Assert.assertNotNull(readyAt, "Wait returned before the button was enabled");
+            Assert.assertTrue(button.isEnabled());
+            result.lagMillis += returnedAt - ((Number) readyAt).longValue();
+        }
+        return result;
+    }
+
+    private static final class Result {
+        final int runs;
+        int commands;
+        long lagMillis;
+
+        Result(int runs) {
+            this.runs = runs;
+        }
+
+        String row(String name) {
+            return String.format("%-28s %14.1f %14d", name, (double) commands / runs, lagMillis / runs);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package Utilities;
+
+import java.time.Duration;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptException;
+import org.openqa.selenium.NoSuchSessionException;
+import org.openqa.selenium.ScriptTimeoutException;
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.UnhandledAlertException;
+import org.openqa.selenium.WebDriverException;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import Pages.LocatorRegistry;
+
+public class AppWaitTest {
+
+    @Test
+    public void navigationKeepsWaitingButOtherFailuresDoNot() {
+        Assert.assertTrue(AppWait.navigating(new JavascriptException("javascript error: document unloaded while waiting for result")));
+        Assert.assertTrue(AppWait.navigating(new JavascriptException("javascript error: Execution context was destroyed.")));
+        Assert.assertTrue(AppWait.navigating(new ScriptTimeoutException("script timeout")));
+
+        Assert.assertFalse(AppWait.navigating(new NoSuchSessionException("invalid session id")));
+        Assert.assertFalse(AppWait.navigating(new UnhandledAlertException("unexpected alert open")));
+        Assert.assertFalse(AppWait.navigating(new JavascriptException("javascript error: probe is not defined")));
+        Assert.assertFalse(AppWait.navigating(new WebDriverException("chrome not reachable")));
+    }
+
+    @Test
+    public void anyPresentTakesTheLocatorsInOrder() {
+        By sidebar = LocatorRegistry.by("nav.sidebar");
+        By login = LocatorRegistry.by("login.open");
+        try (StubBrowser browser = StubBrowser.start()) {
+            browser.driver().get(StubBrowser.pageUrl("app.html"));
+
+            Assert.assertEquals(AppWait.on(browser.driver()).anyPresent(Duration.ofSeconds(5), login, sidebar).getText(), "Login/Register");
+            Assert.assertEquals(AppWait.on(browser.driver()).anyPresent(Duration.ofSeconds(5), sidebar, login).getAttribute("id"), "sidebar");
+            Assert.assertThrows(TimeoutException.class,
+                () -> AppWait.on(browser.driver()).anyPresent(Duration.ofMillis(300), By.id("no-such-element"), By.xpath("//no-such-element")));
+        }
+    }
+}
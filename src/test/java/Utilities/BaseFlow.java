@@ -0,0 +1,299 @@
+package Utilities;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.testng.Assert;
+import org.testng.IConfigurable;
+import org.testng.IConfigureCallBack;
+import org.testng.IHookCallBack;
+import org.testng.IHookable;
+import org.testng.ITestResult;
+
+/*
+    Common base for the UI flow classes.
+
+    openApp() first tries to restore a cached login for the account (see SessionCache). When that
+    works, every @LoginStep method is passed without running, so the flow goes straight to its
+    business steps; otherwise the login page is opened and the steps run as before. Either way the
+    first screen is measured against its performance budget (PageVitals: "home" or "landing").
+
+    Flows lease their browser and account through leaseDriver() / leaseAccount() and give them back
+    with endSession(). In a sequential suite the SharedPrefixScheduler hands a logged-in session from
+    one flow of a @FlowRole to the next, which then continues it instead of logging in again.
+
+    A flow that failed after one of its @Checkpoint steps resumes there on its next run (Checkpoints):
+    the saved session is loaded for the same account and the steps before the checkpoint are passed over.
+
+    Waits inside a step are cut to the step's and the flow's time budget learned from past runs
+    (StepBudgets); a flow that has used up its budget fails its next step at once.
+
+    While the app or the database is known to be down (EnvironmentHealth), the class setup and the
+    steps are skipped with the cause instead of being run; teardown always runs.
+*/
+public abstract class BaseFlow implements IHookable, IConfigurable {
+
+    // Result attribute set on login steps passed without running; they are kept out of step timings.
+    public static final String NOT_RUN = "flow.stepNotRun";
+
+    protected static final String APP_URL = Config.get("app.url", "https://digielv.mmcm.in/");
+
+    protected boolean sessionRestored;
+
+    private SessionHandoff.Session handedOver;
+    private String sessionUrl;
+    private WebDriver flowDriver;
+    private String flowMobile;
+    private Checkpoints.Saved checkpoint;
+    private int resumeAt = -1;
+    // System.nanoTime() by which the flow must finish; 0 before its first step, -1 when it has no budget.
+    private long flowDeadline;
+    private Long flowBudgetMillis;
+    private FlowGraph graph;
+
+    @Override
+    public void run(IHookCallBack callBack, ITestResult testResult) {
+        Method method = testResult.getMethod().getConstructorOrMethod().getMethod();
+        int index = graph().steps().indexOf(method.getName());
+        if (index > 0 && index < resumeAt) {
+            RunLog.info("Skipping " + method.getName() + ": resuming at checkpoint " + checkpoint.step + ".");
+            testResult.setAttribute(NOT_RUN, true);
+            return;
+        }
+        if (sessionRestored && method.isAnnotationPresent(LoginStep.class)) {
+            RunLog.info("Skipping " + method.getName() + ": logged in from cached session.");
+            testResult.setAttribute(NOT_RUN, true);
+            return;
+        }
+        EnvironmentHealth.require(method.isAnnotationPresent(LoginStep.class));
+        if (method.isAnnotationPresent(Checkpoint.class) && flowDriver != null) {
+            Checkpoints.shared().save(getClass(), method.getName(), flowMobile, flowDriver);
+        }
+        String flow = getClass().getSimpleName();
+        StepBudgets budgets = StepBudgets.shared();
+        if (flowDeadline == 0) {
+            flowBudgetMillis = budgets.flow(flow, stepsToRun(index));
+            flowDeadline = flowBudgetMillis == null ? -1 : System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flowBudgetMillis);
+        }
+        if (flowDeadline > 0 && System.nanoTime() >= flowDeadline) {
+            Assert.fail("FAILED [" + flow + "]: time budget of the flow (" + flowBudgetMillis
+                + " ms, learned from past runs) used up before " + method.getName());
+        }
+        StepBudgets.begin(flow + "." + method.getName(), budgets.step(flow + "." + method.getName()), Math.max(0, flowDeadline));
+        networkStep(flow + "." + method.getName());
+        try {
+            callBack.runTestMethod(testResult);
+        } finally {
+            networkStep(null);
+            StepBudgets.end();
+        }
+        if (testResult.isSuccess() && index == graph().steps().size() - 1) {
+            Checkpoints.shared().clear(getClass());
+        }
+    }
+
+    @Override
+    public void run(IConfigureCallBack callBack, ITestResult testResult) {
+        if (testResult.getMethod().isBeforeClassConfiguration()) {
+            EnvironmentHealth.require(false);
+        }
+        networkStep(StepContext.key());
+        try {
+            callBack.runConfigurationMethod(testResult);
+        } finally {
+            networkStep(null);
+        }
+    }
+
+    // Tags the flow's browser with the step it runs, for NetworkCapture; null between steps.
+    void networkStep(String stepKey) {
+        if (flowDriver != null) {
+            NetworkCapture.step(DriverPool.shared().raw(flowDriver), stepKey);
+        }
+    }
+
+    // The browser the flow is driving, or null before it has one.
+    WebDriver flowDriver() {
+        return flowDriver;
+    }
+
+    // The account the flow is logged in with, or null before it has one.
+    String flowMobile() {
+        return flowMobile;
+    }
+
+    // The steps from the given one on that will run: not the login steps of a restored session, nor those before the checkpoint.
+    private List<String> stepsToRun(int from) {
+        List<String> steps = new ArrayList<>();
+        List<String> all = graph().steps();
+        for (int i = Math.max(0, from); i < all.size(); i++) {
+            if (i > 0 && i < resumeAt) {
+                continue;
+            }
+            if (sessionRestored && isLoginStep(all.get(i))) {
+                continue;
+            }
+            steps.add(all.get(i));
+        }
+        return steps;
+    }
+
+    private boolean isLoginStep(String step) {
+        try {
+            return getClass().getMethod(step).isAnnotationPresent(LoginStep.class);
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    private FlowGraph graph() {
+        if (graph == null) {
+            graph = new FlowGraph(getClass());
+        }
+        return graph;
+    }
+
+    // Browser for this flow: the one a previous flow of the same role handed over, else a pooled one.
+    protected WebDriver leaseDriver() {
+        AccountRole role = SharedPrefixScheduler.roleOf(getClass());
+        handedOver = role == null ? null : SessionHandoff.shared().take(role);
+        if (handedOver != null) {
+            DriverPool.shared().rebind(handedOver.driver);
+            flowDriver = handedOver.driver;
+        } else {
+            flowDriver = DriverPool.shared().lease();
+        }
+        networkStep(StepContext.key());
+        return flowDriver;
+    }
+
+    /*
+        Account for this flow's @FlowRole: the handed-over session's account when there is one, else
+        the account of the flow's checkpoint if it is free, else any. Call after leaseDriver().
+    */
+    protected AccountLease leaseAccount() {
+        checkpoint = Checkpoints.shared().find(getClass());
+        AccountLease account;
+        if (handedOver != null) {
+            account = handedOver.account;
+        } else {
+            FlowRole role = getClass().getAnnotation(FlowRole.class);
+            if (role == null) {
+                throw new IllegalStateException(getClass().getSimpleName() + " has no @FlowRole");
+            }
+            account = checkpoint == null
+                ? AccountLeaseManager.shared().lease(role.value())
+                : AccountLeaseManager.shared().lease(role.value(), checkpoint.mobileNumber);
+        }
+        if (checkpoint != null && !checkpoint.mobileNumber.equals(account.getMobileNumber())) {
+            RunLog.info("Checkpoint of " + getClass().getSimpleName() + " belongs to " + checkpoint.mobileNumber
+                + ", which is in use; starting from step 1.");
+            checkpoint = null;
+        }
+        flowMobile = account.getMobileNumber();
+        RunLog.account(flowMobile);
+        return account;
+    }
+
+    // Return browser and account, or keep them logged in for the next flow of the role.
+    protected void endSession(WebDriver driver, AccountLease account) {
+        // The browser may go to another flow right away: stop tagging its requests with this flow's steps.
+        networkStep(null);
+        flowDriver = null;
+        AccountRole role = SharedPrefixScheduler.roleOf(getClass());
+        if (driver != null && account != null && sessionUrl != null && role != null
+                && SessionHandoff.shared().offer(role, new SessionHandoff.Session(driver, account, sessionUrl, getClass().getSimpleName()))) {
+            RunLog.info("Keeping the " + role + " session of " + account.getMobileNumber() + " for the next " + role + " flow.");
+            return;
+        }
+        try {
+            if (driver != null) {
+                DriverPool.shared().release(driver);
+            }
+        } finally {
+            if (account != null) {
+                account.close();
+            }
+        }
+    }
+
+    // Open the app, logged in from a handed-over session or the session cache when there is a valid one.
+    protected void openApp(WebDriver driver, String mobileNumber) {
+        sessionRestored = false;
+        sessionUrl = null;
+        resumeAt = -1;
+        if (checkpoint != null) {
+            if (resumeCheckpoint(driver)) {
+                return;
+            }
+            clearSession(driver);
+        }
+        if (handedOver != null) {
+            if (resume(driver, handedOver.url)) {
+                RunLog.info("Continuing the session " + handedOver.from + " logged in for " + mobileNumber + ", skipping OTP login.");
+                return;
+            }
+            RunLog.info("Session handed over by " + handedOver.from + " is no longer logged in, falling back to UI login.");
+            clearSession(driver);
+        }
+        String landingUrl = SessionCache.shared().restore(driver, mobileNumber);
+        if (landingUrl != null) {
+            if (resume(driver, landingUrl)) {
+                RunLog.info("Restored cached session for " + mobileNumber + ", skipping OTP login.");
+                return;
+            }
+            RunLog.info("Cached session for " + mobileNumber + " was rejected, falling back to UI login.");
+            SessionCache.shared().invalidate(mobileNumber);
+            clearSession(driver);
+        }
+        long started = System.nanoTime();
+        driver.get(APP_URL);
+        PageVitals.record(driver, "landing", System.nanoTime() - started);
+    }
+
+    // Call once the UI login (including the KYC popup) is done, so later classes can reuse it.
+    protected void rememberSession(WebDriver driver, String mobileNumber) {
+        if (!sessionRestored) {
+            SessionCache.shared().capture(driver, mobileNumber);
+            sessionUrl = driver.getCurrentUrl();
+        }
+    }
+
+    private boolean resumeCheckpoint(WebDriver driver) {
+        try {
+            checkpoint.session.applyTo(driver);
+            if (resume(driver, checkpoint.session.landingUrl)) {
+                resumeAt = graph().steps().indexOf(checkpoint.step);
+                RunLog.info("Resuming " + getClass().getSimpleName() + " at checkpoint " + checkpoint.step + ".");
+                return true;
+            }
+            RunLog.info("Checkpoint session of " + getClass().getSimpleName() + " is no longer logged in, starting from step 1.");
+        } catch (Exception e) {
+            RunLog.info("Could not restore checkpoint of " + getClass().getSimpleName() + ", starting from step 1: " + e.getMessage());
+        }
+        Checkpoints.shared().clear(getClass());
+        checkpoint = null;
+        return false;
+    }
+
+    private boolean resume(WebDriver driver, String url) {
+        long started = System.nanoTime();
+        driver.get(url);
+        if (!SessionCache.shared().isLoggedIn(driver)) {
+            return false;
+        }
+        sessionRestored = true;
+        sessionUrl = url;
+        PageVitals.record(driver, "home", System.nanoTime() - started);
+        return true;
+    }
+
+    private static void clearSession(WebDriver driver) {
+        driver.manage().deleteAllCookies();
+        ((JavascriptExecutor) driver).executeScript("localStorage.clear(); sessionStorage.clear();");
+    }
+}
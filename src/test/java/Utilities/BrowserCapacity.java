@@ -0,0 +1,40 @@
+package Utilities;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+
+/*
+    Works out how many Chrome instances this host can drive at once.
+    Each browser is budgeted one CPU core and parallel.browserMemoryMb of RAM (default: the
+    selected BrowserProfile's budget, lower for fast-headless), with
+    parallel.reservedMemoryMb kept back for the JVM and OS. parallel.maxBrowsers overrides the result.
+*/
+public final class BrowserCapacity {
+
+    private BrowserCapacity() {
+    }
+
+    public static int maxConcurrentBrowsers() {
+        int forced = Config.getInt("parallel.maxBrowsers", 0);
+        if (forced > 0) {
+            return forced;
+        }
+        int byCpu = Runtime.getRuntime().availableProcessors();
+        long totalMb = totalPhysicalMemoryMb();
+        if (totalMb <= 0) {
+            return Math.max(1, byCpu);
+        }
+        long usableMb = totalMb - Config.getLong("parallel.reservedMemoryMb", 2048);
+        long byRam = usableMb / Math.max(1, Config.getLong("parallel.browserMemoryMb", BrowserProfile.current().memoryBudgetMb()));
+        return (int) Math.max(1, Math.min(byCpu, byRam));
+    }
+
+    @SuppressWarnings("deprecation")
+    private static long totalPhysicalMemoryMb() {
+        OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+        if (os instanceof com.sun.management.OperatingSystemMXBean) {
+            return ((com.sun.management.OperatingSystemMXBean) os).getTotalPhysicalMemorySize() / (1024 * 1024);
+        }
+        return -1;
+    }
+}
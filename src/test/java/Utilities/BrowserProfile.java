@@ -0,0 +1,122 @@
+package Utilities;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.openqa.selenium.Dimension;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chrome.ChromeDriver;
+import org.openqa.selenium.chrome.ChromeOptions;
+
+/*
+    Named Chrome configurations; every browser the suite starts is built from one of these.
+    Select with -Dbrowser.profile=fast-headless | debug | fidelity (default fidelity).
+
+        fast-headless  new headless mode, no GPU, fixed 1366x900 viewport, background throttling off,
+                       extensions/sync/first-run noise off. Optional -Dbrowser.blockImages=true and
+                       -Dbrowser.blockFonts=true to skip fetching them. Meant for CI and dense hosts.
+        debug          headed and maximized, DevTools opened for every tab.
+        fidelity       headed and maximized with full rendering; what the suite always used.
+*/
+public enum BrowserProfile {
+
+    FAST_HEADLESS("fast-headless", 350) {
+        @Override
+        void configure(ChromeOptions options, Map<String, Object> prefs) {
+            options.addArguments(
+                "--headless=new",
+                "--disable-gpu",
+                "--window-size=1366,900",
+                "--disable-background-timer-throttling",
+                "--disable-backgrounding-occluded-windows",
+                "--disable-renderer-backgrounding",
+                "--disable-extensions",
+                "--disable-sync",
+                "--disable-default-apps",
+                "--no-first-run",
+                "--mute-audio",
+                "--disable-dev-shm-usage");
+            if (Config.getBoolean("browser.blockImages", false)) {
+                prefs.put("profile.managed_default_content_settings.images", 2);
+            }
+        }
+
+        @Override
+        void afterStart(WebDriver driver) {
+            driver.manage().window().setSize(new Dimension(1366, 900));
+            if (Config.getBoolean("browser.blockFonts", false) && driver instanceof ChromeDriver) {
+                ChromeDriver chrome = (ChromeDriver) driver;
+                chrome.executeCdpCommand("Network.enable", Collections.emptyMap());
+                Map<String, Object> blocked = new HashMap<>();
+                blocked.put("urls", Arrays.asList("*.woff", "*.woff2", "*.ttf", "*.otf"));
+                chrome.executeCdpCommand("Network.setBlockedURLs", blocked);
+            }
+        }
+    },
+
+    DEBUG("debug", 600) {
+        @Override
+        void configure(ChromeOptions options, Map<String, Object> prefs) {
+            options.addArguments("--auto-open-devtools-for-tabs");
+        }
+    },
+
+    FIDELITY("fidelity", 600) {
+        @Override
+        void configure(ChromeOptions options, Map<String, Object> prefs) {
+        }
+    };
+
+    private final String key;
+    private final int memoryBudgetMb;
+
+    BrowserProfile(String key, int memoryBudgetMb) {
+        this.key = key;
+        this.memoryBudgetMb = memoryBudgetMb;
+    }
+
+    public static BrowserProfile current() {
+        return fromKey(Config.get("browser.profile", FIDELITY.key));
+    }
+
+    public static BrowserProfile fromKey(String key) {
+        for (BrowserProfile profile : values()) {
+            if (profile.key.equalsIgnoreCase(key) || profile.name().equalsIgnoreCase(key)) {
+                return profile;
+            }
+        }
+        throw new IllegalArgumentException("Unknown browser.profile '" + key + "', expected fast-headless, debug or fidelity");
+    }
+
+    // Chrome options for this profile, including the download preferences every flow relies on.
+    public ChromeOptions options() {
+        Map<String, Object> prefs = new HashMap<>();
+        prefs.put("profile.default_content_settings.popups", 0);
+        prefs.put("download.prompt_for_download", false);
+        prefs.put("download.directory_upgrade", true);
+        prefs.put("safebrowsing.enabled", true);
+        prefs.put("profile.default_content_setting_values.automatic_downloads", 1);
+        ChromeOptions options = new ChromeOptions();
+        configure(options, prefs);
+        options.setExperimentalOption("prefs", prefs);
+        return options;
+    }
+
+    abstract void configure(ChromeOptions options, Map<String, Object> prefs);
+
+    // Window sizing and CDP setup that can only happen once the browser is up.
+    void afterStart(WebDriver driver) {
+        driver.manage().window().maximize();
+    }
+
+    public String key() {
+        return key;
+    }
+
+    // Typical resident memory of one browser under this profile; BrowserCapacity packs hosts with it.
+    public int memoryBudgetMb() {
+        return memoryBudgetMb;
+    }
+}
@@ -0,0 +1,12 @@
+package Utilities;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Marks a @Test step a failed flow can be resumed at: BaseFlow saves the session before it runs (see Checkpoints).
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface Checkpoint {
+}
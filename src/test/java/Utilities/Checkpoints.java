@@ -0,0 +1,124 @@
+package Utilities;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.json.Json;
+
+/*
+    Where a flow class can pick up again after a failure, so a rerun (e.g. of testng-failed.xml) does
+    not repeat the login and the steps that already passed.
+
+    Before a @Checkpoint step runs, BaseFlow saves the browser session (cookies, web storage, current
+    page - the app keeps its state there) with the step name and account to target/checkpoints/<class>.json.
+    When the flow next starts and finds a checkpoint, it leases the same account, loads the session
+    and passes over every step before the checkpoint step. The file is removed once the flow's last
+    step passes, so a green flow always starts from step 1.
+
+    A checkpoint older than checkpoint.maxAgeMinutes (default session.cache.maxAgeMinutes), or whose
+    session has expired, is ignored. Disable with -Dcheckpoint.enabled=false.
+*/
+public final class Checkpoints {
+
+    private static final Json JSON = new Json();
+
+    private static final Checkpoints SHARED = new Checkpoints(
+        Config.getBoolean("checkpoint.enabled", true),
+        TimeUnit.MINUTES.toMillis(Config.getLong("checkpoint.maxAgeMinutes", Config.getLong("session.cache.maxAgeMinutes", 30))),
+        Paths.get(Config.get("checkpoint.dir", "target/checkpoints")));
+
+    private final boolean enabled;
+    private final long maxAgeMillis;
+    private final Path dir;
+
+    public Checkpoints(boolean enabled, long maxAgeMillis, Path dir) {
+        this.enabled = enabled;
+        this.maxAgeMillis = maxAgeMillis;
+        this.dir = dir;
+    }
+
+    public static Checkpoints shared() {
+        return SHARED;
+    }
+
+    public boolean enabled() {
+        return enabled;
+    }
+
+    // Save the browser's session as the point to resume the flow at, starting with this step.
+    public void save(Class<?> flow, String step, String mobileNumber, WebDriver driver) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            save(flow, new Saved(step, mobileNumber, SessionSnapshot.of(driver)));
+            RunLog.info("Checkpoint saved: " + flow.getSimpleName() + " can resume at " + step + ".");
+        } catch (Exception e) {
+            RunLog.info("Could not save checkpoint at " + step + ": " + e.getMessage());
+        }
+    }
+
+    void save(Class<?> flow, Saved saved) throws IOException {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("step", saved.step);
+        data.put("mobileNumber", saved.mobileNumber);
+        data.put("session", saved.session.toMap());
+        Files.createDirectories(dir);
+        Files.write(fileFor(flow), JSON.toJson(data).getBytes(StandardCharsets.UTF_8));
+    }
+
+    // The flow's last checkpoint, or null when there is none or it is too old to resume from.
+    @SuppressWarnings("unchecked")
+    public Saved find(Class<?> flow) {
+        Path file = fileFor(flow);
+        if (!enabled || !Files.exists(file)) {
+            return null;
+        }
+        try {
+            Map<String, Object> data = JSON.toType(new String(Files.readAllBytes(file), StandardCharsets.UTF_8), Json.MAP_TYPE);
+            Saved saved = new Saved((String) data.get("step"), (String) data.get("mobileNumber"),
+                SessionSnapshot.fromMap((Map<String, Object>) data.get("session")));
+            if (saved.session.isExpired(maxAgeMillis)) {
+                RunLog.info("Checkpoint of " + flow.getSimpleName() + " at " + saved.step + " has expired, starting from step 1.");
+                clear(flow);
+                return null;
+            }
+            return saved;
+        } catch (Exception e) {
+            RunLog.info("Ignoring unreadable checkpoint " + file + ": " + e.getMessage());
+            clear(flow);
+            return null;
+        }
+    }
+
+    public void clear(Class<?> flow) {
+        try {
+            Files.deleteIfExists(fileFor(flow));
+        } catch (IOException e) {
+            RunLog.info("Could not delete checkpoint file: " + e.getMessage());
+        }
+    }
+
+    private Path fileFor(Class<?> flow) {
+        return dir.resolve(flow.getName() + ".json");
+    }
+
+    public static final class Saved {
+        final String step;
+        final String mobileNumber;
+        final SessionSnapshot session;
+
+        Saved(String step, String mobileNumber, SessionSnapshot session) {
+            this.step = step;
+            this.mobileNumber = mobileNumber;
+            this.session = session;
+        }
+    }
+}
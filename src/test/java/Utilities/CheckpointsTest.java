@@ -0,0 +1,57 @@
+package Utilities;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class CheckpointsTest {
+
+    private static SessionSnapshot snapshot(long capturedAtMillis) {
+        return new SessionSnapshot("https://app", "https://app/list-of-cds", capturedAtMillis,
+            Collections.emptyList(), Collections.singletonMap("token", "abc"), Collections.emptyMap());
+    }
+
+    @Test
+    public void savedCheckpointIsFoundUntilCleared() throws Exception {
+        Path dir = Files.createTempDirectory("checkpoints");
+        Checkpoints checkpoints = new Checkpoints(true, TimeUnit.MINUTES.toMillis(30), dir);
+
+        checkpoints.save(CheckpointsTest.class, new Checkpoints.Saved("testNavigateToListOfCDs", "9999999990",
+            snapshot(System.currentTimeMillis())));
+        Checkpoints.Saved found = checkpoints.find(CheckpointsTest.class);
+
+        Assert.assertNotNull(found);
+        Assert.assertEquals(found.step, "testNavigateToListOfCDs");
+        Assert.assertEquals(found.mobileNumber, "9999999990");
+        Assert.assertEquals(found.session.landingUrl, "https://app/list-of-cds");
+        Assert.assertEquals(found.session.localStorage.get("token"), "abc");
+
+        checkpoints.clear(CheckpointsTest.class);
+        Assert.assertNull(checkpoints.find(CheckpointsTest.class));
+    }
+
+    @Test
+    public void expiredCheckpointIsDropped() throws Exception {
+        Path dir = Files.createTempDirectory("checkpoints");
+        Checkpoints checkpoints = new Checkpoints(true, TimeUnit.MINUTES.toMillis(30), dir);
+
+        checkpoints.save(CheckpointsTest.class, new Checkpoints.Saved("testMyBids", "9911991191",
+            snapshot(System.currentTimeMillis() - TimeUnit.HOURS.toMillis(1))));
+
+        Assert.assertNull(checkpoints.find(CheckpointsTest.class), "A checkpoint older than the max age must not be resumed");
+        Assert.assertFalse(Files.exists(dir.resolve(CheckpointsTest.class.getName() + ".json")));
+    }
+
+    @Test
+    public void disabledCheckpointsAreIgnored() throws Exception {
+        Path dir = Files.createTempDirectory("checkpoints");
+        new Checkpoints(true, TimeUnit.MINUTES.toMillis(30), dir).save(CheckpointsTest.class,
+            new Checkpoints.Saved("testMyBids", "9911991191", snapshot(System.currentTimeMillis())));
+
+        Assert.assertNull(new Checkpoints(false, TimeUnit.MINUTES.toMillis(30), dir).find(CheckpointsTest.class));
+    }
+}
@@ -0,0 +1,128 @@
+package Utilities;
+
+import java.time.Instant;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+import org.testng.SkipException;
+
+/*
+    Circuit breaker for one shared dependency (the app, the database), driven by a health probe.
+
+    The probe returns null when the dependency is healthy, else what is wrong. After failureThreshold
+    failed probes in a row the breaker opens: ensureClosed() then throws a SkipException naming the
+    cause at once, without touching the dependency. Once openMillis have passed, the next
+    ensureClosed() runs the probe itself (half-open): success closes the breaker again, failure keeps
+    it open for another openMillis.
+*/
+public final class CircuitBreaker {
+
+    enum State { CLOSED, OPEN }
+
+    private static final DateTimeFormatter TIME = DateTimeFormatter.ofPattern("HH:mm:ss");
+
+    private final String name;
+    private final Supplier<String> probe;
+    private final int failureThreshold;
+    private final long openMillis;
+    private final LongSupplier clock;
+    private State state = State.CLOSED;
+    private int failures;
+    private String cause;
+    private long openedAt;
+    private long retryAt;
+
+    public CircuitBreaker(String name, Supplier<String> probe, int failureThreshold, long openMillis, LongSupplier clock) {
+        this.name = name;
+        this.probe = probe;
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openMillis = openMillis;
+        this.clock = clock;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    synchronized State state() {
+        return state;
+    }
+
+    // Run the probe now and update the state from its outcome; returns the failure, or null when healthy.
+    public String probe() {
+        String failure;
+        try {
+            failure = probe.get();
+        } catch (RuntimeException e) {
+            failure = e.toString();
+        }
+        record(failure);
+        return failure;
+    }
+
+    // Open at once, e.g. when the probe before the suite already fails.
+    public synchronized void trip(String failure) {
+        failures = Math.max(failures, failureThreshold - 1);
+        recordFailure(failure);
+    }
+
+    // Returns when the dependency is usable; throws SkipException while the breaker is open.
+    public void ensureClosed() {
+        boolean halfOpen;
+        synchronized (this) {
+            if (state == State.CLOSED) {
+                return;
+            }
+            halfOpen = clock.getAsLong() >= retryAt;
+            if (!halfOpen) {
+                throw skip();
+            }
+            // Probes from other threads wait for the next retry; this one does the recovery probe.
+            retryAt = clock.getAsLong() + openMillis;
+        }
+        probe();
+        synchronized (this) {
+            if (state != State.CLOSED) {
+                throw skip();
+            }
+        }
+    }
+
+    private synchronized void record(String failure) {
+        if (failure == null) {
+            if (state != State.CLOSED) {
+                RunLog.info("Circuit for " + name + " closed again: recovery probe succeeded after "
+                    + TimeUnit.MILLISECONDS.toSeconds(clock.getAsLong() - openedAt) + "s.");
+            }
+            state = State.CLOSED;
+            failures = 0;
+            cause = null;
+            return;
+        }
+        recordFailure(failure);
+    }
+
+    private void recordFailure(String failure) {
+        cause = failure;
+        failures++;
+        long now = clock.getAsLong();
+        if (state == State.OPEN) {
+            retryAt = now + openMillis;
+        } else if (failures >= failureThreshold) {
+            state = State.OPEN;
+            openedAt = now;
+            retryAt = now + openMillis;
+            RunLog.info("Circuit for " + name + " OPEN: " + failure + ". Dependent tests are skipped until a probe succeeds.");
+        }
+    }
+
+    private SkipException skip() {
+        return new SkipException("Environment down: " + name + " - " + cause + " (circuit open since "
+            + TIME.format(LocalTime.ofInstant(Instant.ofEpochMilli(openedAt), ZoneId.systemDefault()))
+            + ", next probe in " + Math.max(0, TimeUnit.MILLISECONDS.toSeconds(retryAt - clock.getAsLong())) + "s)");
+    }
+}
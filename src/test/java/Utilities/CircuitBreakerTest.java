@@ -0,0 +1,66 @@
+package Utilities;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.testng.Assert;
+import org.testng.SkipException;
+import org.testng.annotations.Test;
+
+public class CircuitBreakerTest {
+
+    private final AtomicLong now = new AtomicLong(1_000_000);
+    private final AtomicInteger probes = new AtomicInteger();
+
+    // Probe answers in order; the last one repeats.
+    private CircuitBreaker breaker(String... answers) {
+        return new CircuitBreaker("app", () -> answers[Math.min(probes.getAndIncrement(), answers.length - 1)],
+            2, 30_000, now::get);
+    }
+
+    @Test
+    public void opensAfterConsecutiveFailuresAndSkipsWithoutProbing() {
+        CircuitBreaker breaker = breaker("HTTP 503");
+
+        breaker.probe();
+        breaker.ensureClosed();
+        breaker.probe();
+        Assert.assertEquals(breaker.state(), CircuitBreaker.State.OPEN);
+
+        int before = probes.get();
+        SkipException skip = Assert.expectThrows(SkipException.class, breaker::ensureClosed);
+        Assert.assertTrue(skip.getMessage().contains("HTTP 503"), skip.getMessage());
+        Assert.assertEquals(probes.get(), before, "An open circuit must not probe before its retry time");
+    }
+
+    @Test
+    public void recoveryProbeClosesTheCircuit() {
+        CircuitBreaker breaker = breaker((String) null);
+        breaker.trip("no response");
+
+        now.addAndGet(10_000);
+        Assert.expectThrows(SkipException.class, breaker::ensureClosed);
+
+        now.addAndGet(25_000);
+        breaker.ensureClosed();
+        Assert.assertEquals(breaker.state(), CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    public void failedRecoveryProbeKeepsItOpen() {
+        CircuitBreaker breaker = breaker("HTTP 502");
+        breaker.trip("HTTP 502");
+
+        now.addAndGet(31_000);
+        Assert.expectThrows(SkipException.class, breaker::ensureClosed);
+        int afterRecovery = probes.get();
+        Assert.expectThrows(SkipException.class, breaker::ensureClosed);
+        Assert.assertEquals(probes.get(), afterRecovery, "The next recovery probe waits another open period");
+    }
+
+    @Test
+    public void hostAndPortAreReadFromTheJdbcUrl() {
+        Assert.assertEquals(EnvironmentHealth.hostPort("jdbc:postgresql://db.example:1521/mmcmuat"), "db.example:1521");
+        Assert.assertEquals(EnvironmentHealth.hostPort("jdbc:postgresql://db.example/mmcmuat"), "db.example:5432");
+    }
+}
@@ -0,0 +1,204 @@
+package Utilities;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.json.Json;
+import org.openqa.selenium.support.events.EventFiringDecorator;
+import org.openqa.selenium.support.events.WebDriverListener;
+
+/*
+    Counts and times every WebDriver command (findElement, executeScript, click, sendKeys, ...) sent
+    through a pooled driver, per test step (StepContext). DriverPool wraps each browser with wrap().
+
+    At the end of the run the hotspot report is printed and written to profiler.outputDir
+    (default target/perf) as command-profile.json and command-profile.txt. For each step it shows:
+        wall ms     time in the step method (StepListener)
+        rt ms       time in commands outside AppWait - the cost of round trips
+        wait ms     time inside AppWait, i.e. waiting for the app (WaitStats)
+        other ms    everything else: OTP/DB, Java-side work and sleeps
+    and whether the step is round-trip-bound or app-bound. Commands issued by AppWait are listed with
+    a " (wait)" suffix.
+
+    Disable with -Dprofiler.enabled=false.
+*/
+public final class CommandProfiler implements WebDriverListener {
+
+    // Calls that return a local helper object and never reach the browser.
+    private static final Set<String> LOCAL_CALLS = new HashSet<>(Arrays.asList(
+        "manage", "navigate", "switchTo", "timeouts", "window", "logs", "getWrappedDriver", "getWrappedElement",
+        "toString", "hashCode", "equals"));
+    private static final Map<String, StepProfile> BY_STEP = new ConcurrentHashMap<>();
+    private static final ThreadLocal<Deque<Long>> STARTED = ThreadLocal.withInitial(ArrayDeque::new);
+    private static final CommandProfiler INSTANCE = new CommandProfiler();
+
+    private CommandProfiler() {
+    }
+
+    public static boolean enabled() {
+        return Config.getBoolean("profiler.enabled", true);
+    }
+
+    public static WebDriver wrap(WebDriver driver) {
+        return new EventFiringDecorator<>(INSTANCE).decorate(driver);
+    }
+
+    // Called by StepListener when a step method returns.
+    public static void recordStep(String stepKey, long wallNanos) {
+        step(stepKey).wallNanos.add(wallNanos);
+    }
+
+    public static boolean isEmpty() {
+        return BY_STEP.isEmpty();
+    }
+
+    // Total time spent in the step's method(s), as recorded by StepListener.
+    public static long wallMillis(String stepKey) {
+        StepProfile profile = BY_STEP.get(stepKey);
+        return profile == null ? 0 : profile.wallNanos.sum() / 1_000_000;
+    }
+
+    @Override
+    public void beforeAnyCall(Object target, Method method, Object[] args) {
+        if (!LOCAL_CALLS.contains(method.getName())) {
+            STARTED.get().push(System.nanoTime());
+        }
+    }
+
+    @Override
+    public void afterAnyCall(Object target, Method method, Object[] args, Object result) {
+        finish(method, false);
+    }
+
+    @Override
+    public void onError(Object target, Method method, Object[] args, InvocationTargetException e) {
+        finish(method, true);
+    }
+
+    private static void finish(Method method, boolean failed) {
+        if (LOCAL_CALLS.contains(method.getName())) {
+            return;
+        }
+        Long started = STARTED.get().poll();
+        if (started == null) {
+            return;
+        }
+        long nanos = System.nanoTime() - started;
+        String name = WaitStats.waiting() ? method.getName() + " (wait)" : method.getName();
+        CommandStats stats = step(StepContext.key()).commands.computeIfAbsent(name, k -> new CommandStats());
+        stats.count.increment();
+        stats.totalNanos.add(nanos);
+        stats.maxNanos.accumulateAndGet(nanos, Math::max);
+        if (failed) {
+            stats.errors.increment();
+        }
+    }
+
+    private static StepProfile step(String stepKey) {
+        return BY_STEP.computeIfAbsent(stepKey, k -> new StepProfile());
+    }
+
+    // === Report ===
+
+    public static String report() {
+        StringBuilder sb = new StringBuilder(String.format("%-55s %8s %6s %8s %8s %8s  %-11s %s%n",
+            "step", "wall ms", "cmds", "rt ms", "wait ms", "other ms", "bound", "top commands"));
+        for (Map<String, Object> row : rows()) {
+            sb.append(String.format("%-55s %8d %6d %8d %8d %8d  %-11s %s%n", row.get("step"), row.get("wallMs"),
+                row.get("commands"), row.get("roundTripMs"), row.get("waitMs"), row.get("otherMs"), row.get("bound"), row.get("top")));
+        }
+        return sb.toString();
+    }
+
+    // Prints the table and writes command-profile.json / .txt; returns the directory written to.
+    public static Path export() {
+        Path dir = Paths.get(Config.get("profiler.outputDir", "target/perf"));
+        String table = report();
+        System.out.println("WebDriver command hotspots, per step:\n" + table);
+        try {
+            Files.createDirectories(dir);
+            Files.write(dir.resolve("command-profile.json"), new Json().toJson(rows()).getBytes(StandardCharsets.UTF_8));
+            Files.write(dir.resolve("command-profile.txt"), table.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            RunLog.info("Could not write command profile to " + dir + ": " + e.getMessage());
+        }
+        return dir;
+    }
+
+    private static List<Map<String, Object>> rows() {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (Map.Entry<String, StepProfile> entry : new TreeMap<>(BY_STEP).entrySet()) {
+            StepProfile profile = entry.getValue();
+            long roundTripMs = 0;
+            long count = 0;
+            Map<String, Object> commands = new LinkedHashMap<>();
+            List<Map.Entry<String, CommandStats>> byCost = new ArrayList<>(profile.commands.entrySet());
+            byCost.sort((a, b) -> Long.compare(b.getValue().totalNanos.sum(), a.getValue().totalNanos.sum()));
+            StringBuilder top = new StringBuilder();
+            for (Map.Entry<String, CommandStats> command : byCost) {
+                CommandStats stats = command.getValue();
+                long totalMs = stats.totalNanos.sum() / 1_000_000;
+                if (!command.getKey().endsWith(" (wait)")) {
+                    roundTripMs += totalMs;
+                }
+                count += stats.count.sum();
+                Map<String, Object> json = new LinkedHashMap<>();
+                json.put("count", stats.count.sum());
+                json.put("totalMs", totalMs);
+                json.put("avgMs", totalMs / Math.max(1, stats.count.sum()));
+                json.put("maxMs", stats.maxNanos.get() / 1_000_000);
+                json.put("errors", stats.errors.sum());
+                commands.put(command.getKey(), json);
+                if (top.length() < 60) {
+                    top.append(top.length() == 0 ? "" : ", ").append(command.getKey()).append(' ')
+                        .append(stats.count.sum()).append("x/").append(totalMs).append("ms");
+                }
+            }
+            long wallMs = profile.wallNanos.sum() / 1_000_000;
+            long waitMs = WaitStats.totalMillis(entry.getKey());
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("step", entry.getKey());
+            row.put("wallMs", wallMs);
+            row.put("commands", count);
+            row.put("roundTripMs", roundTripMs);
+            row.put("waitMs", waitMs);
+            row.put("otherMs", Math.max(0, wallMs - roundTripMs - waitMs));
+            row.put("bound", count == 0 ? "-" : waitMs >= roundTripMs ? "app" : "round-trips");
+            row.put("top", top.toString());
+            row.put("byCommand", commands);
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    private static final class StepProfile {
+        final LongAdder wallNanos = new LongAdder();
+        final Map<String, CommandStats> commands = new ConcurrentHashMap<>();
+    }
+
+    private static final class CommandStats {
+        final LongAdder count = new LongAdder();
+        final LongAdder totalNanos = new LongAdder();
+        final LongAdder errors = new LongAdder();
+        final AtomicLong maxNanos = new AtomicLong();
+    }
+}
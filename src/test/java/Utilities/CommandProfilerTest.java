@@ -0,0 +1,66 @@
+package Utilities;
+
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+// Runs the profiler against an in-memory driver, so no browser is needed.
+public class CommandProfilerTest {
+
+    @AfterMethod(alwaysRun = true)
+    public void clearStep() {
+        StepContext.end();
+    }
+
+    @Test
+    public void commandsAreCountedPerStepAndWaitsSplitOut() {
+        WebDriver driver = CommandProfiler.wrap(fakeDriver());
+        StepContext.begin("ProfilerFlow", "stepOne");
+
+        driver.findElements(By.id("a"));
+        driver.findElements(By.id("b"));
+        ((JavascriptExecutor) driver).executeScript("return 1;");
+        WaitStats.setWaiting(true);
+        try {
+            ((JavascriptExecutor) driver).executeScript("return 2;");
+        } finally {
+            WaitStats.setWaiting(false);
+        }
+        driver.manage();
+        CommandProfiler.recordStep(StepContext.key(), 50_000_000L);
+
+        String line = CommandProfiler.report().lines()
+            .filter(l -> l.startsWith("ProfilerFlow.stepOne")).findFirst().orElse("");
+        Assert.assertTrue(line.matches("ProfilerFlow\\.stepOne\\s+50\\s+4\\s.*"), "Expected 50ms wall and 4 commands: " + line);
+        Assert.assertTrue(line.contains("findElements 2x"), line);
+        Assert.assertTrue(line.contains("executeScript (wait) 1x"), line);
+    }
+
+    private static WebDriver fakeDriver() {
+        return (WebDriver) Proxy.newProxyInstance(getLoader(), new Class<?>[] {WebDriver.class, JavascriptExecutor.class},
+            (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "findElements":
+                        return Collections.emptyList();
+                    case "manage":
+                        return null;
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    case "equals":
+                        return proxy == args[0];
+                    default:
+                        return null;
+                }
+            });
+    }
+
+    private static ClassLoader getLoader() {
+        return CommandProfilerTest.class.getClassLoader();
+    }
+}
@@ -0,0 +1,145 @@
+package Utilities;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+
+/*
+    The suite's single entry point to the UAT Postgres.
+
+    Connections come from a bounded HikariCP pool, so the TLS/auth handshake is paid once per
+    connection rather than once per OTP lookup. All SQL is parameterised, except fetchUserColumn's column
+    name, which must be a plain identifier; pgjdbc keeps the server-side prepared statements per
+    connection (prepareThreshold=1), so repeat lookups skip parse/plan.
+    Every call is timed into QueryMetrics.
+
+    Settings: db.url, db.user, db.password, db.pool.size (default 4), db.pool.connectTimeoutMs (default 10000).
+*/
+public final class DbClient implements AutoCloseable {
+
+    private static final String FETCH_OTP_SQL = "SELECT otp FROM common.user_mstr WHERE mobile_no = ?";
+    private static final String RESET_LOGGED_IN_SQL = "UPDATE common.user_mstr SET is_logged_in = 0 WHERE mobile_no = ?";
+
+    private static volatile DbClient shared;
+
+    private final HikariDataSource dataSource;
+    private final QueryMetrics metrics = new QueryMetrics();
+
+    public DbClient(String url, String user, String password, int poolSize, long connectTimeoutMs) {
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl(url);
+        config.setUsername(user);
+        config.setPassword(password);
+        config.setMaximumPoolSize(Math.max(1, poolSize));
+        config.setMinimumIdle(0);
+        config.setConnectionTimeout(connectTimeoutMs);
+        config.setPoolName("uat-db");
+        // Fail on first use rather than at construction, so suites that never touch the DB still start.
+        config.setInitializationFailTimeout(-1);
+        config.addDataSourceProperty("prepareThreshold", "1");
+        config.addDataSourceProperty("preparedStatementCacheQueries", "256");
+        this.dataSource = new HikariDataSource(config);
+    }
+
+    public static DbClient shared() {
+        if (shared == null) {
+            synchronized (DbClient.class) {
+                if (shared == null) {
+                    shared = new DbClient(
+                        Config.get("db.url", "jdbc:postgresql://elv-hyd-uat-cluster.cluster-ro-cxua0wsmu5p7.ap-south-1.rds.amazonaws.com:1521/mmcmuat"),
+                        Config.get("db.user", "uatuser"),
+                        Config.get("db.password", "password@123"),
+                        Config.getInt("db.pool.size", 4),
+                        Config.getLong("db.pool.connectTimeoutMs", 10_000));
+                }
+            }
+        }
+        return shared;
+    }
+
+    // Closes the shared client; a later shared() opens a new pool instead of returning the closed one.
+    public static void shutdownShared() {
+        DbClient client;
+        synchronized (DbClient.class) {
+            client = shared;
+            shared = null;
+        }
+        if (client != null) {
+            if (!client.metrics.isEmpty()) {
+                System.out.println("DB query latency:\n" + client.metrics.report());
+            }
+            client.close();
+        }
+    }
+
+    // Current OTP for the mobile number, or null if no such user exists.
+    public String fetchOtp(String mobileNumber) throws SQLException {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(FETCH_OTP_SQL)) {
+            pstmt.setLong(1, Long.parseLong(mobileNumber));
+            try (ResultSet rs = pstmt.executeQuery()) {
+                String otp = rs.next() ? rs.getString("otp") : null;
+                failed = false;
+                return otp;
+            }
+        } finally {
+            metrics.record("fetchOtp", System.nanoTime() - start, failed);
+        }
+    }
+
+    // One column of the user's row as text, or null. The column name must be a plain identifier: it is
+    // the one part of the statement that cannot be a parameter.
+    public String fetchUserColumn(String mobileNumber, String column) throws SQLException {
+        if (!column.matches("[A-Za-z_][A-Za-z0-9_]*")) {
+            throw new IllegalArgumentException("Not a column name: " + column);
+        }
+        long start = System.nanoTime();
+        boolean failed = true;
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement("SELECT " + column + " FROM common.user_mstr WHERE mobile_no = ?")) {
+            pstmt.setLong(1, Long.parseLong(mobileNumber));
+            try (ResultSet rs = pstmt.executeQuery()) {
+                String value = rs.next() ? rs.getString(1) : null;
+                failed = false;
+                return value;
+            }
+        } finally {
+            metrics.record("fetchUserColumn", System.nanoTime() - start, failed);
+        }
+    }
+
+    // Clears is_logged_in so the account can log in again; returns the number of rows updated.
+    public int resetLoggedIn(String mobileNumber) throws SQLException {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(RESET_LOGGED_IN_SQL)) {
+            pstmt.setLong(1, Long.parseLong(mobileNumber));
+            int rows = pstmt.executeUpdate();
+            failed = false;
+            return rows;
+        } finally {
+            metrics.record("resetLoggedIn", System.nanoTime() - start, failed);
+        }
+    }
+
+    // Direct access for one-off statements (test fixtures, health checks); callers must close the connection.
+    public Connection connection() throws SQLException {
+        return dataSource.getConnection();
+    }
+
+    public QueryMetrics metrics() {
+        return metrics;
+    }
+
+    @Override
+    public void close() {
+        dataSource.close();
+    }
+}
@@ -0,0 +1,12 @@
+package Utilities;
+
+import org.testng.IExecutionListener;
+
+// Prints DB query latency and closes the connection pool once all suites are done.
+public class DbClientListener implements IExecutionListener {
+
+    @Override
+    public void onExecutionFinish() {
+        DbClient.shutdownShared();
+    }
+}
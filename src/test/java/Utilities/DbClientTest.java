@@ -0,0 +1,81 @@
+package Utilities;
+
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.testng.Assert;
+import org.testng.SkipException;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+/*
+    Runs DbClient against a throwaway local Postgres, e.g.
+        docker run -d -p 5432:5432 -e POSTGRES_PASSWORD=postgres postgres:16
+        mvn test -Ddb.test.url=jdbc:postgresql://localhost:5432/postgres -Ddb.test.user=postgres -Ddb.test.password=postgres
+    Skipped when db.test.url is not set. Never point it at UAT: it creates and drops common.user_mstr rows.
+*/
+public class DbClientTest {
+
+    private DbClient db;
+
+    @BeforeClass
+    public void startPool() throws Exception {
+        String url = Config.get("db.test.url", null);
+        if (url == null) {
+            throw new SkipException("db.test.url not set; skipping local Postgres checks");
+        }
+        db = new DbClient(url, Config.get("db.test.user", "postgres"), Config.get("db.test.password", "postgres"), 2, 5_000);
+        try (Connection conn = db.connection(); Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE SCHEMA IF NOT EXISTS common");
+            stmt.execute("CREATE TABLE IF NOT EXISTS common.user_mstr (mobile_no BIGINT PRIMARY KEY, otp VARCHAR(6), is_logged_in INT)");
+            stmt.execute("INSERT INTO common.user_mstr VALUES (5550000001, '123456', 1) ON CONFLICT (mobile_no) DO UPDATE SET otp = '123456', is_logged_in = 1");
+        }
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void stopPool() throws Exception {
+        if (db != null) {
+            try (Connection conn = db.connection(); Statement stmt = conn.createStatement()) {
+                stmt.execute("DELETE FROM common.user_mstr WHERE mobile_no = 5550000001");
+            }
+            db.close();
+        }
+    }
+
+    @Test
+    public void fetchesOtpAndResetsLoginFlag() throws Exception {
+        Assert.assertEquals(db.fetchOtp("5550000001"), "123456");
+        Assert.assertNull(db.fetchOtp("5550000002"), "Unknown mobile should give null");
+        Assert.assertEquals(db.resetLoggedIn("5550000001"), 1);
+    }
+
+    @Test
+    public void userColumnIsReadButOnlyByPlainName() throws Exception {
+        Assert.assertEquals(db.fetchUserColumn("5550000001", "otp"), "123456");
+        Assert.assertThrows(IllegalArgumentException.class, () -> db.fetchUserColumn("5550000001", "otp FROM common.user_mstr --"));
+        Assert.assertTrue(db.metrics().calls("fetchUserColumn") > 0);
+    }
+
+    @Test
+    public void boundedPoolServesManyConcurrentLookups() throws Exception {
+        long before = db.metrics().calls("fetchOtp");
+        ExecutorService workers = Executors.newFixedThreadPool(16);
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            results.add(workers.submit(() -> db.fetchOtp("5550000001")));
+        }
+        for (Future<String> result : results) {
+            Assert.assertEquals(result.get(), "123456");
+        }
+        workers.shutdown();
+
+        Assert.assertEquals(db.metrics().calls("fetchOtp") - before, 200);
+        System.out.println(db.metrics().report());
+    }
+}
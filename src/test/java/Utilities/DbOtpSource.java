@@ -0,0 +1,103 @@
+package Utilities;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.function.Consumer;
+
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+
+/*
+    Reads OTPs from common.user_mstr through DbClient.
+
+    If otp.notifyChannel is set, a daemon thread also LISTENs on that Postgres channel and
+    forwards each notification payload (the mobile number) to subscribers. This needs a trigger
+    on the DB side, for example:
+        CREATE FUNCTION common.notify_otp() RETURNS trigger AS $$
+        BEGIN PERFORM pg_notify('otp_issued', NEW.mobile_no::text); RETURN NEW; END $$ LANGUAGE plpgsql;
+        CREATE TRIGGER otp_issued AFTER UPDATE OF otp ON common.user_mstr
+            FOR EACH ROW EXECUTE FUNCTION common.notify_otp();
+    Without the channel OtpWaiter simply falls back to polling with backoff.
+
+    If otp.issuedAtColumn names a column of common.user_mstr the backend updates with every OTP (e.g.
+    the time it was sent), OtpWaiter reads it to tell a re-issued OTP that happens to equal the old one.
+*/
+public class DbOtpSource implements OtpSource {
+
+    private final DbClient db;
+    private final String notifyChannel;
+    private final String issuedAtColumn;
+    private volatile Thread listenerThread;
+    // True only while the listener's LISTEN session is up; it is false while it reconnects.
+    private volatile boolean connected;
+
+    public DbOtpSource(DbClient db, String notifyChannel, String issuedAtColumn) {
+        this.db = db;
+        this.notifyChannel = notifyChannel;
+        this.issuedAtColumn = issuedAtColumn;
+        if (issuedAtColumn != null && !issuedAtColumn.matches("[A-Za-z_][A-Za-z0-9_]*")) {
+            throw new IllegalArgumentException("Invalid otp.issuedAtColumn: " + issuedAtColumn);
+        }
+    }
+
+    @Override
+    public String currentOtp(String mobileNumber) throws Exception {
+        return db.fetchOtp(mobileNumber);
+    }
+
+    @Override
+    public String issueMarker(String mobileNumber) throws Exception {
+        return issuedAtColumn == null ? null : db.fetchUserColumn(mobileNumber, issuedAtColumn);
+    }
+
+    @Override
+    public boolean pushes() {
+        return connected;
+    }
+
+    @Override
+    public synchronized void subscribe(Consumer<String> otpWritten) {
+        if (notifyChannel == null || listenerThread != null) {
+            return;
+        }
+        if (!notifyChannel.matches("[A-Za-z_][A-Za-z0-9_]*")) {
+            RunLog.info("Ignoring invalid otp.notifyChannel: " + notifyChannel);
+            return;
+        }
+        listenerThread = new Thread(() -> listen(otpWritten), "otp-notify-listener");
+        listenerThread.setDaemon(true);
+        listenerThread.start();
+    }
+
+    // Uses its own connection: a LISTEN session must stay open and would otherwise pin a pool slot.
+    private void listen(Consumer<String> otpWritten) {
+        while (!Thread.currentThread().isInterrupted()) {
+            try (Connection conn = DriverManager.getConnection(
+                    Config.get("db.url", null), Config.get("db.user", null), Config.get("db.password", null));
+                 Statement stmt = conn.createStatement()) {
+                stmt.execute("LISTEN " + notifyChannel);
+                connected = true;
+                PGConnection pg = conn.unwrap(PGConnection.class);
+                while (!Thread.currentThread().isInterrupted()) {
+                    PGNotification[] notifications = pg.getNotifications(500);
+                    if (notifications == null) {
+                        continue;
+                    }
+                    for (PGNotification notification : notifications) {
+                        otpWritten.accept(notification.getParameter().trim());
+                    }
+                }
+            } catch (Exception e) {
+                connected = false;
+                RunLog.info("OTP notification listener lost its connection, retrying: " + e.getMessage());
+                try {
+                    Thread.sleep(2000);
+                } catch (InterruptedException ie) {
+                    return;
+                }
+            }
+        }
+        connected = false;
+    }
+}
@@ -0,0 +1,283 @@
+package Utilities;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chrome.ChromeDriver;
+
+import io.github.bonigarcia.wdm.WebDriverManager;
+
+/*
+    Shared pool of ChromeDriver sessions.
+
+    Test classes lease a browser in @BeforeClass and release it in @AfterClass instead of
+    running WebDriverManager setup + new ChromeDriver() + quit() every time.
+    On release the browser is reset (cookies, local/session storage, extra tabs) and handed
+    to the next class; after driver.pool.maxUses leases it is quit and replaced.
+
+    Settings (see Config):
+        driver.pool.size                  max browsers alive at once          (default 1)
+        driver.pool.prewarm               browsers spawned up front            (default = size)
+        driver.pool.maxUses               leases before a browser is recycled  (default 10)
+        driver.pool.leaseTimeoutSeconds   how long lease() waits for a browser (default 120)
+    Browsers are built from the selected BrowserProfile (-Dbrowser.profile). Test classes get the browser
+    wrapped by CommandProfiler; the pool itself resets and quits the unwrapped one, so its own commands
+    stay out of the profile. XHR/fetch traffic of each browser is captured per step by NetworkCapture.
+*/
+public final class DriverPool {
+
+    private static volatile DriverPool shared;
+    private static volatile boolean driverBinaryReady;
+
+    private final int size;
+    private final int maxUses;
+    private final long leaseTimeoutSeconds;
+    private final LinkedBlockingQueue<PooledDriver> idle = new LinkedBlockingQueue<>();
+    private final Map<WebDriver, PooledDriver> leased = new ConcurrentHashMap<>();
+    private final ExecutorService spawner;
+    private int alive;
+    private boolean closed;
+
+    public DriverPool(int size, int prewarm, int maxUses, long leaseTimeoutSeconds) {
+        this.size = Math.max(1, size);
+        this.maxUses = Math.max(1, maxUses);
+        this.leaseTimeoutSeconds = leaseTimeoutSeconds;
+        this.spawner = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "driver-pool-spawner");
+            t.setDaemon(true);
+            return t;
+        });
+        for (int i = 0; i < Math.min(prewarm, this.size); i++) {
+            spawnInBackground();
+        }
+    }
+
+    public static DriverPool shared() {
+        if (shared == null) {
+            synchronized (DriverPool.class) {
+                if (shared == null) {
+                    int size = Config.getInt("driver.pool.size", 1);
+                    shared = new DriverPool(
+                        size,
+                        Config.getInt("driver.pool.prewarm", size),
+                        Config.getInt("driver.pool.maxUses", 10),
+                        Config.getLong("driver.pool.leaseTimeoutSeconds", 120));
+                    Runtime.getRuntime().addShutdownHook(new Thread(DriverPool::shutdownShared, "driver-pool-shutdown"));
+                }
+            }
+        }
+        return shared;
+    }
+
+    public static void shutdownShared() {
+        DriverPool pool = shared;
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    // Borrow a ready browser; spawns one if the pool is below its size, otherwise waits for a release.
+    public WebDriver lease() {
+        PooledDriver pooled = idle.poll();
+        if (pooled == null && reserveSlot()) {
+            pooled = spawn();
+        }
+        if (pooled == null) {
+            try {
+                pooled = idle.poll(leaseTimeoutSeconds, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for a pooled browser", e);
+            }
+            if (pooled == null) {
+                throw new IllegalStateException("No browser became free within " + leaseTimeoutSeconds + "s (pool size " + size + ")");
+            }
+        }
+        pooled.uses++;
+        leased.put(pooled.driver, pooled);
+        NetworkCapture.bind(pooled.raw);
+        return pooled.driver;
+    }
+
+    // Start a fresh network capture on a leased browser passed on between flows.
+    public void rebind(WebDriver driver) {
+        PooledDriver pooled = leased.get(driver);
+        if (pooled != null) {
+            NetworkCapture.bind(pooled.raw);
+        }
+    }
+
+    // The unwrapped browser behind a leased one, for commands that should stay out of the profile.
+    public WebDriver raw(WebDriver driver) {
+        PooledDriver pooled = leased.get(driver);
+        return pooled == null ? driver : pooled.raw;
+    }
+
+    // Return a browser to the pool. Browsers that fail to reset or hit maxUses are quit and replaced.
+    public void release(WebDriver driver) {
+        if (driver == null) {
+            return;
+        }
+        PooledDriver pooled = leased.remove(driver);
+        if (pooled == null) {
+            driver.quit();
+            return;
+        }
+        if (pooled.uses >= maxUses || !reset(pooled.raw) || isClosed()) {
+            discard(pooled);
+            if (!isClosed()) {
+                spawnInBackground();
+            }
+            return;
+        }
+        idle.offer(pooled);
+    }
+
+    public void shutdown() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+        spawner.shutdownNow();
+        List<PooledDriver> all = new ArrayList<>();
+        idle.drainTo(all);
+        all.addAll(leased.values());
+        leased.clear();
+        for (PooledDriver pooled : all) {
+            discard(pooled);
+        }
+    }
+
+    // === Internals ===
+
+    private synchronized boolean reserveSlot() {
+        if (closed || alive >= size) {
+            return false;
+        }
+        alive++;
+        return true;
+    }
+
+    private synchronized void freeSlot() {
+        alive--;
+    }
+
+    private synchronized boolean isClosed() {
+        return closed;
+    }
+
+    private void spawnInBackground() {
+        if (!reserveSlot()) {
+            return;
+        }
+        spawner.execute(() -> {
+            try {
+                PooledDriver pooled = spawn();
+                if (isClosed()) {
+                    discard(pooled);
+                } else {
+                    idle.offer(pooled);
+                }
+            } catch (RuntimeException e) {
+                RunLog.info("Driver pool could not pre-spawn a browser: " + e.getMessage());
+            }
+        });
+    }
+
+    // Caller must already hold a slot; the slot is released again if startup fails.
+    private PooledDriver spawn() {
+        try {
+            return new PooledDriver(createDriver());
+        } catch (RuntimeException e) {
+            freeSlot();
+            throw e;
+        }
+    }
+
+    private void discard(PooledDriver pooled) {
+        NetworkCapture.detach(pooled.raw);
+        try {
+            pooled.raw.quit();
+        } catch (Exception e) {
+            RunLog.info("Error quitting pooled browser: " + e.getMessage());
+        } finally {
+            freeSlot();
+        }
+    }
+
+    private static WebDriver createDriver() {
+        if (!driverBinaryReady) {
+            synchronized (DriverPool.class) {
+                if (!driverBinaryReady) {
+                    WebDriverManager.chromedriver().setup();
+                    driverBinaryReady = true;
+                }
+            }
+        }
+        BrowserProfile profile = BrowserProfile.current();
+        WebDriver driver = new ChromeDriver(profile.options());
+        profile.afterStart(driver);
+        AppWait.installInstrumentation(driver);
+        if (PageVitals.enabled()) {
+            PageVitals.install(driver);
+        }
+        if (FailureArtifacts.enabled()) {
+            FailureArtifacts.install(driver);
+        }
+        if (NetworkCapture.enabled()) {
+            NetworkCapture.attach(driver);
+        }
+        // Async helpers (OTP entry, in-page waits) enforce their own deadlines; this is only the outer bound.
+        driver.manage().timeouts().scriptTimeout(Duration.ofSeconds(Config.getLong("driver.scriptTimeoutSeconds", 60)));
+        return driver;
+    }
+
+    // Wipe everything a previous test class may have left behind. Returns false if the browser is unusable.
+    private static boolean reset(WebDriver driver) {
+        try {
+            List<String> handles = new ArrayList<>(driver.getWindowHandles());
+            String keep = handles.get(0);
+            for (String handle : handles) {
+                if (!handle.equals(keep)) {
+                    driver.switchTo().window(handle).close();
+                }
+            }
+            driver.switchTo().window(keep);
+            ((JavascriptExecutor) driver).executeScript(
+                "try { window.localStorage.clear(); window.sessionStorage.clear(); } catch (e) {}");
+            if (driver instanceof ChromeDriver) {
+                ((ChromeDriver) driver).executeCdpCommand("Network.clearBrowserCookies", Collections.emptyMap());
+            } else {
+                driver.manage().deleteAllCookies();
+            }
+            driver.get("about:blank");
+            return true;
+        } catch (Exception e) {
+            RunLog.info("Pooled browser failed to reset, recycling it: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private static final class PooledDriver {
+        final WebDriver raw;
+        final WebDriver driver;
+        int uses;
+
+        PooledDriver(WebDriver raw) {
+            this.raw = raw;
+            this.driver = CommandProfiler.enabled() ? CommandProfiler.wrap(raw) : raw;
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package Utilities;
+
+import org.testng.IExecutionListener;
+
+/*
+    Returns any sessions still kept for a next flow (SessionHandoff), and quits
+    every pooled browser once TestNG has finished all suites.
+    Registered in testng.xml; the pool's JVM shutdown hook is only a fallback.
+*/
+public class DriverPoolListener implements IExecutionListener {
+
+    @Override
+    public void onExecutionFinish() {
+        SessionHandoff.shared().releaseAll();
+        DriverPool.shutdownShared();
+    }
+}
@@ -0,0 +1,121 @@
+package Utilities;
+
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.stream.Collectors;
+
+import org.testng.IAlterSuiteListener;
+import org.testng.xml.XmlClass;
+import org.testng.xml.XmlSuite;
+import org.testng.xml.XmlTest;
+
+/*
+    Orders the flow classes of a parallel run longest-first by their past duration (TestDurations),
+    so the long dependsOnMethods chains such as Own_CDUtilize start right away instead of last.
+
+    In a parallel run every flow class is a <test> of its own in a parallel="tests" suite
+    (ParallelSuiteListener), so a class runs whole on one worker, and TestNG starts the <test>s in
+    suite order, each on the next worker that frees up. Longest-first order plus that queue is
+    longest-processing-time list scheduling: balancing happens as workers become free, using the
+    actual run times rather than a fixed up-front assignment. Classes in a <test> not split yet (when
+    this listener runs before ParallelSuiteListener) are ordered the same way, and the split keeps it.
+
+    Every run first folds the previous testng-results.xml (schedule.resultsFile, default
+    target/surefire-reports/testng-results.xml) into perf.resultsDir/class-durations.json. Classes
+    without history are estimated at the median known duration. Sequential runs only record history
+    (their order is left to SharedPrefixScheduler). Disable with -Dschedule.byDuration=false.
+*/
+public class DurationScheduler implements IAlterSuiteListener {
+
+    @Override
+    public void alter(List<XmlSuite> suites) {
+        if (!Config.getBoolean("schedule.byDuration", true)) {
+            return;
+        }
+        TestDurations history = TestDurations.update(
+            Paths.get(Config.get("perf.resultsDir", "perf-results"), "class-durations.json"),
+            Paths.get(Config.get("schedule.resultsFile", "target/surefire-reports/testng-results.xml")));
+        if (!"classes".equalsIgnoreCase(Config.get("suite.parallel", "none")) || history.classMillis().isEmpty()) {
+            return;
+        }
+        apply(suites, history.classMillis(), Config.getInt("parallel.threads", BrowserCapacity.maxConcurrentBrowsers()));
+    }
+
+    // Orders the per-class <test>s of the worker suites, and the classes of any <test> not split yet.
+    static void apply(List<XmlSuite> suites, Map<String, Long> history, int workers) {
+        for (XmlSuite suite : suites) {
+            for (XmlSuite child : ParallelSuiteListener.workerSuites(suite)) {
+                List<XmlTest> original = new ArrayList<>(child.getTests());
+                List<XmlTest> ordered = new ArrayList<>(original);
+                // Stable sort: classes with equal estimates keep their suite order.
+                ordered.sort(Comparator.comparingLong((XmlTest t) -> estimate(t.getXmlClasses().get(0), history)).reversed());
+                child.setTests(ordered);
+                report(child.getName(), ordered.stream().map(t -> t.getXmlClasses().get(0)).collect(Collectors.toList()),
+                    original.stream().map(t -> t.getXmlClasses().get(0)).collect(Collectors.toList()), history, workers);
+            }
+            for (XmlTest test : suite.getTests()) {
+                List<XmlClass> original = test.getXmlClasses();
+                if (original.size() < 2) {
+                    continue;
+                }
+                List<XmlClass> ordered = longestFirst(original, history);
+                test.setXmlClasses(ordered);
+                report(test.getName(), ordered, original, history, workers);
+            }
+        }
+    }
+
+    private static void report(String name, List<XmlClass> ordered, List<XmlClass> original, Map<String, Long> history, int workers) {
+        RunLog.info(String.format("Longest-first schedule for %s on %d workers: %s%n  expected wall clock %.1fs (%.1fs in suite order)",
+            name, workers,
+            ordered.stream().map(c -> shortName(c) + " " + estimate(c, history) / 1000 + "s").collect(Collectors.joining(", ")),
+            makespan(estimates(ordered, history), workers) / 1000.0,
+            makespan(estimates(original, history), workers) / 1000.0));
+    }
+
+    static List<XmlClass> longestFirst(List<XmlClass> classes, Map<String, Long> history) {
+        List<XmlClass> ordered = new ArrayList<>(classes);
+        // Stable sort: classes with equal estimates keep their suite order.
+        ordered.sort(Comparator.comparingLong((XmlClass c) -> estimate(c, history)).reversed());
+        return ordered;
+    }
+
+    static long estimate(XmlClass xmlClass, Map<String, Long> history) {
+        Long known = history.get(xmlClass.getName());
+        if (known != null) {
+            return known;
+        }
+        List<Long> all = new ArrayList<>(history.values());
+        Collections.sort(all);
+        return all.isEmpty() ? 0 : all.get(all.size() / 2);
+    }
+
+    // Finish time of the last class when each class goes, in order, to the first free worker.
+    static long makespan(List<Long> durations, int workers) {
+        PriorityQueue<Long> freeAt = new PriorityQueue<>();
+        for (int i = 0; i < Math.max(1, workers); i++) {
+            freeAt.add(0L);
+        }
+        long end = 0;
+        for (long duration : durations) {
+            long finish = freeAt.poll() + duration;
+            end = Math.max(end, finish);
+            freeAt.add(finish);
+        }
+        return end;
+    }
+
+    private static List<Long> estimates(List<XmlClass> classes, Map<String, Long> history) {
+        return classes.stream().map(c -> estimate(c, history)).collect(Collectors.toList());
+    }
+
+    private static String shortName(XmlClass xmlClass) {
+        String name = xmlClass.getName();
+        return name.substring(name.lastIndexOf('.') + 1);
+    }
+}
@@ -0,0 +1,114 @@
+package Utilities;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.testng.Assert;
+import org.testng.TestListenerAdapter;
+import org.testng.annotations.Test;
+import org.testng.xml.XmlClass;
+import org.testng.xml.XmlSuite;
+
+public class DurationSchedulerTest {
+
+    private static final String RESULTS = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+        + "<testng-results><suite name=\"AutomationSuite\"><test name=\"AllTestCases\">\n"
+        + "  <class name=\"TestCases.OfferCancel\">\n"
+        + "    <test-method is-config=\"true\" name=\"setup\" duration-ms=\"1500\" status=\"PASS\"/>\n"
+        + "    <test-method name=\"testMyBids\" duration-ms=\"2500\" status=\"PASS\"/>\n"
+        + "  </class>\n"
+        + "  <class name=\"TestCases.Own_CDUtilize\">\n"
+        + "    <test-method name=\"testClickConfirmUtilize\" duration-ms=\"9000\" status=\"FAIL\"/>\n"
+        + "  </class>\n"
+        + "  <class name=\"TestCases.MyAccount\">\n"
+        + "    <test-method is-config=\"true\" name=\"setup\" duration-ms=\"3\" status=\"SKIP\"/>\n"
+        + "    <test-method name=\"TC_01_Login_With_Mobile_And_OTP\" duration-ms=\"0\" status=\"SKIP\"/>\n"
+        + "  </class>\n"
+        + "  <class name=\"Utilities.StepLatencyTest\">\n"
+        + "    <test-method name=\"percentilesAreRead\" duration-ms=\"40\" status=\"PASS\"/>\n"
+        + "  </class>\n"
+        + "</test></suite></testng-results>\n";
+
+    @Test
+    public void classDurationIsTheSumOfItsMethods() throws Exception {
+        Path results = Files.createTempFile("testng-results", ".xml");
+        Files.write(results, RESULTS.getBytes(StandardCharsets.UTF_8));
+
+        Map<String, Long> durations = TestDurations.fromResults(results);
+
+        Assert.assertEquals(durations.get("TestCases.OfferCancel"), Long.valueOf(4000));
+        Assert.assertEquals(durations.get("TestCases.Own_CDUtilize"), Long.valueOf(9000));
+        Assert.assertFalse(durations.containsKey("TestCases.MyAccount"), "A class that was skipped entirely did not run");
+        Assert.assertFalse(durations.containsKey("Utilities.StepLatencyTest"), "Only flow classes are scheduled");
+    }
+
+    @Test
+    public void resultsAreFoldedIntoTheHistoryOnce() throws Exception {
+        Path dir = Files.createTempDirectory("durations");
+        Path results = dir.resolve("testng-results.xml");
+        Path history = dir.resolve("class-durations.json");
+        Files.write(results, RESULTS.getBytes(StandardCharsets.UTF_8));
+        Map<String, Long> earlier = new HashMap<>();
+        earlier.put("TestCases.OfferCancel", 8000L);
+        new TestDurations(earlier, 1).save(history);
+
+        Assert.assertEquals(TestDurations.update(history, results).classMillis().get("TestCases.OfferCancel"), Long.valueOf(6000),
+            "Moving average of 8000 and 4000");
+        Assert.assertEquals(TestDurations.update(history, results).classMillis().get("TestCases.OfferCancel"), Long.valueOf(6000),
+            "The same results file must not be counted twice");
+        Assert.assertEquals(TestDurations.load(history).classMillis().get("TestCases.Own_CDUtilize"), Long.valueOf(9000));
+    }
+
+    @Test
+    public void longestClassesGoFirstAndShortenTheRun() {
+        Map<String, Long> history = new HashMap<>();
+        history.put("TestCases.MyAccount", 20_000L);
+        history.put("TestCases.OfferCancel", 30_000L);
+        history.put("TestCases.Own_CDSell", 40_000L);
+        history.put("TestCases.Own_CDUtilize", 90_000L);
+        List<XmlClass> suiteOrder = Arrays.asList("TestCases.MyAccount", "TestCases.OfferCancel", "TestCases.Own_CDSell",
+            "TestCases.View_Market_Offer", "TestCases.Own_CDUtilize").stream().map(XmlClass::new).collect(Collectors.toList());
+
+        List<XmlClass> ordered = DurationScheduler.longestFirst(suiteOrder, history);
+
+        Assert.assertEquals(ordered.stream().map(XmlClass::getName).collect(Collectors.toList()), Arrays.asList(
+            "TestCases.Own_CDUtilize", "TestCases.Own_CDSell", "TestCases.View_Market_Offer", "TestCases.OfferCancel", "TestCases.MyAccount"),
+            "View_Market_Offer has no history and is estimated at the median (30s)");
+        List<Long> before = suiteOrder.stream().map(c -> DurationScheduler.estimate(c, history)).collect(Collectors.toList());
+        List<Long> after = ordered.stream().map(c -> DurationScheduler.estimate(c, history)).collect(Collectors.toList());
+        Assert.assertEquals(DurationScheduler.makespan(before, 2), 150_000L);
+        Assert.assertEquals(DurationScheduler.makespan(after, 2), 110_000L);
+    }
+
+    @Test
+    public void longClassStartsFirstAndShortOnesShareTheOtherWorker() {
+        Map<String, Long> history = new HashMap<>();
+        history.put(ParallelFlows.Slow.class.getName(), 800L);
+        history.put(ParallelFlows.FlowA.class.getName(), 200L);
+        history.put(ParallelFlows.FlowB.class.getName(), 200L);
+        history.put(ParallelFlows.FlowC.class.getName(), 200L);
+        XmlSuite suite = ParallelFlows.suite(ParallelFlows.FlowA.class, ParallelFlows.FlowB.class, ParallelFlows.FlowC.class,
+            ParallelFlows.Slow.class);
+        ParallelSuiteListener.splitFlowClasses(suite, 2);
+        List<XmlSuite> suites = Collections.singletonList(suite);
+
+        DurationScheduler.apply(suites, history, 2);
+        TestListenerAdapter results = ParallelFlows.run(suites);
+
+        Assert.assertTrue(results.getConfigurationFailures().isEmpty() && results.getFailedTests().isEmpty(),
+            "Setup failures " + results.getConfigurationFailures() + ", failed " + results.getFailedTests());
+        Assert.assertTrue(ParallelFlows.STARTED.subList(0, 2).contains("Slow"), "Slow did not start with the first pair: " + ParallelFlows.STARTED);
+        Set<String> slowThread = ParallelFlows.THREADS.get("Slow");
+        for (String flow : Arrays.asList("FlowA", "FlowB", "FlowC")) {
+            Assert.assertNotEquals(ParallelFlows.THREADS.get(flow), slowThread, flow + " waited for the worker running Slow");
+        }
+    }
+}
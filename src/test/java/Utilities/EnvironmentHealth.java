@@ -0,0 +1,173 @@
+package Utilities;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.testng.IInvokedMethod;
+import org.testng.IInvokedMethodListener;
+import org.testng.ISuite;
+import org.testng.ISuiteListener;
+import org.testng.ITestResult;
+import org.testng.xml.XmlClass;
+import org.testng.xml.XmlSuite;
+import org.testng.xml.XmlTest;
+
+/*
+    Fail-fast guard for the suite's shared dependencies: the app (app.url) and, with app.backend=uat,
+    the OTP database (db.url).
+
+    Both are probed before the suite starts and every health.intervalSeconds while it runs, and again
+    straight after any flow step fails. The app probe is an HTTP GET (a 5xx or no answer within
+    health.timeoutMs is a failure); the database probe opens a TCP connection to its host and port.
+    Each dependency has a CircuitBreaker: once it opens, BaseFlow skips the class setup of every flow,
+    and every remaining step (the database only matters for the login steps), within milliseconds and
+    with the cause as the skip reason, instead of starting Chrome and running into wait timeouts. The
+    breaker closes on the first successful recovery probe, health.openSeconds after it opened.
+
+    Registered in testng.xml. Listeners declared there apply to every suite of the TestNG run, so the
+    breakers are only armed for a suite that runs flow classes (in parallel mode their child suite) and
+    cleared when it ends; the framework suite run alongside it never sees them. Without breakers (load
+    mode, framework tests) require() does nothing. Disable with -Dhealth.enabled=false.
+*/
+public class EnvironmentHealth implements ISuiteListener, IInvokedMethodListener {
+
+    private static final Map<String, CircuitBreaker> BREAKERS = new ConcurrentHashMap<>();
+    private static volatile ScheduledExecutorService prober;
+
+    @Override
+    public void onStart(ISuite suite) {
+        if (!Config.getBoolean("health.enabled", true) || !BREAKERS.isEmpty() || !runsFlows(suite.getXmlSuite())) {
+            return;
+        }
+        Duration timeout = Duration.ofMillis(Config.getLong("health.timeoutMs", 3000));
+        int threshold = Config.getInt("health.failureThreshold", 2);
+        long openMillis = TimeUnit.SECONDS.toMillis(Config.getLong("health.openSeconds", 30));
+        String appUrl = Config.get("app.url", "https://digielv.mmcm.in/");
+        BREAKERS.put("app", new CircuitBreaker("app " + appUrl, () -> probeHttp(appUrl, timeout), threshold, openMillis, System::currentTimeMillis));
+        if ("uat".equals(Config.get("app.backend", "uat"))) {
+            String dbUrl = Config.get("db.url", "");
+            BREAKERS.put("db", new CircuitBreaker("database " + hostPort(dbUrl), () -> probeTcp(dbUrl, timeout), threshold, openMillis, System::currentTimeMillis));
+        }
+        // Before the suite one failed probe is enough: nothing has run yet that a blip would cost.
+        for (CircuitBreaker breaker : BREAKERS.values()) {
+            String failure = breaker.probe();
+            if (failure != null) {
+                breaker.trip(failure);
+            }
+        }
+        long interval = Config.getLong("health.intervalSeconds", 15);
+        prober = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "environment-health");
+            t.setDaemon(true);
+            return t;
+        });
+        prober.scheduleWithFixedDelay(EnvironmentHealth::probeAll, interval, interval, TimeUnit.SECONDS);
+    }
+
+    // Whether any <test> of the suite holds a flow class (BaseFlow).
+    static boolean runsFlows(XmlSuite suite) {
+        for (XmlTest test : suite.getTests()) {
+            for (XmlClass xmlClass : test.getXmlClasses()) {
+                if (BaseFlow.class.isAssignableFrom(xmlClass.getSupportClass())) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void onFinish(ISuite suite) {
+        // In parallel mode the flows run in a child suite (ParallelSuiteListener), and its parent - which runs
+        // after it - holds the latency gate; keep probing until the outermost one ends.
+        if (suite.getXmlSuite().getParentSuite() != null) {
+            return;
+        }
+        ScheduledExecutorService running = prober;
+        if (running != null) {
+            running.shutdownNow();
+            prober = null;
+        }
+        BREAKERS.clear();
+    }
+
+    // A failed flow step may be the environment going down: check now rather than at the next interval.
+    @Override
+    public void afterInvocation(IInvokedMethod method, ITestResult testResult) {
+        ScheduledExecutorService running = prober;
+        if (running != null && testResult.getStatus() == ITestResult.FAILURE && testResult.getInstance() instanceof BaseFlow) {
+            running.execute(EnvironmentHealth::probeAll);
+        }
+    }
+
+    // Throws SkipException while a dependency is down: the app always, the database only for a UI login.
+    public static void require(boolean login) {
+        CircuitBreaker app = BREAKERS.get("app");
+        if (app != null) {
+            app.ensureClosed();
+        }
+        CircuitBreaker db = BREAKERS.get("db");
+        if (login && db != null) {
+            db.ensureClosed();
+        }
+    }
+
+    private static void probeAll() {
+        for (CircuitBreaker breaker : BREAKERS.values()) {
+            breaker.probe();
+        }
+    }
+
+    static String probeHttp(String url, Duration timeout) {
+        HttpClient client = HttpClient.newBuilder().connectTimeout(timeout).followRedirects(HttpClient.Redirect.NORMAL).build();
+        try {
+            HttpResponse<Void> response = client.send(HttpRequest.newBuilder(URI.create(url)).timeout(timeout).GET().build(),
+                HttpResponse.BodyHandlers.discarding());
+            return response.statusCode() >= 500 ? "HTTP " + response.statusCode() : null;
+        } catch (IOException e) {
+            return "no response within " + timeout.toMillis() + " ms (" + e + ")";
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return "probe interrupted";
+        }
+    }
+
+    // A TCP connect to the database listener; the OTP queries themselves go through DbClient.
+    static String probeTcp(String jdbcUrl, Duration timeout) {
+        String hostPort = hostPort(jdbcUrl);
+        int colon = hostPort.lastIndexOf(':');
+        if (colon < 0) {
+            return "cannot read host and port from db.url " + jdbcUrl;
+        }
+        try (Socket socket = new Socket()) {
+            socket.connect(new InetSocketAddress(hostPort.substring(0, colon), Integer.parseInt(hostPort.substring(colon + 1))),
+                (int) timeout.toMillis());
+            return null;
+        } catch (IOException | NumberFormatException e) {
+            return "cannot connect within " + timeout.toMillis() + " ms (" + e + ")";
+        }
+    }
+
+    // jdbc:postgresql://host:port/db -> host:port (port 5432 when missing)
+    static String hostPort(String jdbcUrl) {
+        int start = jdbcUrl.indexOf("//");
+        if (start < 0) {
+            return jdbcUrl;
+        }
+        String rest = jdbcUrl.substring(start + 2);
+        int end = rest.indexOf('/');
+        String hostPort = end < 0 ? rest : rest.substring(0, end);
+        return hostPort.contains(":") ? hostPort : hostPort + ":5432";
+    }
+}
@@ -0,0 +1,28 @@
+package Utilities;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.testng.xml.XmlClass;
+import org.testng.xml.XmlSuite;
+import org.testng.xml.XmlTest;
+
+public class EnvironmentHealthTest {
+
+    private static XmlSuite suite(String... classNames) {
+        XmlSuite suite = new XmlSuite();
+        XmlTest test = new XmlTest(suite);
+        for (String name : classNames) {
+            test.getXmlClasses().add(new XmlClass(name));
+        }
+        return suite;
+    }
+
+    @Test
+    public void breakersAreOnlyArmedForSuitesThatRunFlows() {
+        Assert.assertTrue(EnvironmentHealth.runsFlows(suite("TestCases.MyAccount", "Utilities.StepLatencyGate")));
+        Assert.assertFalse(EnvironmentHealth.runsFlows(suite("Utilities.StepLatencyGate")),
+            "The latency gate alone needs no UAT");
+        Assert.assertFalse(EnvironmentHealth.runsFlows(suite("Utilities.ParallelSuiteListenerTest", "Utilities.DurationSchedulerTest")),
+            "The framework suite must never probe UAT");
+    }
+}
@@ -0,0 +1,214 @@
+package Utilities;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.OutputType;
+import org.openqa.selenium.TakesScreenshot;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chrome.ChromeDriver;
+import org.openqa.selenium.json.Json;
+
+/*
+    What the browser showed when a flow step failed, so a failure can be diagnosed without re-running it.
+
+    On the failing thread capture() only collects: a PNG screenshot and, in one script call, the URL,
+    title, document outerHTML and the page's recent console messages (scripts/console-log.js, installed
+    in every browser by DriverPool), plus the step's recent XHR/fetch calls from NetworkCapture. Writing
+    happens on a single background thread: artifacts.dir/<time>-<Flow.step>/ gets screenshot.png,
+    dom.html.gz, console.json.gz, network.json.gz and error.txt. After each write the oldest failure
+    directories are deleted until the total is under artifacts.maxMb.
+
+    The directory is linked from the TestNG report (Reporter output of the failed method).
+    Disable with -Dartifacts.enabled=false.
+*/
+public final class FailureArtifacts {
+
+    private static final String PAGE_STATE = "return {url: location.href, title: document.title,"
+        + " html: document.documentElement ? document.documentElement.outerHTML : '', console: window.__console || []};";
+    private static final DateTimeFormatter TIME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS");
+    private static final ExecutorService WRITER = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "failure-artifacts");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private FailureArtifacts() {
+    }
+
+    public static boolean enabled() {
+        return Config.getBoolean("artifacts.enabled", true);
+    }
+
+    // Registers the console buffer for every future document in this browser. Called once per browser.
+    public static void install(WebDriver driver) {
+        if (driver instanceof ChromeDriver) {
+            Map<String, Object> params = new HashMap<>();
+            params.put("source", Scripts.load("console-log.js"));
+            ((ChromeDriver) driver).executeCdpCommand("Page.addScriptToEvaluateOnNewDocument", params);
+        }
+    }
+
+    // Collects the browser state for the failed step and queues it for writing; returns the directory it goes to.
+    public static Path capture(WebDriver driver, String stepKey, Throwable failure) {
+        Path dir = Paths.get(Config.get("artifacts.dir", "target/failure-artifacts"))
+            .resolve(LocalDateTime.now().format(TIME) + "-" + stepKey.replaceAll("[^A-Za-z0-9._-]", "_"));
+        Capture capture = collect(driver, stepKey, failure);
+        long maxBytes = Config.getLong("artifacts.maxMb", 200) * 1024 * 1024;
+        WRITER.execute(() -> {
+            try {
+                write(dir, capture);
+                prune(dir.getParent(), maxBytes);
+            } catch (IOException e) {
+                RunLog.info("Could not write failure artifacts to " + dir + ": " + e.getMessage());
+            }
+        });
+        return dir;
+    }
+
+    // The part that needs the browser, done on the failing thread.
+    static Capture collect(WebDriver driver, String stepKey, Throwable failure) {
+        Capture capture = new Capture(stepKey, failure);
+        try {
+            capture.screenshot = ((TakesScreenshot) driver).getScreenshotAs(OutputType.BYTES);
+        } catch (RuntimeException e) {
+            capture.problems.add("screenshot: " + e.getMessage());
+        }
+        try {
+            capture.page = asMap(((JavascriptExecutor) driver).executeScript(PAGE_STATE));
+        } catch (RuntimeException e) {
+            capture.problems.add("page state: " + e.getMessage());
+        }
+        capture.network = NetworkCapture.recent(driver, stepKey, Config.getInt("artifacts.networkCalls", 50));
+        return capture;
+    }
+
+    // Waits for the artifacts queued so far to be written. Called when a suite ends; the writer stays up
+    // for later suites in the same JVM.
+    public static void flush() {
+        // The writer is a single thread, so once this no-op has run everything queued before it is written.
+        Future<?> drained = WRITER.submit(() -> { });
+        try {
+            drained.get(30, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            RunLog.info("Failure artifacts still being written after 30s; some may be incomplete.");
+        } catch (ExecutionException e) {
+            // A no-op cannot fail.
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    static void write(Path dir, Capture capture) throws IOException {
+        Files.createDirectories(dir);
+        Json json = new Json();
+        StringBuilder error = new StringBuilder(capture.stepKey).append('\n');
+        if (capture.page.get("url") != null) {
+            error.append("URL: ").append(capture.page.get("url")).append("\nTitle: ").append(capture.page.get("title")).append('\n');
+        }
+        capture.problems.forEach(problem -> error.append("Not captured: ").append(problem).append('\n'));
+        if (capture.failure != null) {
+            error.append('\n').append(stackTrace(capture.failure));
+        }
+        Files.write(dir.resolve("error.txt"), error.toString().getBytes(StandardCharsets.UTF_8));
+        if (capture.screenshot != null) {
+            Files.write(dir.resolve("screenshot.png"), capture.screenshot);
+        }
+        if (capture.page.get("html") != null) {
+            gzip(dir.resolve("dom.html.gz"), String.valueOf(capture.page.get("html")));
+        }
+        gzip(dir.resolve("console.json.gz"), json.toJson(capture.page.getOrDefault("console", Collections.emptyList())));
+        gzip(dir.resolve("network.json.gz"), json.toJson(capture.network));
+    }
+
+    // Deletes the oldest failure directories under root until their total size is at most maxBytes.
+    static void prune(Path root, long maxBytes) throws IOException {
+        List<Path> dirs = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(root, Files::isDirectory)) {
+            stream.forEach(dirs::add);
+        }
+        // Names start with the capture time, so name order is age order.
+        dirs.sort(Comparator.comparing(Path::getFileName));
+        Map<Path, Long> sizes = new LinkedHashMap<>();
+        long total = 0;
+        for (Path dir : dirs) {
+            long size = size(dir);
+            sizes.put(dir, size);
+            total += size;
+        }
+        for (Map.Entry<Path, Long> entry : sizes.entrySet()) {
+            if (total <= maxBytes) {
+                break;
+            }
+            try (Stream<Path> files = Files.walk(entry.getKey())) {
+                for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                    Files.deleteIfExists(file);
+                }
+            }
+            total -= entry.getValue();
+        }
+    }
+
+    private static long size(Path dir) throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            return files.filter(Files::isRegularFile).mapToLong(file -> file.toFile().length()).sum();
+        }
+    }
+
+    private static void gzip(Path file, String content) throws IOException {
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(file))) {
+            out.write(content.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private static String stackTrace(Throwable failure) {
+        StringWriter text = new StringWriter();
+        failure.printStackTrace(new PrintWriter(text));
+        return text.toString();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> asMap(Object value) {
+        return value instanceof Map ? (Map<String, Object>) value : Collections.emptyMap();
+    }
+
+    // What was collected on the failing thread, handed to the writer.
+    static final class Capture {
+        final String stepKey;
+        final Throwable failure;
+        final List<String> problems = new ArrayList<>();
+        byte[] screenshot;
+        Map<String, Object> page = Collections.emptyMap();
+        List<Map<String, Object>> network = Collections.emptyList();
+
+        Capture(String stepKey, Throwable failure) {
+            this.stepKey = stepKey;
+            this.failure = failure;
+        }
+    }
+}
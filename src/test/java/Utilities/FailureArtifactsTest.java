@@ -0,0 +1,53 @@
+package Utilities;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class FailureArtifactsTest {
+
+    private static String gunzip(Path file) throws Exception {
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(file))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    @Test
+    public void failingPageIsCapturedWithItsConsole() throws Exception {
+        Path dir = Files.createTempDirectory("artifacts").resolve("Flow.step");
+        try (StubBrowser browser = StubBrowser.start()) {
+            FailureArtifacts.install(browser.rawDriver());
+            browser.driver().get(StubBrowser.pageUrl("kyc.html") + "?popup=none");
+            ((JavascriptExecutor) browser.driver()).executeScript("console.error('offer list failed to load');");
+
+            FailureArtifacts.write(dir, FailureArtifacts.collect(browser.rawDriver(), "Flow.step", new AssertionError("FAILED [Flow]: boom")));
+        }
+
+        Assert.assertTrue(Files.size(dir.resolve("screenshot.png")) > 0);
+        Assert.assertTrue(gunzip(dir.resolve("dom.html.gz")).contains("sidebar"));
+        Assert.assertTrue(gunzip(dir.resolve("console.json.gz")).contains("offer list failed to load"));
+        String error = new String(Files.readAllBytes(dir.resolve("error.txt")), StandardCharsets.UTF_8);
+        Assert.assertTrue(error.contains("kyc.html") && error.contains("FAILED [Flow]: boom"), error);
+    }
+
+    @Test
+    public void oldestFailuresArePrunedOverTheCap() throws Exception {
+        Path root = Files.createTempDirectory("artifacts");
+        for (String name : new String[] {"20260101-100000-000-A.one", "20260101-110000-000-B.two", "20260101-120000-000-C.three"}) {
+            Files.createDirectories(root.resolve(name));
+            Files.write(root.resolve(name).resolve("screenshot.png"), new byte[1000]);
+        }
+
+        FailureArtifacts.prune(root, 2500);
+
+        Assert.assertFalse(Files.exists(root.resolve("20260101-100000-000-A.one")), "Oldest goes first");
+        Assert.assertTrue(Files.exists(root.resolve("20260101-110000-000-B.two")));
+        Assert.assertTrue(Files.exists(root.resolve("20260101-120000-000-C.three")));
+    }
+}
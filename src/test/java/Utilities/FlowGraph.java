@@ -0,0 +1,91 @@
+package Utilities;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.testng.annotations.Test;
+
+/*
+    The @Test steps of a flow class as a graph: steps in run order (priority, then name) with their
+    dependsOnMethods edges. The login prefix is the entry step (it opens the app) followed by the
+    unbroken run of @LoginStep steps - the part a restored or handed-over session does not repeat.
+*/
+public final class FlowGraph {
+
+    private final Class<?> flow;
+    private final List<String> steps = new ArrayList<>();
+    private final Map<String, List<String>> dependsOn = new LinkedHashMap<>();
+    private final List<String> loginPrefix = new ArrayList<>();
+
+    public FlowGraph(Class<?> flow) {
+        this.flow = flow;
+        List<Method> methods = new ArrayList<>();
+        for (Method method : flow.getMethods()) {
+            if (method.isAnnotationPresent(Test.class)) {
+                methods.add(method);
+            }
+        }
+        methods.sort(Comparator.comparingInt((Method m) -> m.getAnnotation(Test.class).priority())
+            .thenComparing(Method::getName));
+        for (Method method : methods) {
+            steps.add(method.getName());
+            dependsOn.put(method.getName(), Arrays.asList(method.getAnnotation(Test.class).dependsOnMethods()));
+        }
+        for (int i = 0; i < methods.size(); i++) {
+            if (i > 0 && !methods.get(i).isAnnotationPresent(LoginStep.class)) {
+                break;
+            }
+            loginPrefix.add(methods.get(i).getName());
+        }
+        // A flow without any login step has nothing to share.
+        if (loginPrefix.size() == 1 && !methods.get(0).isAnnotationPresent(LoginStep.class)) {
+            loginPrefix.clear();
+        }
+    }
+
+    public Class<?> flow() {
+        return flow;
+    }
+
+    public List<String> steps() {
+        return Collections.unmodifiableList(steps);
+    }
+
+    public List<String> dependsOn(String step) {
+        return dependsOn.getOrDefault(step, Collections.emptyList());
+    }
+
+    public List<String> loginPrefix() {
+        return Collections.unmodifiableList(loginPrefix);
+    }
+
+    // Steps after the login prefix: what still runs when the flow starts logged in.
+    public List<String> suffix() {
+        return Collections.unmodifiableList(steps.subList(loginPrefix.size(), steps.size()));
+    }
+
+    // Longest run of step names every graph starts with.
+    public static List<String> commonPrefix(List<FlowGraph> graphs) {
+        List<String> common = new ArrayList<>();
+        if (graphs.isEmpty()) {
+            return common;
+        }
+        List<String> first = graphs.get(0).steps;
+        for (int i = 0; i < first.size(); i++) {
+            String step = first.get(i);
+            for (FlowGraph graph : graphs) {
+                if (graph.steps.size() <= i || !graph.steps.get(i).equals(step)) {
+                    return common;
+                }
+            }
+            common.add(step);
+        }
+        return common;
+    }
+}
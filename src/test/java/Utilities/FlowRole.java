@@ -0,0 +1,13 @@
+package Utilities;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Account role a BaseFlow class logs in with; flows of the same role can share one login (SharedPrefixScheduler).
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface FlowRole {
+    AccountRole value();
+}
@@ -0,0 +1,23 @@
+package Utilities;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Stand-in for common.user_mstr when no database is available (framework tests, dry runs).
+public class InMemoryLoginStateStore implements LoginStateStore {
+
+    private final Map<String, Boolean> loggedIn = new ConcurrentHashMap<>();
+
+    public void markLoggedIn(String mobileNumber) {
+        loggedIn.put(mobileNumber, Boolean.TRUE);
+    }
+
+    public boolean isLoggedIn(String mobileNumber) {
+        return loggedIn.getOrDefault(mobileNumber, Boolean.FALSE);
+    }
+
+    @Override
+    public void resetLoggedIn(String mobileNumber) {
+        loggedIn.put(mobileNumber, Boolean.FALSE);
+    }
+}
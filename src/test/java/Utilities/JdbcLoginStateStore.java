@@ -0,0 +1,21 @@
+package Utilities;
+
+// Clears common.user_mstr.is_logged_in in the UAT Postgres (or whatever db.url points at).
+public class JdbcLoginStateStore implements LoginStateStore {
+
+    private final DbClient db;
+
+    public JdbcLoginStateStore(DbClient db) {
+        this.db = db;
+    }
+
+    @Override
+    public void resetLoggedIn(String mobileNumber) throws Exception {
+        int rows = db.resetLoggedIn(mobileNumber);
+        if (rows > 0) {
+            RunLog.info("is_logged_in reset in DB for mobile: " + mobileNumber);
+        } else {
+            RunLog.info("No row updated for mobile: " + mobileNumber);
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package Utilities;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/*
+    Shape of a load run (see LoadRunner): how many virtual users, which flows they pick, and when
+    each user is active.
+
+        load.users               concurrent virtual users at full load (default 2)
+        load.mix                 weighted flows, "<class in TestCases>:<weight>,..."
+        load.rampUpSeconds       users start evenly spread over this period
+        load.holdSeconds         all users active
+        load.rampDownSeconds     users stop starting new flows one by one over this period
+
+    A user that is stopped finishes the flow it is in, so the last flows can end after the planned end.
+*/
+public final class LoadPlan {
+
+    private final int users;
+    private final Map<String, Integer> mix;
+    private final long rampUpMillis;
+    private final long holdMillis;
+    private final long rampDownMillis;
+    private final int totalWeight;
+
+    public LoadPlan(int users, Map<String, Integer> mix, long rampUpMillis, long holdMillis, long rampDownMillis) {
+        if (users < 1) {
+            throw new IllegalArgumentException("A load run needs at least one user, got " + users);
+        }
+        if (mix.isEmpty()) {
+            throw new IllegalArgumentException("The flow mix is empty");
+        }
+        this.users = users;
+        this.mix = Collections.unmodifiableMap(new LinkedHashMap<>(mix));
+        this.rampUpMillis = Math.max(0, rampUpMillis);
+        this.holdMillis = Math.max(0, holdMillis);
+        this.rampDownMillis = Math.max(0, rampDownMillis);
+        this.totalWeight = mix.values().stream().mapToInt(Integer::intValue).sum();
+    }
+
+    public static LoadPlan fromConfig() {
+        return new LoadPlan(
+            Config.getInt("load.users", 2),
+            parseMix(Config.get("load.mix", "View_Market_Offer:4,Own_CDSell:2,Own_CDUtilize:2,OfferCancel:1")),
+            Config.getLong("load.rampUpSeconds", 30) * 1000,
+            Config.getLong("load.holdSeconds", 120) * 1000,
+            Config.getLong("load.rampDownSeconds", 30) * 1000);
+    }
+
+    // "A:3, B:1, C" -> {A=3, B=1, C=1}; zero weights drop the flow.
+    static Map<String, Integer> parseMix(String value) {
+        Map<String, Integer> mix = new LinkedHashMap<>();
+        for (String part : value.split(",")) {
+            String entry = part.trim();
+            if (entry.isEmpty()) {
+                continue;
+            }
+            int colon = entry.indexOf(':');
+            String flow = colon < 0 ? entry : entry.substring(0, colon).trim();
+            int weight;
+            try {
+                weight = colon < 0 ? 1 : Integer.parseInt(entry.substring(colon + 1).trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Bad weight in load.mix entry '" + entry + "'");
+            }
+            if (weight < 0) {
+                throw new IllegalArgumentException("Negative weight in load.mix entry '" + entry + "'");
+            }
+            if (weight > 0) {
+                mix.merge(flow, weight, Integer::sum);
+            }
+        }
+        return mix;
+    }
+
+    public int users() {
+        return users;
+    }
+
+    public Map<String, Integer> mix() {
+        return mix;
+    }
+
+    // When user number vu (0-based) starts, relative to the start of the run.
+    public long startOffsetMillis(int vu) {
+        return rampUpMillis * vu / users;
+    }
+
+    // When user vu stops starting new flows: the last user to start is the first to leave.
+    public long stopOffsetMillis(int vu) {
+        return rampUpMillis + holdMillis + rampDownMillis * (users - vu) / users;
+    }
+
+    public long holdStartMillis() {
+        return rampUpMillis;
+    }
+
+    public long holdEndMillis() {
+        return rampUpMillis + holdMillis;
+    }
+
+    public long durationMillis() {
+        return rampUpMillis + holdMillis + rampDownMillis;
+    }
+
+    // Weighted random pick from the mix.
+    public String pick(Random random) {
+        int ticket = random.nextInt(totalWeight);
+        for (Map.Entry<String, Integer> entry : mix.entrySet()) {
+            ticket -= entry.getValue();
+            if (ticket < 0) {
+                return entry.getKey();
+            }
+        }
+        throw new IllegalStateException("Unreachable: weights sum to " + totalWeight);
+    }
+
+    // Active users at a moment of the run, for the report's timeline.
+    public int activeUsers(long offsetMillis) {
+        int active = 0;
+        for (int vu = 0; vu < users; vu++) {
+            if (offsetMillis >= startOffsetMillis(vu) && offsetMillis < stopOffsetMillis(vu)) {
+                active++;
+            }
+        }
+        return active;
+    }
+
+    @Override
+    public String toString() {
+        List<String> flows = new ArrayList<>();
+        mix.forEach((flow, weight) -> flows.add(flow + ":" + weight));
+        return users + " users, ramp-up " + rampUpMillis / 1000 + "s / hold " + holdMillis / 1000 + "s / ramp-down "
+            + rampDownMillis / 1000 + "s, mix " + String.join(",", flows);
+    }
+}
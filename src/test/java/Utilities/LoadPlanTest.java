@@ -0,0 +1,58 @@
+package Utilities;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class LoadPlanTest {
+
+    @Test
+    public void mixIsParsedWithDefaultWeightOfOne() {
+        Map<String, Integer> mix = LoadPlan.parseMix(" View_Market_Offer:4, Own_CDSell ,OfferCancel:0, Own_CDSell:2");
+        Map<String, Integer> expected = new LinkedHashMap<>();
+        expected.put("View_Market_Offer", 4);
+        expected.put("Own_CDSell", 3);
+        Assert.assertEquals(mix, expected);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void badWeightIsRejected() {
+        LoadPlan.parseMix("View_Market_Offer:lots");
+    }
+
+    @Test
+    public void usersRampUpHoldAndLeaveInReverseOrder() {
+        Map<String, Integer> mix = new HashMap<>();
+        mix.put("Own_CDSell", 1);
+        LoadPlan plan = new LoadPlan(4, mix, 40_000, 60_000, 20_000);
+
+        Assert.assertEquals(plan.startOffsetMillis(0), 0);
+        Assert.assertEquals(plan.startOffsetMillis(3), 30_000);
+        Assert.assertEquals(plan.stopOffsetMillis(3), 105_000, "Last user in is the first out");
+        Assert.assertEquals(plan.stopOffsetMillis(0), 120_000);
+        Assert.assertEquals(plan.activeUsers(5_000), 1);
+        Assert.assertEquals(plan.activeUsers(50_000), 4);
+        Assert.assertEquals(plan.activeUsers(110_000), 2);
+        Assert.assertEquals(plan.activeUsers(120_000), 0);
+    }
+
+    @Test
+    public void picksFollowTheWeights() {
+        Map<String, Integer> mix = new LinkedHashMap<>();
+        mix.put("View_Market_Offer", 3);
+        mix.put("OfferCancel", 1);
+        LoadPlan plan = new LoadPlan(1, mix, 0, 0, 0);
+        Random random = new Random(7);
+        int buyer = 0;
+        for (int i = 0; i < 4000; i++) {
+            if ("View_Market_Offer".equals(plan.pick(random))) {
+                buyer++;
+            }
+        }
+        Assert.assertEquals(buyer / 4000.0, 0.75, 0.03);
+    }
+}
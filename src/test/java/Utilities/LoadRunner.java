@@ -0,0 +1,289 @@
+package Utilities;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.HdrHistogram.Histogram;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+/*
+    Load mode: N browser-based virtual users run the UI flows of TestCases concurrently, following a
+    LoadPlan (users, weighted flow mix, ramp-up / hold / ramp-down). Run it with testng-load.xml:
+
+        mvn test -Dsurefire.suiteXmlFiles=src/test/resources/testng-load.xml -Dload.users=4
+
+    Each virtual user loops: pick a flow from the mix, run it start to finish (setup, the @Test steps
+    in priority order, teardown), repeat until its stop time. A flow stops at its first failing step,
+    like dependsOnMethods in the suite; login steps are passed over when a cached session was restored.
+    Steps run under StepContext, so waits, commands, network and page metrics are attributed as usual.
+
+    Reported at the end (and written to profiler.outputDir as load-report.txt / load-steps.json):
+    completed flows per minute overall and during the hold phase, per-flow pass/fail counts and
+    per-step latency percentiles. The run fails when more than load.maxErrorPct (default 5) of the
+    flows failed.
+
+    With -Dload.stubApp=true (default) the users run against the local stub app (StubServer, stub/app.html)
+    instead of UAT: OTPs come from the stub, accounts are generated per user, and no database is used.
+    Page budgets only report in load mode unless -Dperf.budgets.enforce=true is given. Step outcomes go to
+    the RunLog file (runlog.file) only.
+*/
+public class LoadRunner {
+
+    private final Map<String, Histogram> stepLatency = new ConcurrentHashMap<>();
+    private final List<Completion> completions = new CopyOnWriteArrayList<>();
+    private StubServer stubApp;
+    private LoadPlan plan;
+
+    @BeforeClass
+    public void prepare() throws IOException {
+        plan = LoadPlan.fromConfig();
+        setDefault("driver.pool.size", String.valueOf(plan.users()));
+        setDefault("perf.budgets.enforce", "false");
+        // Virtual users repeat the flows from the start; a checkpoint of one user is no use to another.
+        setDefault("checkpoint.enabled", "false");
+        // Thousands of step events; keep them in the run log file only.
+        setDefault("runlog.console", "false");
+        if (Config.getBoolean("load.stubApp", true)) {
+            stubApp = StubServer.start();
+            System.setProperty("app.url", stubApp.url("/stub/app.html?delay=" + Config.getInt("load.stubApiDelayMs", 150)));
+            System.setProperty("app.backend", "stub");
+            setDefault("session.cache", "false");
+            for (AccountRole role : AccountRole.values()) {
+                List<String> accounts = new ArrayList<>();
+                for (int vu = 0; vu < plan.users(); vu++) {
+                    accounts.add(String.format("7%d%08d", role.ordinal(), vu + 1));
+                }
+                System.setProperty("accounts." + role.name().toLowerCase(), String.join(",", accounts));
+            }
+        }
+        int capacity = BrowserCapacity.maxConcurrentBrowsers();
+        if (plan.users() > capacity) {
+            System.out.println("WARNING: " + plan.users() + " virtual users but this host fits about " + capacity
+                + " browsers; latencies will include client-side contention.");
+        }
+        System.out.println("***************  Load run: " + plan + (stubApp != null ? ", against the stub app" : ", against " + Config.get("app.url", "")) + "  ***************");
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void stopStubApp() {
+        RunLog.close();
+        if (stubApp != null) {
+            stubApp.close();
+        }
+    }
+
+    @Test
+    public void runLoad() throws InterruptedException {
+        long begin = System.currentTimeMillis();
+        List<Thread> users = new ArrayList<>();
+        for (int vu = 0; vu < plan.users(); vu++) {
+            int id = vu;
+            Thread user = new Thread(() -> virtualUser(id, begin), "vu-" + (vu + 1));
+            users.add(user);
+            user.start();
+        }
+        for (Thread user : users) {
+            user.join();
+        }
+        long elapsed = System.currentTimeMillis() - begin;
+
+        String report = report(elapsed);
+        System.out.println(report);
+        export(report);
+
+        long failed = completions.stream().filter(c -> c.error != null).count();
+        double maxErrorPct = Config.getInt("load.maxErrorPct", 5);
+        Assert.assertFalse(completions.isEmpty(), "FAILED [Load]: no flow completed during the run");
+        Assert.assertTrue(failed * 100.0 / completions.size() <= maxErrorPct, "FAILED [Load]: " + failed + " of "
+            + completions.size() + " flows failed (allowed " + maxErrorPct + "%). First error: " + firstError());
+    }
+
+    private void virtualUser(int vu, long begin) {
+        Random random = new Random(Config.getLong("load.seed", 42) + vu);
+        sleepUntil(begin + plan.startOffsetMillis(vu));
+        long stopAt = begin + plan.stopOffsetMillis(vu);
+        while (System.currentTimeMillis() < stopAt) {
+            String flow = plan.pick(random);
+            long started = System.currentTimeMillis();
+            String error = runFlow(flow);
+            completions.add(new Completion(flow, started - begin, System.currentTimeMillis() - begin, error));
+            if (error != null) {
+                RunLog.info("[vu-" + (vu + 1) + "] " + flow + " failed: " + error);
+                // Back off a little so a broken environment does not turn into a tight failure loop.
+                sleepUntil(System.currentTimeMillis() + 1000);
+            }
+        }
+    }
+
+    // One complete pass through a flow class; returns null when every step passed, else the first failure.
+    String runFlow(String flowName) {
+        Object flow;
+        List<Method> steps = new ArrayList<>();
+        List<Method> setup = new ArrayList<>();
+        List<Method> teardown = new ArrayList<>();
+        try {
+            Class<?> flowClass = Class.forName("TestCases." + flowName);
+            flow = flowClass.getDeclaredConstructor().newInstance();
+            for (Method method : flowClass.getMethods()) {
+                if (method.isAnnotationPresent(Test.class)) {
+                    steps.add(method);
+                } else if (method.isAnnotationPresent(BeforeClass.class)) {
+                    setup.add(method);
+                } else if (method.isAnnotationPresent(AfterClass.class)) {
+                    teardown.add(method);
+                }
+            }
+        } catch (ReflectiveOperationException e) {
+            return "cannot start " + flowName + ": " + e;
+        }
+        steps.sort(Comparator.comparingInt((Method m) -> m.getAnnotation(Test.class).priority())
+            .thenComparing(Method::getName));
+        try {
+            for (Method method : setup) {
+                String error = invoke(flowName, flow, method, false);
+                if (error != null) {
+                    return error;
+                }
+            }
+            for (Method method : steps) {
+                if (flow instanceof BaseFlow && ((BaseFlow) flow).sessionRestored && method.isAnnotationPresent(LoginStep.class)) {
+                    continue;
+                }
+                String error = invoke(flowName, flow, method, true);
+                if (error != null) {
+                    return error;
+                }
+            }
+            return null;
+        } finally {
+            for (Method method : teardown) {
+                invoke(flowName, flow, method, false);
+            }
+        }
+    }
+
+    private String invoke(String flowName, Object flow, Method method, boolean timed) {
+        StepContext.begin(flowName, method.getName());
+        if (flow instanceof BaseFlow) {
+            ((BaseFlow) flow).networkStep(StepContext.key());
+        }
+        long started = System.nanoTime();
+        try {
+            method.invoke(flow);
+            if (timed) {
+                long elapsed = System.nanoTime() - started;
+                stepLatency.computeIfAbsent(StepContext.key(), k -> StepLatency.newHistogram())
+                    .recordValue(Math.max(1, TimeUnit.NANOSECONDS.toMicros(elapsed)));
+                RunLog.outcome("pass", elapsed, null);
+            }
+            return null;
+        } catch (InvocationTargetException e) {
+            RunLog.outcome("fail", System.nanoTime() - started, String.valueOf(e.getCause()));
+            return method.getName() + ": " + e.getCause();
+        } catch (IllegalAccessException e) {
+            return method.getName() + ": " + e;
+        } finally {
+            if (flow instanceof BaseFlow) {
+                ((BaseFlow) flow).networkStep(null);
+            }
+            StepContext.end();
+        }
+    }
+
+    // === Report ===
+
+    String report(long elapsedMillis) {
+        StringBuilder sb = new StringBuilder("Load run: " + plan + "\n");
+        long passed = completions.stream().filter(c -> c.error == null).count();
+        long inHold = completions.stream()
+            .filter(c -> c.error == null && c.endMillis >= plan.holdStartMillis() && c.endMillis < plan.holdEndMillis()).count();
+        double holdMinutes = (plan.holdEndMillis() - plan.holdStartMillis()) / 60_000.0;
+        sb.append(String.format("Completed flows: %d passed, %d failed in %.1f min%n", passed, completions.size() - passed, elapsedMillis / 60_000.0));
+        sb.append(String.format("Throughput: %.2f flows/min overall, %s during hold (%d users)%n",
+            passed / Math.max(elapsedMillis / 60_000.0, 1e-9),
+            holdMinutes > 0 ? String.format("%.2f flows/min", inHold / holdMinutes) : "n/a", plan.users()));
+
+        sb.append(String.format("%n%-22s %7s %7s %12s%n", "flow", "passed", "failed", "avg sec"));
+        Map<String, List<Completion>> byFlow = new TreeMap<>();
+        completions.forEach(c -> byFlow.computeIfAbsent(c.flow, k -> new ArrayList<>()).add(c));
+        for (Map.Entry<String, List<Completion>> entry : byFlow.entrySet()) {
+            List<Completion> runs = entry.getValue();
+            long ok = runs.stream().filter(c -> c.error == null).count();
+            double avg = runs.stream().filter(c -> c.error == null).mapToLong(c -> c.endMillis - c.startMillis).average().orElse(0) / 1000.0;
+            sb.append(String.format("%-22s %7d %7d %12.1f%n", entry.getKey(), ok, runs.size() - ok, avg));
+        }
+
+        sb.append(String.format("%nCompleted flows per minute of the run (active users at the start of the minute):%n"));
+        for (long minute = 0; minute * 60_000 < elapsedMillis; minute++) {
+            long from = minute * 60_000;
+            long count = completions.stream().filter(c -> c.error == null && c.endMillis >= from && c.endMillis < from + 60_000).count();
+            sb.append(String.format("  min %3d  users %3d  flows %4d%n", minute + 1, plan.activeUsers(from), count));
+        }
+
+        sb.append(String.format("%nStep latency under load:%n")).append(StepLatency.report(stepLatency));
+        return sb.toString();
+    }
+
+    private void export(String report) {
+        Path dir = Paths.get(Config.get("profiler.outputDir", "target/perf"));
+        try {
+            Files.createDirectories(dir);
+            Files.write(dir.resolve("load-report.txt"), report.getBytes(StandardCharsets.UTF_8));
+            StepLatency.write(dir.resolve("load-steps.json"), stepLatency);
+        } catch (IOException e) {
+            RunLog.info("Could not write load report to " + dir + ": " + e.getMessage());
+        }
+    }
+
+    private String firstError() {
+        return completions.stream().filter(c -> c.error != null).map(c -> c.flow + " " + c.error).findFirst().orElse("-");
+    }
+
+    private static void setDefault(String key, String value) {
+        if (System.getProperty(key) == null) {
+            System.setProperty(key, value);
+        }
+    }
+
+    private static void sleepUntil(long epochMillis) {
+        long remaining = epochMillis - System.currentTimeMillis();
+        if (remaining > 0) {
+            try {
+                Thread.sleep(remaining);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static final class Completion {
+        final String flow;
+        final long startMillis;
+        final long endMillis;
+        final String error;
+
+        Completion(String flow, long startMillis, long endMillis, String error) {
+            this.flow = flow;
+            this.startMillis = startMillis;
+            this.endMillis = endMillis;
+            this.error = error;
+        }
+    }
+}
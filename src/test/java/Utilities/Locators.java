@@ -0,0 +1,58 @@
+package Utilities;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.json.Json;
+
+// Translates Selenium locators into the (strategy, value) pair the in-page wait scripts understand.
+public final class Locators {
+
+    private Locators() {
+    }
+
+    public static String[] toScriptLocator(By locator) {
+        if (locator instanceof By.Remotable) {
+            By.Remotable.Parameters params = ((By.Remotable) locator).getRemoteParameters();
+            String using = params.using();
+            String value = String.valueOf(params.value());
+            if ("css selector".equals(using) || "xpath".equals(using) || "tag name".equals(using)) {
+                return new String[] {using, value};
+            }
+            if ("id".equals(using) || "name".equals(using)) {
+                return new String[] {"css selector", "[" + using + "=\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"]"};
+            }
+            if ("class name".equals(using)) {
+                return new String[] {"xpath", "//*[contains(concat(' ', normalize-space(@class), ' '), " + xpathLiteral(" " + value + " ") + ")]"};
+            }
+            if ("link text".equals(using)) {
+                return new String[] {"xpath", "//a[normalize-space(.)=" + xpathLiteral(value) + "]"};
+            }
+            if ("partial link text".equals(using)) {
+                return new String[] {"xpath", "//a[contains(normalize-space(.), " + xpathLiteral(value) + ")]"};
+            }
+        }
+        throw new IllegalArgumentException("Locator cannot be evaluated in the page: " + locator);
+    }
+
+    // Several locators as one: the scripts look them up in order and take the matches of all of them.
+    public static String[] anyOf(By... locators) {
+        List<List<String>> pairs = new ArrayList<>();
+        for (By locator : locators) {
+            pairs.add(Arrays.asList(toScriptLocator(locator)));
+        }
+        return new String[] {"any", new Json().toJson(pairs)};
+    }
+
+    private static String xpathLiteral(String text) {
+        if (!text.contains("'")) {
+            return "'" + text + "'";
+        }
+        if (!text.contains("\"")) {
+            return "\"" + text + "\"";
+        }
+        return "concat('" + text.replace("'", "', \"'\", '") + "')";
+    }
+}
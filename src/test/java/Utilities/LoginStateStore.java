@@ -0,0 +1,10 @@
+package Utilities;
+
+/*
+    Where an account's "logged in" flag lives. The app refuses a second login while
+    common.user_mstr.is_logged_in is set, so a returned account lease must clear it.
+*/
+public interface LoginStateStore {
+
+    void resetLoggedIn(String mobileNumber) throws Exception;
+}
@@ -0,0 +1,12 @@
+package Utilities;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Marks a @Test step that belongs to the UI login; BaseFlow skips it when the session was restored from SessionCache.
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface LoginStep {
+}
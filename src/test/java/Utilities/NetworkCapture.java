@@ -0,0 +1,358 @@
+package Utilities;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.devtools.Command;
+import org.openqa.selenium.devtools.DevTools;
+import org.openqa.selenium.devtools.Event;
+import org.openqa.selenium.devtools.HasDevTools;
+import org.openqa.selenium.json.Json;
+
+/*
+    Captures every XHR/fetch a browser issues through the CDP Network domain and ties it to the step
+    that browser was running when the request started. BaseFlow sets each browser's step when the
+    step starts and clears it when it ends, so requests are not credited to whatever the leasing
+    thread does at the time, e.g. a teardown after the browser was handed to the next flow.
+
+    Per request it keeps DNS / connect / TLS / send / TTFB / download times (from the CDP resource
+    timing), total time and request/response sizes. At the end of the run export() writes to
+    profiler.outputDir (default target/perf):
+        network-waterfall.txt   per step, each request as a bar offset from the step's first request
+        network-summary.json    per step: API busy time (union of request intervals) vs the rest of
+                                the step's wall time, i.e. "API latency vs UI latency"
+        network-calls.json      every call with method, URL and body, per step (input for ApiScenario)
+    and prints the summary table.
+
+    Attached to every pooled browser by DriverPool; disable with -Dnetwork.capture=false.
+*/
+public final class NetworkCapture {
+
+    private static final Map<WebDriver, NetworkCapture> BY_DRIVER = new ConcurrentHashMap<>();
+    private static final List<Request> COMPLETED = Collections.synchronizedList(new ArrayList<>());
+
+    private static final String NO_STEP = "(none).(none)";
+
+    private final Map<String, Request> inFlight = new ConcurrentHashMap<>();
+    private final List<Request> completed;
+    private volatile String step = NO_STEP;
+
+    NetworkCapture(List<Request> completed) {
+        this.completed = completed;
+    }
+
+    public static boolean enabled() {
+        return Config.getBoolean("network.capture", true);
+    }
+
+    // Subscribe to the browser's Network events. Failures only disable the capture for this browser.
+    public static void attach(WebDriver driver) {
+        if (!(driver instanceof HasDevTools)) {
+            return;
+        }
+        NetworkCapture capture = new NetworkCapture(COMPLETED);
+        try {
+            capture.listen((HasDevTools) driver);
+            BY_DRIVER.put(driver, capture);
+        } catch (RuntimeException e) {
+            RunLog.info("Network capture unavailable for this browser: " + e.getMessage());
+        }
+    }
+
+    void listen(HasDevTools driver) {
+        DevTools devTools = driver.getDevTools();
+        devTools.createSessionIfThereIsNotOne();
+        devTools.send(new Command<Void>("Network.enable", Collections.emptyMap()));
+        devTools.addListener(event("Network.requestWillBeSent"), this::onRequestWillBeSent);
+        devTools.addListener(event("Network.responseReceived"), this::onResponseReceived);
+        devTools.addListener(event("Network.loadingFinished"), this::onLoadingFinished);
+        devTools.addListener(event("Network.loadingFailed"), this::onLoadingFailed);
+    }
+
+    // Called by DriverPool when a flow takes the browser: forgets the previous flow's requests and step.
+    public static void bind(WebDriver driver) {
+        NetworkCapture capture = BY_DRIVER.get(driver);
+        if (capture != null) {
+            capture.inFlight.clear();
+            capture.enterStep(null);
+        }
+    }
+
+    // Requests the (unwrapped) browser starts from now on belong to "Flow.step"; null between steps.
+    public static void step(WebDriver driver, String stepKey) {
+        NetworkCapture capture = BY_DRIVER.get(driver);
+        if (capture != null) {
+            capture.enterStep(stepKey);
+        }
+    }
+
+    void enterStep(String stepKey) {
+        step = stepKey == null ? NO_STEP : stepKey;
+    }
+
+    public static void detach(WebDriver driver) {
+        BY_DRIVER.remove(driver);
+    }
+
+    public static boolean isEmpty() {
+        return COMPLETED.isEmpty();
+    }
+
+    private static Event<Map<String, Object>> event(String method) {
+        return new Event<>(method, input -> input.read(Json.MAP_TYPE));
+    }
+
+    // === CDP event handling (package-private so it can be fed recorded events in tests) ===
+
+    void onRequestWillBeSent(Map<String, Object> params) {
+        String type = String.valueOf(params.get("type"));
+        if (!"XHR".equals(type) && !"Fetch".equals(type)) {
+            return;
+        }
+        Map<String, Object> request = map(params.get("request"));
+        Request r = new Request();
+        r.step = step;
+        r.method = String.valueOf(request.get("method"));
+        r.url = String.valueOf(request.get("url"));
+        r.startSeconds = number(params.get("timestamp"));
+        Object postData = request.get("postData");
+        r.body = postData == null ? null : String.valueOf(postData);
+        r.requestBytes = r.body == null ? 0 : r.body.getBytes(StandardCharsets.UTF_8).length;
+        inFlight.put(String.valueOf(params.get("requestId")), r);
+    }
+
+    void onResponseReceived(Map<String, Object> params) {
+        Request r = inFlight.get(String.valueOf(params.get("requestId")));
+        if (r == null) {
+            return;
+        }
+        Map<String, Object> response = map(params.get("response"));
+        r.status = (int) number(response.get("status"));
+        Map<String, Object> timing = map(response.get("timing"));
+        if (!timing.isEmpty()) {
+            r.dnsMs = span(timing, "dnsStart", "dnsEnd");
+            r.connectMs = span(timing, "connectStart", "connectEnd");
+            r.sslMs = span(timing, "sslStart", "sslEnd");
+            r.sendMs = span(timing, "sendStart", "sendEnd");
+            r.ttfbMs = span(timing, "sendEnd", "receiveHeadersEnd");
+            r.headersSeconds = number(timing.get("requestTime")) + number(timing.get("receiveHeadersEnd")) / 1000.0;
+        }
+    }
+
+    void onLoadingFinished(Map<String, Object> params) {
+        Request r = inFlight.remove(String.valueOf(params.get("requestId")));
+        if (r != null) {
+            complete(r, number(params.get("timestamp")), (long) number(params.get("encodedDataLength")), null);
+        }
+    }
+
+    void onLoadingFailed(Map<String, Object> params) {
+        Request r = inFlight.remove(String.valueOf(params.get("requestId")));
+        if (r != null) {
+            complete(r, number(params.get("timestamp")), 0, String.valueOf(params.get("errorText")));
+        }
+    }
+
+    private void complete(Request r, double endSeconds, long responseBytes, String error) {
+        r.endSeconds = endSeconds;
+        r.totalMs = (endSeconds - r.startSeconds) * 1000.0;
+        r.downloadMs = r.headersSeconds > 0 ? Math.max(0, (endSeconds - r.headersSeconds) * 1000.0) : 0;
+        r.responseBytes = responseBytes;
+        r.error = error;
+        completed.add(r);
+    }
+
+    // === Reports ===
+
+    private static List<Request> completed() {
+        synchronized (COMPLETED) {
+            return new ArrayList<>(COMPLETED);
+        }
+    }
+
+    static String waterfall(List<Request> requestsOfRun) {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, List<Request>> step : byStep(requestsOfRun).entrySet()) {
+            List<Request> requests = step.getValue();
+            double origin = requests.get(0).startSeconds;
+            double end = requests.stream().mapToDouble(r -> r.endSeconds).max().orElse(origin);
+            double scale = Math.max(1.0, (end - origin) * 1000.0) / 40.0;
+            sb.append(step.getKey()).append('\n');
+            for (Request r : requests) {
+                int offset = (int) Math.round((r.startSeconds - origin) * 1000.0 / scale);
+                int width = Math.max(1, (int) Math.round(r.totalMs / scale));
+                sb.append(String.format("  +%6.0f ms |%-41s| %7.1f ms  dns %.0f conn %.0f tls %.0f ttfb %.0f dl %.0f  %7d B  %s %s %s%n",
+                    (r.startSeconds - origin) * 1000.0, " ".repeat(Math.min(offset, 40)) + "#".repeat(Math.min(width, 41 - Math.min(offset, 40))),
+                    r.totalMs, r.dnsMs, r.connectMs, r.sslMs, r.ttfbMs, r.downloadMs, r.responseBytes,
+                    r.error == null ? r.status : "FAILED(" + r.error + ")", r.method, r.url));
+            }
+        }
+        return sb.toString();
+    }
+
+    static List<Map<String, Object>> summary(List<Request> requestsOfRun) {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (Map.Entry<String, List<Request>> step : byStep(requestsOfRun).entrySet()) {
+            List<Request> requests = step.getValue();
+            double busyMs = busyMillis(requests);
+            long wallMs = CommandProfiler.wallMillis(step.getKey());
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("step", step.getKey());
+            row.put("requests", requests.size());
+            row.put("failed", requests.stream().filter(r -> r.error != null || r.status >= 400).count());
+            row.put("apiBusyMs", Math.round(busyMs));
+            row.put("slowestApiMs", Math.round(requests.stream().mapToDouble(r -> r.totalMs).max().orElse(0)));
+            row.put("slowestTtfbMs", Math.round(requests.stream().mapToDouble(r -> r.ttfbMs).max().orElse(0)));
+            row.put("stepWallMs", wallMs);
+            row.put("uiMs", Math.max(0, wallMs - Math.round(busyMs)));
+            row.put("requestBytes", requests.stream().mapToLong(r -> r.requestBytes).sum());
+            row.put("responseBytes", requests.stream().mapToLong(r -> r.responseBytes).sum());
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    static String summaryTable(List<Map<String, Object>> summary) {
+        StringBuilder sb = new StringBuilder(String.format("%-55s %5s %10s %10s %10s %10s %10s%n",
+            "step", "reqs", "api ms", "slowest", "ttfb max", "wall ms", "ui ms"));
+        for (Map<String, Object> row : summary) {
+            sb.append(String.format("%-55s %5d %10d %10d %10d %10d %10d%n", row.get("step"), row.get("requests"),
+                row.get("apiBusyMs"), row.get("slowestApiMs"), row.get("slowestTtfbMs"), row.get("stepWallMs"), row.get("uiMs")));
+        }
+        return sb.toString();
+    }
+
+    public static void export() {
+        Path dir = Paths.get(Config.get("profiler.outputDir", "target/perf"));
+        List<Request> requests = completed();
+        List<Map<String, Object>> summary = summary(requests);
+        System.out.println("API latency vs UI latency, per step:\n" + summaryTable(summary));
+        try {
+            Files.createDirectories(dir);
+            Files.write(dir.resolve("network-waterfall.txt"), waterfall(requests).getBytes(StandardCharsets.UTF_8));
+            Files.write(dir.resolve("network-summary.json"), new Json().toJson(summary).getBytes(StandardCharsets.UTF_8));
+            Files.write(dir.resolve("network-calls.json"), new Json().toJson(calls(requests)).getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            RunLog.info("Could not write network capture to " + dir + ": " + e.getMessage());
+        }
+    }
+
+    // The step's last calls, oldest first, then what the browser still has in flight: for failure artifacts.
+    static List<Map<String, Object>> recent(WebDriver driver, String stepKey, int limit) {
+        List<Map<String, Object>> recent = new ArrayList<>();
+        List<Request> ofStep = byStep(completed()).getOrDefault(stepKey, Collections.emptyList());
+        for (Request r : ofStep.subList(Math.max(0, ofStep.size() - limit), ofStep.size())) {
+            Map<String, Object> call = new LinkedHashMap<>();
+            call.put("method", r.method);
+            call.put("url", r.url);
+            call.put("status", r.status);
+            call.put("totalMs", Math.round(r.totalMs));
+            call.put("error", r.error);
+            recent.add(call);
+        }
+        NetworkCapture capture = BY_DRIVER.get(driver);
+        if (capture != null) {
+            for (Request r : capture.inFlight.values()) {
+                Map<String, Object> call = new LinkedHashMap<>();
+                call.put("method", r.method);
+                call.put("url", r.url);
+                call.put("status", r.status);
+                call.put("pending", true);
+                recent.add(call);
+            }
+        }
+        return recent;
+    }
+
+    // Every call with its body, in order per step: what ApiScenario replays without a browser.
+    static List<Map<String, Object>> calls(List<Request> requestsOfRun) {
+        List<Map<String, Object>> calls = new ArrayList<>();
+        for (Map.Entry<String, List<Request>> step : byStep(requestsOfRun).entrySet()) {
+            for (Request r : step.getValue()) {
+                Map<String, Object> call = new LinkedHashMap<>();
+                call.put("step", step.getKey());
+                call.put("method", r.method);
+                call.put("url", r.url);
+                call.put("body", r.body);
+                calls.add(call);
+            }
+        }
+        return calls;
+    }
+
+    private static Map<String, List<Request>> byStep(List<Request> requestsOfRun) {
+        Map<String, List<Request>> byStep = new TreeMap<>();
+        for (Request r : requestsOfRun) {
+            byStep.computeIfAbsent(r.step, k -> new ArrayList<>()).add(r);
+        }
+        byStep.values().forEach(list -> list.sort(Comparator.comparingDouble(r -> r.startSeconds)));
+        return byStep;
+    }
+
+    // Wall time during which at least one request was in flight.
+    static double busyMillis(List<Request> sortedByStart) {
+        double busy = 0;
+        double spanStart = -1;
+        double spanEnd = -1;
+        for (Request r : sortedByStart) {
+            if (r.startSeconds > spanEnd) {
+                busy += Math.max(0, spanEnd - spanStart);
+                spanStart = r.startSeconds;
+                spanEnd = r.endSeconds;
+            } else {
+                spanEnd = Math.max(spanEnd, r.endSeconds);
+            }
+        }
+        busy += Math.max(0, spanEnd - spanStart);
+        return busy * 1000.0;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> map(Object value) {
+        return value instanceof Map ? (Map<String, Object>) value : Collections.emptyMap();
+    }
+
+    private static double number(Object value) {
+        return value instanceof Number ? ((Number) value).doubleValue() : 0;
+    }
+
+    // Duration between two resource-timing marks; -1 in CDP means the phase did not happen (e.g. reused connection).
+    private static double span(Map<String, Object> timing, String start, String end) {
+        double from = number(timing.get(start));
+        double to = number(timing.get(end));
+        return from < 0 || to < 0 ? 0 : Math.max(0, to - from);
+    }
+
+    static final class Request {
+        String step;
+        String method;
+        String url;
+        int status;
+        double startSeconds;
+        double headersSeconds;
+        double endSeconds;
+        double dnsMs;
+        double connectMs;
+        double sslMs;
+        double sendMs;
+        double ttfbMs;
+        double downloadMs;
+        double totalMs;
+        String body;
+        long requestBytes;
+        long responseBytes;
+        String error;
+    }
+}
@@ -0,0 +1,183 @@
+package Utilities;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.devtools.HasDevTools;
+import org.openqa.selenium.support.ui.WebDriverWait;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/*
+    Timings and per-step reports are checked on recorded CDP events, so no browser is needed;
+    capturesXhrAndFetchFromStubServer runs the real capture against StubServer and is skipped without Chrome.
+*/
+public class NetworkCaptureTest {
+
+    @Test
+    public void resourceTimingIsSplitIntoPhases() {
+        List<NetworkCapture.Request> requests = new ArrayList<>();
+        NetworkCapture capture = new NetworkCapture(requests);
+        capture.enterStep("NetFlow.load");
+
+        capture.onRequestWillBeSent(sent("1", "XHR", "POST", "{\"page\":1}", 100.000));
+        capture.onResponseReceived(received("1", 100.001, 1, 5, 5, 20, 20, 21, 221));
+        capture.onLoadingFinished(finished("1", 100.300, 4096));
+
+        Assert.assertEquals(requests.size(), 1);
+        NetworkCapture.Request r = requests.get(0);
+        Assert.assertEquals(r.step, "NetFlow.load");
+        Assert.assertEquals(r.status, 200);
+        Assert.assertEquals(r.dnsMs, 4.0, 0.01);
+        Assert.assertEquals(r.connectMs, 15.0, 0.01);
+        Assert.assertEquals(r.sslMs, 0.0, 0.01, "-1 marks mean the phase did not happen");
+        Assert.assertEquals(r.ttfbMs, 200.0, 0.01);
+        Assert.assertEquals(r.downloadMs, 78.0, 0.01);
+        Assert.assertEquals(r.totalMs, 300.0, 0.01);
+        Assert.assertEquals(r.requestBytes, 10);
+        Assert.assertEquals(r.responseBytes, 4096);
+    }
+
+    @Test
+    public void documentsAndScriptsAreIgnoredAndFailuresKept() {
+        List<NetworkCapture.Request> requests = new ArrayList<>();
+        NetworkCapture capture = new NetworkCapture(requests);
+        capture.enterStep("NetFlow.load");
+
+        capture.onRequestWillBeSent(sent("1", "Document", "GET", null, 1.0));
+        capture.onLoadingFinished(finished("1", 1.5, 9000));
+        capture.onRequestWillBeSent(sent("2", "Fetch", "GET", null, 2.0));
+        Map<String, Object> failed = new HashMap<>();
+        failed.put("requestId", "2");
+        failed.put("timestamp", 2.25);
+        failed.put("errorText", "net::ERR_CONNECTION_REFUSED");
+        capture.onLoadingFailed(failed);
+
+        Assert.assertEquals(requests.size(), 1);
+        Assert.assertEquals(requests.get(0).error, "net::ERR_CONNECTION_REFUSED");
+        Assert.assertEquals(requests.get(0).totalMs, 250.0, 0.01);
+    }
+
+    @Test
+    public void apiBusyTimeIsTheUnionOfOverlappingRequests() {
+        List<NetworkCapture.Request> requests = new ArrayList<>();
+        NetworkCapture capture = new NetworkCapture(requests);
+        capture.enterStep("NetFlow.busy");
+        // 0-300 and 100-500 overlap (500 ms busy), 1000-1200 is separate: 700 ms of a 1000 ms step.
+        request(capture, "a", 10.0, 10.3);
+        request(capture, "b", 10.1, 10.5);
+        request(capture, "c", 11.0, 11.2);
+        CommandProfiler.recordStep("NetFlow.busy", 1_000_000_000L);
+
+        Map<String, Object> row = NetworkCapture.summary(requests).get(0);
+        Assert.assertEquals(row.get("step"), "NetFlow.busy");
+        Assert.assertEquals(row.get("requests"), 3);
+        Assert.assertEquals(row.get("apiBusyMs"), 700L);
+        Assert.assertEquals(row.get("slowestApiMs"), 400L);
+        Assert.assertEquals(row.get("uiMs"), 300L);
+
+        String waterfall = NetworkCapture.waterfall(requests);
+        Assert.assertTrue(waterfall.startsWith("NetFlow.busy\n"), waterfall);
+        Assert.assertEquals(waterfall.lines().filter(l -> l.contains("/api/")).count(), 3, waterfall);
+        Assert.assertTrue(waterfall.contains("+  1000 ms"), waterfall);
+    }
+
+    @Test
+    public void requestsBelongToTheStepTheBrowserWasInWhenTheyStarted() {
+        List<NetworkCapture.Request> requests = new ArrayList<>();
+        NetworkCapture capture = new NetworkCapture(requests);
+
+        capture.enterStep("NetFlow.first");
+        capture.onRequestWillBeSent(sent("1", "XHR", "GET", null, 1.0));
+        capture.enterStep(null);
+        capture.onRequestWillBeSent(sent("2", "XHR", "GET", null, 1.1));
+        capture.enterStep("NetFlow.second");
+        capture.onLoadingFinished(finished("1", 1.5, 100));
+        capture.onLoadingFinished(finished("2", 1.5, 100));
+
+        Assert.assertEquals(requests.get(0).step, "NetFlow.first", "Finishing in a later step does not move a request");
+        Assert.assertEquals(requests.get(1).step, "(none).(none)");
+    }
+
+    @Test
+    public void capturesXhrAndFetchFromStubServer() throws Exception {
+        List<NetworkCapture.Request> requests = Collections.synchronizedList(new ArrayList<>());
+        NetworkCapture capture = new NetworkCapture(requests);
+        capture.enterStep("ApiStub.load");
+        try (StubServer server = StubServer.start(); StubBrowser browser = StubBrowser.start()) {
+            capture.listen((HasDevTools) browser.rawDriver());
+            browser.driver().get(server.url("/stub/api.html"));
+            new WebDriverWait(browser.driver(), Duration.ofSeconds(10))
+                .until(d -> Boolean.TRUE.equals(((JavascriptExecutor) d).executeScript("return window.apiDone;")));
+            // CDP events arrive asynchronously; give the last loadingFinished a moment.
+            long deadline = System.currentTimeMillis() + 2000;
+            while (requests.size() < 3 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(50);
+            }
+        }
+
+        Assert.assertEquals(requests.size(), 3, "Expected the two fetches and the XHR");
+        Map<String, Object> row = NetworkCapture.summary(new ArrayList<>(requests)).get(0);
+        System.out.println(NetworkCapture.waterfall(new ArrayList<>(requests)));
+        Assert.assertEquals(row.get("requestBytes"), 10L, "POST body of the XHR");
+        Assert.assertTrue((Long) row.get("responseBytes") >= 4096 + 1024 + 512, row.toString());
+        Assert.assertTrue((Long) row.get("apiBusyMs") >= 500, "XHR and fetch chain overlap: " + row);
+        Assert.assertTrue((Long) row.get("slowestTtfbMs") >= 450, "The 500 ms delay is server time: " + row);
+    }
+
+    private static void request(NetworkCapture capture, String id, double start, double end) {
+        capture.onRequestWillBeSent(sent(id, "XHR", "GET", null, start));
+        capture.onLoadingFinished(finished(id, end, 100));
+    }
+
+    private static Map<String, Object> sent(String id, String type, String method, String postData, double timestamp) {
+        Map<String, Object> request = new HashMap<>();
+        request.put("method", method);
+        request.put("url", "http://127.0.0.1/api/" + id);
+        if (postData != null) {
+            request.put("postData", postData);
+        }
+        Map<String, Object> params = new HashMap<>();
+        params.put("requestId", id);
+        params.put("type", type);
+        params.put("timestamp", timestamp);
+        params.put("request", request);
+        return params;
+    }
+
+    private static Map<String, Object> received(String id, double requestTime, double dnsStart, double dnsEnd,
+                                                double connectStart, double connectEnd, double sendStart,
+                                                double sendEnd, double receiveHeadersEnd) {
+        Map<String, Object> timing = new HashMap<>();
+        timing.put("requestTime", requestTime);
+        timing.put("dnsStart", dnsStart);
+        timing.put("dnsEnd", dnsEnd);
+        timing.put("connectStart", connectStart);
+        timing.put("connectEnd", connectEnd);
+        timing.put("sslStart", -1);
+        timing.put("sslEnd", -1);
+        timing.put("sendStart", sendStart);
+        timing.put("sendEnd", sendEnd);
+        timing.put("receiveHeadersEnd", receiveHeadersEnd);
+        Map<String, Object> response = new HashMap<>();
+        response.put("status", 200);
+        response.put("timing", timing);
+        Map<String, Object> params = new HashMap<>();
+        params.put("requestId", id);
+        params.put("response", response);
+        return params;
+    }
+
+    private static Map<String, Object> finished(String id, double timestamp, long encodedDataLength) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("requestId", id);
+        params.put("timestamp", timestamp);
+        params.put("encodedDataLength", encodedDataLength);
+        return params;
+    }
+}
@@ -0,0 +1,40 @@
+package Utilities;
+
+import java.time.Duration;
+import java.util.Map;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+
+/*
+    Enters an OTP into the PrimeNG p-inputotp boxes with a single async script call
+    (see scripts/otp-entry.js): it waits for the boxes, pastes the code (or dispatches one
+    input event per box if paste is not handled), and returns once the OTP component is gone
+    and Angular is stable. Replaces ~30 per-digit WebDriver calls and 600ms of sleeps.
+    The timeout (otp.entryTimeoutSeconds, default 20) is cut to what is left of the step's time budget.
+*/
+public final class OtpEntry {
+
+    private OtpEntry() {
+    }
+
+    public static void fill(WebDriver driver, String otp) {
+        fill(driver, otp, Duration.ofSeconds(Config.getLong("otp.entryTimeoutSeconds", 20)));
+    }
+
+    @SuppressWarnings("unchecked")
+    public static void fill(WebDriver driver, String otp, Duration timeout) {
+        Duration budgeted = StepBudgets.clamp(timeout);
+        Map<String, Object> result = (Map<String, Object>) ((JavascriptExecutor) driver)
+            .executeAsyncScript(Scripts.load("otp-entry.js"), otp, budgeted.toMillis());
+        String status = String.valueOf(result.get("status"));
+        if ("no-inputs".equals(status)) {
+            throw new IllegalStateException("Expected " + otp.length() + " OTP input boxes, found " + result.get("found"));
+        }
+        if (!"accepted".equals(status)) {
+            throw new IllegalStateException("OTP was entered (" + result.get("method") + ", boxes='" + result.get("values")
+                + "') but the app did not leave the OTP screen within " + budgeted.toMillis() + "ms"
+                + (budgeted.compareTo(timeout) < 0 ? "; cut from " + timeout.toMillis() + "ms: " + StepBudgets.describe() : ""));
+        }
+    }
+}
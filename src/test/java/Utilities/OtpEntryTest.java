@@ -0,0 +1,67 @@
+package Utilities;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.support.ui.ExpectedConditions;
+import org.openqa.selenium.support.ui.WebDriverWait;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+// Guards the batched OTP entry against regressing back to per-digit WebDriver traffic.
+public class OtpEntryTest {
+
+    private StubBrowser browser;
+
+    @BeforeClass
+    public void startBrowser() {
+        browser = StubBrowser.start();
+        browser.driver().manage().timeouts().scriptTimeout(Duration.ofSeconds(30));
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void stopBrowser() {
+        if (browser != null) {
+            browser.close();
+        }
+    }
+
+    @Test
+    public void batchedEntryUsesOneRoundTrip() {
+        browser.driver().get(StubBrowser.pageUrl("otp.html"));
+        browser.resetCommandCount();
+
+        OtpEntry.fill(browser.driver(), "482913", Duration.ofSeconds(10));
+
+        int batched = browser.commandCount();
+        Assert.assertEquals(batched, 1, "OTP entry should be a single async script call");
+        Assert.assertEquals(((JavascriptExecutor) browser.driver()).executeScript("return window.enteredOtp;"), "482913");
+        Assert.assertFalse(browser.driver().findElements(By.id("sidebar")).isEmpty(), "Stub should have moved past the OTP screen");
+    }
+
+    @Test
+    public void perDigitEntryCostsManyRoundTrips() throws InterruptedException {
+        browser.driver().get(StubBrowser.pageUrl("otp.html"));
+        browser.resetCommandCount();
+
+        List<WebElement> boxes = new WebDriverWait(browser.driver(), Duration.ofSeconds(10)).until(
+            ExpectedConditions.visibilityOfAllElementsLocatedBy(By.cssSelector("p-inputotp input.p-inputotp-input")));
+        String otp = "482913";
+        for (int i = 0; i < 6; i++) {
+            WebElement box = boxes.get(i);
+            ((JavascriptExecutor) browser.driver()).executeScript("arguments[0].scrollIntoView(true);", box);
+            box.click();
+            box.clear();
+            box.sendKeys(Character.toString(otp.charAt(i)));
+        }
+
+        int legacy = browser.commandCount();
+        System.out.println("Per-digit OTP entry: " + legacy + " WebDriver commands (batched: 1).");
+        Assert.assertTrue(legacy >= 24, "Baseline per-digit entry should cost at least 4 commands per digit, got " + legacy);
+    }
+}
@@ -0,0 +1,27 @@
+package Utilities;
+
+import java.util.function.Consumer;
+
+/*
+    Where login OTPs are read from. OtpWaiter polls currentOtp and, if the source can push,
+    wakes up immediately when subscribe's listener is told a mobile number just got a new OTP.
+*/
+public interface OtpSource {
+
+    // Latest OTP stored for the mobile number, or null if there is none.
+    String currentOtp(String mobileNumber) throws Exception;
+
+    // Register for "new OTP written for <mobile>" hints. Sources without push support ignore this.
+    default void subscribe(Consumer<String> otpWritten) {
+    }
+
+    // Whether subscribers are told about every OTP written right now; only then can a push be waited for.
+    default boolean pushes() {
+        return false;
+    }
+
+    // A value that changes with every OTP issued for the mobile (e.g. its issue time), or null if unknown.
+    default String issueMarker(String mobileNumber) throws Exception {
+        return null;
+    }
+}
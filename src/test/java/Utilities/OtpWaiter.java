@@ -0,0 +1,172 @@
+package Utilities;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/*
+    Waits for the OTP generated by *this* login attempt instead of reading whatever is in the DB.
+
+    Call expect(mobile) just before clicking Login: it records the OTP currently stored (if any).
+    await() then returns as soon as a different 6-digit OTP shows up. The source is re-checked with
+    exponential backoff (otp.pollStartMs doubling up to otp.pollMaxMs), and a push from the OtpSource
+    (Postgres NOTIFY, stub) wakes the waiter for that mobile at once.
+    Because a new OTP can by chance equal the old one, an unchanged value is accepted at once when
+    there is proof it was issued again: a push for that mobile, or a changed issue marker (see
+    OtpSource.issueMarker, otp.issuedAtColumn). Without either, it is accepted once otp.sameValueGraceMs
+    (default 1500) has passed - except while the source pushes every OTP (otp.notifyChannel connected), where
+    only the push counts, so a slow backend cannot make the old OTP look new.
+    With app.backend=stub the shared waiter reads the OTPs issued by the local stub app (StubServer).
+*/
+public final class OtpWaiter {
+
+    private static volatile OtpWaiter shared;
+
+    private final OtpSource source;
+    private final Map<String, PendingOtp> pending = new ConcurrentHashMap<>();
+    private final long pollStartMs;
+    private final long pollMaxMs;
+    private final long sameValueGraceMs;
+
+    public OtpWaiter(OtpSource source, long pollStartMs, long pollMaxMs, long sameValueGraceMs) {
+        this.source = source;
+        this.pollStartMs = Math.max(1, pollStartMs);
+        this.pollMaxMs = Math.max(this.pollStartMs, pollMaxMs);
+        this.sameValueGraceMs = sameValueGraceMs;
+        source.subscribe(this::otpWritten);
+    }
+
+    public static OtpWaiter shared() {
+        if (shared == null) {
+            synchronized (OtpWaiter.class) {
+                if (shared == null) {
+                    OtpSource source = "stub".equals(Config.get("app.backend", "uat"))
+                        ? StubServer.otps()
+                        : new DbOtpSource(DbClient.shared(), Config.get("otp.notifyChannel", null), Config.get("otp.issuedAtColumn", null));
+                    shared = new OtpWaiter(
+                        source,
+                        Config.getLong("otp.pollStartMs", 50),
+                        Config.getLong("otp.pollMaxMs", 1000),
+                        Config.getLong("otp.sameValueGraceMs", 1500));
+                }
+            }
+        }
+        return shared;
+    }
+
+    // Snapshot the current OTP for the mobile; call before the action that triggers a new one.
+    public PendingOtp expect(String mobileNumber) throws Exception {
+        PendingOtp request = new PendingOtp(this, mobileNumber, source.currentOtp(mobileNumber), source.issueMarker(mobileNumber));
+        pending.put(mobileNumber, request);
+        return request;
+    }
+
+    // Push hint: a new OTP was written for this mobile.
+    public void otpWritten(String mobileNumber) {
+        PendingOtp request = pending.get(mobileNumber);
+        if (request != null) {
+            request.signal();
+        }
+    }
+
+    String await(PendingOtp request, Duration timeout) throws Exception {
+        long start = System.nanoTime();
+        long deadline = start + timeout.toNanos();
+        long delayMs = pollStartMs;
+        try {
+            while (true) {
+                boolean pushed = request.consumeSignal();
+                String otp = source.currentOtp(request.mobileNumber);
+                if (isValid(otp) && (!otp.equals(request.previousOtp) || pushed || reissued(request) || graceOver(start))) {
+                    return otp;
+                }
+                long remainingMs = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (remainingMs <= 0) {
+                    throw new IllegalStateException("No fresh OTP for " + request.mobileNumber + " within " + timeout.toMillis()
+                        + "ms (last seen: " + otp + ", before login: " + request.previousOtp + ")");
+                }
+                request.sleep(Math.min(delayMs, remainingMs));
+                delayMs = Math.min(delayMs * 2, pollMaxMs);
+            }
+        } finally {
+            pending.remove(request.mobileNumber, request);
+        }
+    }
+
+    private boolean reissued(PendingOtp request) throws Exception {
+        String marker = source.issueMarker(request.mobileNumber);
+        return marker != null && !marker.equals(request.previousMarker);
+    }
+
+    private boolean graceOver(long startNanos) {
+        return !source.pushes() && TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos) >= sameValueGraceMs;
+    }
+
+    private static boolean isValid(String otp) {
+        return otp != null && otp.length() == 6;
+    }
+
+    // One outstanding OTP request, correlated by mobile number.
+    public static final class PendingOtp {
+
+        private final OtpWaiter waiter;
+        private final String mobileNumber;
+        private final String previousOtp;
+        private final String previousMarker;
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition written = lock.newCondition();
+        private boolean signalled;
+
+        PendingOtp(OtpWaiter waiter, String mobileNumber, String previousOtp, String previousMarker) {
+            this.waiter = waiter;
+            this.mobileNumber = mobileNumber;
+            this.previousOtp = previousOtp;
+            this.previousMarker = previousMarker;
+        }
+
+        // Wait up to otp.timeoutSeconds (default 30), or what is left of the step's time budget.
+        public String await() throws Exception {
+            return await(StepBudgets.clamp(Duration.ofSeconds(Config.getLong("otp.timeoutSeconds", 30))));
+        }
+
+        public String await(Duration timeout) throws Exception {
+            return waiter.await(this, timeout);
+        }
+
+        void signal() {
+            lock.lock();
+            try {
+                signalled = true;
+                written.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        boolean consumeSignal() {
+            lock.lock();
+            try {
+                boolean was = signalled;
+                signalled = false;
+                return was;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        // Sleep until the backoff delay passes or a push arrives, whichever is first.
+        void sleep(long millis) throws InterruptedException {
+            lock.lock();
+            try {
+                if (!signalled) {
+                    written.await(millis, TimeUnit.MILLISECONDS);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package Utilities;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class OtpWaiterTest {
+
+    @Test
+    public void ignoresOtpFromPreviousLogin() throws Exception {
+        StubOtpSource stub = new StubOtpSource(false);
+        stub.issue("9999999990", "111111");
+        OtpWaiter waiter = new OtpWaiter(stub, 10, 50, 10_000);
+
+        OtpWaiter.PendingOtp request = waiter.expect("9999999990");
+        new Thread(() -> {
+            sleepQuietly(150);
+            stub.issue("9999999990", "222222");
+        }).start();
+
+        Assert.assertEquals(request.await(Duration.ofSeconds(5)), "222222");
+    }
+
+    @Test
+    public void pushWakesWaiterBeforeNextPoll() throws Exception {
+        StubOtpSource stub = new StubOtpSource(true);
+        // Long backoff: without the push the waiter would sleep ~5s between checks.
+        OtpWaiter waiter = new OtpWaiter(stub, 5_000, 5_000, 10_000);
+
+        OtpWaiter.PendingOtp request = waiter.expect("9911991191");
+        new Thread(() -> {
+            sleepQuietly(100);
+            stub.issue("9911991191", "654321");
+        }).start();
+
+        long start = System.nanoTime();
+        Assert.assertEquals(request.await(Duration.ofSeconds(10)), "654321");
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+        Assert.assertTrue(elapsedMs < 2_000, "Push should resolve the wait promptly, took " + elapsedMs + "ms");
+    }
+
+    @Test
+    public void sameValueAcceptedWhenPushed() throws Exception {
+        StubOtpSource stub = new StubOtpSource(true);
+        stub.issue("9000000105", "333333");
+        OtpWaiter waiter = new OtpWaiter(stub, 10, 50, 60_000);
+
+        OtpWaiter.PendingOtp request = waiter.expect("9000000105");
+        new Thread(() -> {
+            sleepQuietly(100);
+            stub.issue("9000000105", "333333");
+        }).start();
+
+        Assert.assertEquals(request.await(Duration.ofSeconds(5)), "333333");
+    }
+
+    @Test
+    public void sameValueAcceptedWhenReissuedWithoutPush() throws Exception {
+        StubOtpSource stub = new StubOtpSource(false);
+        stub.issue("9000000106", "444444");
+        OtpWaiter waiter = new OtpWaiter(stub, 10, 50, 60_000);
+
+        OtpWaiter.PendingOtp request = waiter.expect("9000000106");
+        new Thread(() -> {
+            sleepQuietly(100);
+            stub.issue("9000000106", "444444");
+        }).start();
+
+        Assert.assertEquals(request.await(Duration.ofSeconds(5)), "444444", "The issue marker changed");
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void pushingSourceNeverAcceptsTheOldOtpByTime() throws Exception {
+        StubOtpSource stub = new StubOtpSource(true);
+        stub.issue("9000000107", "555555");
+        OtpWaiter waiter = new OtpWaiter(stub, 10, 50, 10);
+
+        waiter.expect("9000000107").await(Duration.ofMillis(300));
+    }
+
+    @Test
+    public void concurrentLoginsGetTheirOwnOtp() throws Exception {
+        StubOtpSource stub = new StubOtpSource(true);
+        OtpWaiter waiter = new OtpWaiter(stub, 20, 200, 10_000);
+        int logins = 25;
+        ExecutorService pool = Executors.newFixedThreadPool(logins);
+        List<Future<String>> results = new ArrayList<>();
+
+        for (int i = 0; i < logins; i++) {
+            String mobile = String.valueOf(7000000000L + i);
+            OtpWaiter.PendingOtp request = waiter.expect(mobile);
+            results.add(pool.submit(() -> request.await(Duration.ofSeconds(10))));
+        }
+        for (int i = logins - 1; i >= 0; i--) {
+            stub.issue(String.valueOf(7000000000L + i), String.format("%06d", i));
+        }
+        for (int i = 0; i < logins; i++) {
+            Assert.assertEquals(results.get(i).get(), String.format("%06d", i));
+        }
+        pool.shutdown();
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void timesOutWhenNoOtpArrives() throws Exception {
+        OtpWaiter waiter = new OtpWaiter(new StubOtpSource(false), 10, 50, 10_000);
+        waiter.expect("9999999990").await(Duration.ofMillis(200));
+    }
+
+    private static void sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package Utilities;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.chrome.ChromeDriver;
+import org.openqa.selenium.json.Json;
+
+/*
+    Front-end load metrics of every screen the flows visit, checked against perf-budgets.properties.
+
+    The page objects call record() once the action that opens a screen has returned (BasePage.navigate,
+    BaseFlow.openApp). record() waits for the app to go idle and reads Navigation Timing, LCP, CLS, long
+    tasks and JS heap from the observers web-vitals.js installs in every document (see that script and
+    the budgets file for what each metric covers). A screen over budget fails the step with
+    "FAILED [Perf Budget]"; -Dperf.budgets.enforce=false only reports.
+
+    At the end of the run the per-page table is printed and written to profiler.outputDir as
+    page-vitals.json. Disable with -Dvitals.enabled=false.
+*/
+public final class PageVitals {
+
+    static final List<String> METRICS = Arrays.asList(
+        "ttfbMs", "domContentLoadedMs", "loadMs", "lcpMs", "settleMs", "cls", "longTasks", "longTaskMs", "heapMb");
+
+    private static final Properties BUDGETS = load();
+    private static final List<Map<String, Object>> SAMPLES = Collections.synchronizedList(new ArrayList<>());
+
+    private PageVitals() {
+    }
+
+    public static boolean enabled() {
+        return Config.getBoolean("vitals.enabled", true);
+    }
+
+    // Called by DriverPool for every new browser.
+    public static void install(WebDriver driver) {
+        if (driver instanceof ChromeDriver) {
+            Map<String, Object> params = new HashMap<>();
+            params.put("source", Scripts.load("web-vitals.js"));
+            ((ChromeDriver) driver).executeCdpCommand("Page.addScriptToEvaluateOnNewDocument", params);
+        }
+    }
+
+    // Measure the screen just opened; actionNanos is how long the opening action itself took.
+    public static void record(WebDriver driver, String page, long actionNanos) {
+        if (!enabled()) {
+            return;
+        }
+        long started = System.nanoTime();
+        Map<String, Object> metrics;
+        try {
+            AppWait.on(driver).idle(Duration.ofSeconds(Config.getLong("vitals.idleTimeoutSeconds", 15)));
+            metrics = read(driver);
+        } catch (WebDriverException e) {
+            RunLog.info("Could not read page vitals for " + page + ": " + e.getMessage());
+            return;
+        }
+        metrics.put("settleMs", (actionNanos + System.nanoTime() - started) / 1_000_000.0);
+        check(page, metrics);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> read(WebDriver driver) {
+        Object result = ((JavascriptExecutor) driver).executeScript(Scripts.load("page-vitals.js"));
+        return result instanceof Map ? new LinkedHashMap<>((Map<String, Object>) result) : new LinkedHashMap<>();
+    }
+
+    // Stores the sample and fails the step when the page is over budget (unless enforcement is off).
+    static void check(String page, Map<String, Object> metrics) {
+        Map<String, Object> sample = new LinkedHashMap<>();
+        sample.put("page", page);
+        sample.put("step", StepContext.key());
+        sample.putAll(metrics);
+        SAMPLES.add(sample);
+        List<String> over = overBudget(page, metrics, BUDGETS);
+        if (over.isEmpty()) {
+            return;
+        }
+        String message = "FAILED [Perf Budget]: " + page + " over budget: " + String.join("; ", over);
+        if (Config.getBoolean("perf.budgets.enforce", true)) {
+            throw new AssertionError(message);
+        }
+        RunLog.info(message);
+    }
+
+    // Every metric of the sample that exceeds its budget, e.g. "lcpMs 2710 > 2500".
+    static List<String> overBudget(String page, Map<String, Object> metrics, Properties budgets) {
+        List<String> over = new ArrayList<>();
+        for (String metric : METRICS) {
+            Object value = metrics.get(metric);
+            Double limit = budget(budgets, page, metric);
+            if (value instanceof Number && limit != null && ((Number) value).doubleValue() > limit) {
+                over.add(String.format("%s %s > %s", metric, format(((Number) value).doubleValue()), format(limit)));
+            }
+        }
+        return over;
+    }
+
+    private static Double budget(Properties budgets, String page, String metric) {
+        String value = System.getProperty("budget." + page + "." + metric, budgets.getProperty(page + "." + metric,
+            budgets.getProperty("default." + metric)));
+        if (value == null || value.trim().isEmpty()) {
+            return null;
+        }
+        try {
+            return Double.valueOf(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalStateException("Budget " + page + "." + metric + " is not a number: " + value);
+        }
+    }
+
+    private static String format(double value) {
+        return value == Math.rint(value) || value >= 100 ? String.valueOf(Math.round(value)) : String.format("%.3f", value);
+    }
+
+    // === Report ===
+
+    public static boolean isEmpty() {
+        return SAMPLES.isEmpty();
+    }
+
+    // Per page: number of visits and the worst value seen for each metric.
+    static String report(List<Map<String, Object>> samples) {
+        Map<String, List<Map<String, Object>>> byPage = new TreeMap<>();
+        for (Map<String, Object> sample : samples) {
+            byPage.computeIfAbsent(String.valueOf(sample.get("page")), k -> new ArrayList<>()).add(sample);
+        }
+        StringBuilder sb = new StringBuilder(String.format("%-20s %4s", "page (worst of n)", "n"));
+        METRICS.forEach(metric -> sb.append(String.format(" %18s", metric)));
+        sb.append('\n');
+        for (Map.Entry<String, List<Map<String, Object>>> page : byPage.entrySet()) {
+            sb.append(String.format("%-20s %4d", page.getKey(), page.getValue().size()));
+            for (String metric : METRICS) {
+                Double worst = page.getValue().stream().map(s -> s.get(metric)).filter(v -> v instanceof Number)
+                    .map(v -> ((Number) v).doubleValue()).max(Double::compare).orElse(null);
+                Double limit = budget(BUDGETS, page.getKey(), metric);
+                String cell = worst == null ? "-" : format(worst) + (limit == null ? "" : "/" + format(limit));
+                sb.append(String.format(" %18s", cell));
+            }
+            sb.append('\n');
+        }
+        return sb.toString();
+    }
+
+    static List<Map<String, Object>> samples() {
+        synchronized (SAMPLES) {
+            return new ArrayList<>(SAMPLES);
+        }
+    }
+
+    public static void export() {
+        Path dir = Paths.get(Config.get("profiler.outputDir", "target/perf"));
+        List<Map<String, Object>> samples = samples();
+        System.out.println("Page load metrics (worst value/budget):\n" + report(samples));
+        try {
+            Files.createDirectories(dir);
+            Files.write(dir.resolve("page-vitals.json"), new Json().toJson(samples).getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            RunLog.info("Could not write page vitals to " + dir + ": " + e.getMessage());
+        }
+    }
+
+    private static Properties load() {
+        Properties props = new Properties();
+        try (InputStream in = PageVitals.class.getClassLoader().getResourceAsStream("perf-budgets.properties")) {
+            if (in != null) {
+                props.load(in);
+            }
+        } catch (IOException e) {
+            RunLog.info("Could not read perf-budgets.properties: " + e.getMessage());
+        }
+        return props;
+    }
+}
@@ -0,0 +1,124 @@
+package Utilities;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import org.openqa.selenium.By;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+/*
+    Budget checks run on plain metric maps; readsHardAndSoftNavigationMetrics measures stub/vitals.html
+    in a real browser and is skipped without Chrome.
+*/
+public class PageVitalsTest {
+
+    @AfterMethod(alwaysRun = true)
+    public void clearOverrides() {
+        System.clearProperty("budget.listOfCds.settleMs");
+        System.clearProperty("budget.budgetTest.settleMs");
+        System.clearProperty("budget.stubVitals.longTasks");
+        System.clearProperty("perf.budgets.enforce");
+    }
+
+    @Test
+    public void pageBudgetsFallBackToDefaultsAndCanBeOverridden() {
+        Properties budgets = new Properties();
+        budgets.setProperty("default.cls", "0.1");
+        budgets.setProperty("listOfCds.settleMs", "2000");
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("settleMs", 2500.4);
+        metrics.put("cls", 0.125);
+        metrics.put("lcpMs", null);
+
+        Assert.assertEquals(PageVitals.overBudget("listOfCds", metrics, budgets),
+            List.of("settleMs 2500 > 2000", "cls 0.125 > 0.100"));
+        Assert.assertEquals(PageVitals.overBudget("home", metrics, budgets), List.of("cls 0.125 > 0.100"));
+
+        System.setProperty("budget.listOfCds.settleMs", "3000");
+        Assert.assertEquals(PageVitals.overBudget("listOfCds", metrics, budgets), List.of("cls 0.125 > 0.100"));
+    }
+
+    @Test
+    public void overBudgetFailsTheStepUnlessOnlyReporting() {
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("settleMs", 50.0);
+        System.setProperty("budget.budgetTest.settleMs", "10");
+        try {
+            PageVitals.check("budgetTest", metrics);
+            Assert.fail("Expected the budget check to fail the step");
+        } catch (AssertionError e) {
+            Assert.assertEquals(e.getMessage(), "FAILED [Perf Budget]: budgetTest over budget: settleMs 50 > 10");
+        }
+
+        System.setProperty("perf.budgets.enforce", "false");
+        PageVitals.check("budgetTest", metrics);
+        Assert.assertEquals(PageVitals.samples().stream().filter(s -> "budgetTest".equals(s.get("page"))).count(), 2);
+    }
+
+    @Test
+    public void readsHardAndSoftNavigationMetrics() {
+        try (StubBrowser browser = StubBrowser.start()) {
+            PageVitals.install(browser.rawDriver());
+            AppWait.installInstrumentation(browser.rawDriver());
+
+            long started = System.nanoTime();
+            browser.driver().get(StubBrowser.pageUrl("vitals.html"));
+            sleep(600);
+            PageVitals.record(browser.driver(), "stubVitals", System.nanoTime() - started);
+            Map<String, Object> hard = last("stubVitals");
+            Assert.assertEquals(hard.get("hardNavigation"), true, hard.toString());
+            Assert.assertTrue(number(hard, "lcpMs") > 0, "LCP of the heading: " + hard);
+            Assert.assertTrue(number(hard, "domContentLoadedMs") > 0, hard.toString());
+            Assert.assertTrue(number(hard, "cls") > 0, "Banner shifts the content: " + hard);
+            Assert.assertTrue(number(hard, "longTasks") >= 1, "120 ms task: " + hard);
+
+            System.setProperty("budget.stubVitals.longTasks", "0");
+            try {
+                PageVitals.record(browser.driver(), "stubVitals", 0);
+                // Counters were reset by the first read, so nothing new is over budget yet.
+            } catch (AssertionError e) {
+                Assert.fail("Long tasks should only count since the previous read: " + e.getMessage());
+            }
+            started = System.nanoTime();
+            browser.driver().findElement(By.id("route")).click();
+            AssertionError overBudget = null;
+            try {
+                PageVitals.record(browser.driver(), "stubVitals", System.nanoTime() - started);
+            } catch (AssertionError e) {
+                overBudget = e;
+            }
+            Map<String, Object> soft = last("stubVitals");
+            Assert.assertEquals(soft.get("hardNavigation"), false, soft.toString());
+            Assert.assertNull(soft.get("lcpMs"), "No LCP on route changes: " + soft);
+            Assert.assertTrue(number(soft, "settleMs") >= 400, "Route change settles after its 400 ms call: " + soft);
+            Assert.assertNotNull(overBudget, "The 80 ms render task should break the longTasks=0 budget");
+        }
+    }
+
+    private static Map<String, Object> last(String page) {
+        List<Map<String, Object>> samples = PageVitals.samples();
+        for (int i = samples.size() - 1; i >= 0; i--) {
+            if (page.equals(samples.get(i).get("page"))) {
+                return samples.get(i);
+            }
+        }
+        throw new AssertionError("No sample for " + page);
+    }
+
+    private static double number(Map<String, Object> sample, String metric) {
+        Object value = sample.get(metric);
+        return value instanceof Number ? ((Number) value).doubleValue() : -1;
+    }
+
+    private static void sleep(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package Utilities;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.testng.Assert;
+import org.testng.TestListenerAdapter;
+import org.testng.TestNG;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import org.testng.xml.XmlClass;
+import org.testng.xml.XmlSuite;
+import org.testng.xml.XmlTest;
+
+/*
+    Stand-in flow classes for ParallelSuiteListenerTest and DurationSchedulerTest, which run them in a suite of its own. Each one
+    leases a "browser" in setup and gives it back in teardown, like DriverPool, and its steps depend on
+    each other like the real flows' steps - which is what makes TestNG's parallel="classes" interleave them.
+    They live outside the test class and keep the steps in a base class without member classes because
+    TestNG also runs the public member classes of a class it is given; the steps depend on groups since
+    dependsOnMethods does not resolve in nested classes (TestNG matches the "$" in their name as a regex).
+*/
+public final class ParallelFlows {
+
+    static final Semaphore BROWSERS = new Semaphore(2);
+    static final Map<String, Set<String>> THREADS = new ConcurrentHashMap<>();
+    static final Set<String> RELEASED = ConcurrentHashMap.newKeySet();
+    static final List<String> STARTED = new CopyOnWriteArrayList<>();
+
+    abstract static class Pooled extends BaseFlow {
+
+        private void mark() {
+            THREADS.computeIfAbsent(getClass().getSimpleName(), k -> ConcurrentHashMap.newKeySet()).add(Thread.currentThread().getName());
+        }
+
+        @BeforeClass
+        public void lease() throws InterruptedException {
+            mark();
+            STARTED.add(getClass().getSimpleName());
+            if (!BROWSERS.tryAcquire(3, TimeUnit.SECONDS)) {
+                throw new IllegalStateException("No browser for " + getClass().getSimpleName() + " within 3s");
+            }
+        }
+
+        @Test(priority = 1, groups = "first")
+        public void first() throws InterruptedException {
+            mark();
+            Thread.sleep(50);
+        }
+
+        @Test(priority = 2, groups = "second", dependsOnGroups = "first")
+        public void second() throws InterruptedException {
+            mark();
+            Thread.sleep(50);
+        }
+
+        @Test(priority = 3, dependsOnGroups = "second")
+        public void third() throws InterruptedException {
+            mark();
+            Thread.sleep(50);
+        }
+
+        @AfterClass(alwaysRun = true)
+        public void release() {
+            mark();
+            RELEASED.add(getClass().getSimpleName());
+            BROWSERS.release();
+        }
+    }
+
+    public static class FlowA extends Pooled {
+    }
+
+    public static class FlowB extends Pooled {
+    }
+
+    public static class FlowC extends Pooled {
+    }
+
+    public static class FlowD extends Pooled {
+    }
+
+    public static class FlowE extends Pooled {
+    }
+
+    // A flow with a long last step, like Own_CDUtilize.
+    public static class Slow extends Pooled {
+        @Test(priority = 4, dependsOnGroups = "second")
+        public void longStep() throws InterruptedException {
+            Thread.sleep(600);
+        }
+    }
+
+    // Stands in for StepLatencyGate, which must see every flow finished.
+    public static class Gate {
+        @Test
+        public void afterAllFlows() {
+            Assert.assertEquals(RELEASED.size(), 5, "Gate ran before the flows finished: " + RELEASED);
+        }
+    }
+
+    // A suite with one <test> holding the given flow classes, in order.
+    static XmlSuite suite(Class<?>... flows) {
+        XmlSuite suite = new XmlSuite();
+        suite.setName("ParallelFlows");
+        XmlTest test = new XmlTest(suite);
+        test.setName("Flows");
+        List<XmlClass> classes = new ArrayList<>();
+        for (Class<?> flow : flows) {
+            classes.add(new XmlClass(flow));
+        }
+        test.setXmlClasses(classes);
+        return suite;
+    }
+
+    // Runs the suites with a fresh two-browser pool and returns their results.
+    static TestListenerAdapter run(List<XmlSuite> suites) {
+        BROWSERS.drainPermits();
+        BROWSERS.release(2);
+        THREADS.clear();
+        RELEASED.clear();
+        STARTED.clear();
+        TestListenerAdapter results = new TestListenerAdapter();
+        TestNG testng = new TestNG();
+        testng.setUseDefaultListeners(false);
+        testng.setVerbose(0);
+        testng.setXmlSuites(suites);
+        testng.addListener(results);
+        testng.run();
+        return results;
+    }
+}
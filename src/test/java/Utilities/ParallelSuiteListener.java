@@ -0,0 +1,87 @@
+package Utilities;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.testng.IAlterSuiteListener;
+import org.testng.xml.XmlClass;
+import org.testng.xml.XmlSuite;
+import org.testng.xml.XmlTest;
+
+/*
+    Switches the suite to parallel execution when -Dsuite.parallel=classes (or suite.parallel=classes in
+    config.properties) is given. Test classes then run on separate workers, each with its own
+    pooled browser.
+
+    TestNG's own parallel="classes" does not keep a class on one thread: the steps of all classes are
+    dispatched by priority, so every class's @BeforeClass (which leases a browser) runs before any class
+    reaches its @AfterClass, and with more classes than browsers the workers block in lease() while the
+    browser holders wait for a thread. Instead, every <test> holding flow classes (BaseFlow) is moved into
+    a child suite with one <test> per class and parallel="tests": a worker takes a class, runs it from
+    setup to teardown, then takes the next one in order. Child suites run before their parent, so the
+    remaining <test>s (the latency gate) still run after all flows.
+
+    The worker count is BrowserCapacity.maxConcurrentBrowsers() unless -Dparallel.threads is set,
+    and the browser pool is sized to match so no worker waits on a lease.
+*/
+public class ParallelSuiteListener implements IAlterSuiteListener {
+
+    static final String WORKERS_SUFFIX = " (parallel classes)";
+
+    @Override
+    public void alter(List<XmlSuite> suites) {
+        String mode = Config.get("suite.parallel", "none");
+        if (!"classes".equalsIgnoreCase(mode)) {
+            return;
+        }
+        int threads = Config.getInt("parallel.threads", BrowserCapacity.maxConcurrentBrowsers());
+        if (System.getProperty("driver.pool.size") == null) {
+            System.setProperty("driver.pool.size", String.valueOf(threads));
+        }
+        for (XmlSuite suite : suites) {
+            XmlSuite workers = splitFlowClasses(suite, threads);
+            if (workers != null) {
+                RunLog.info("Parallel mode: " + workers.getTests().size() + " flow classes on " + threads + " concurrent browsers.");
+            }
+        }
+    }
+
+    // Moves the suite's flow classes into a parallel child suite, one <test> each; null when it has none.
+    static XmlSuite splitFlowClasses(XmlSuite suite, int threads) {
+        XmlSuite workers = new XmlSuite();
+        workers.setName(suite.getName() + WORKERS_SUFFIX);
+        workers.setParallel(XmlSuite.ParallelMode.TESTS);
+        workers.setThreadCount(threads);
+        workers.setParameters(suite.getParameters());
+        for (XmlTest test : new ArrayList<>(suite.getTests())) {
+            if (test.getXmlClasses().stream().noneMatch(c -> BaseFlow.class.isAssignableFrom(c.getSupportClass()))) {
+                continue;
+            }
+            for (XmlClass xmlClass : test.getXmlClasses()) {
+                XmlTest single = new XmlTest(workers);
+                single.setName(test.getName() + ":" + xmlClass.getSupportClass().getSimpleName());
+                single.setParameters(test.getLocalParameters());
+                single.setXmlClasses(new ArrayList<>(Collections.singletonList(xmlClass)));
+            }
+            suite.getTests().remove(test);
+        }
+        if (workers.getTests().isEmpty()) {
+            return null;
+        }
+        workers.setParentSuite(suite);
+        suite.getChildSuites().add(workers);
+        return workers;
+    }
+
+    // The child suites created by splitFlowClasses.
+    static List<XmlSuite> workerSuites(XmlSuite suite) {
+        List<XmlSuite> workers = new ArrayList<>();
+        for (XmlSuite child : suite.getChildSuites()) {
+            if (child.getName().endsWith(WORKERS_SUFFIX)) {
+                workers.add(child);
+            }
+        }
+        return workers;
+    }
+}
@@ -0,0 +1,57 @@
+package Utilities;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.testng.Assert;
+import org.testng.TestListenerAdapter;
+import org.testng.annotations.Test;
+import org.testng.xml.XmlClass;
+import org.testng.xml.XmlSuite;
+import org.testng.xml.XmlTest;
+
+// Five flow classes on two workers with a two-browser pool: every class must get a browser and run whole on one thread.
+public class ParallelSuiteListenerTest {
+
+    @Test
+    public void moreClassesThanBrowsersRunWithoutStalling() {
+        String[] keys = {"suite.parallel", "parallel.threads", "driver.pool.size"};
+        Map<String, String> saved = new ConcurrentHashMap<>();
+        for (String key : keys) {
+            if (System.getProperty(key) != null) {
+                saved.put(key, System.getProperty(key));
+            }
+        }
+        System.setProperty("suite.parallel", "classes");
+        System.setProperty("parallel.threads", "2");
+        System.setProperty("driver.pool.size", "2");
+        TestListenerAdapter results;
+        try {
+            XmlSuite suite = ParallelFlows.suite(ParallelFlows.FlowA.class, ParallelFlows.FlowB.class,
+                ParallelFlows.FlowC.class, ParallelFlows.FlowD.class, ParallelFlows.FlowE.class);
+            XmlTest gate = new XmlTest(suite);
+            gate.setName("Gate");
+            gate.setXmlClasses(new ArrayList<>(Collections.singletonList(new XmlClass(ParallelFlows.Gate.class))));
+            List<XmlSuite> suites = new ArrayList<>(Collections.singletonList(suite));
+            new ParallelSuiteListener().alter(suites);
+            results = ParallelFlows.run(suites);
+        } finally {
+            for (String key : keys) {
+                if (saved.containsKey(key)) {
+                    System.setProperty(key, saved.get(key));
+                } else {
+                    System.clearProperty(key);
+                }
+            }
+        }
+
+        Assert.assertTrue(results.getConfigurationFailures().isEmpty(), "Setup failed: " + results.getConfigurationFailures());
+        Assert.assertTrue(results.getSkippedTests().isEmpty() && results.getFailedTests().isEmpty(),
+            "Skipped " + results.getSkippedTests() + ", failed " + results.getFailedTests());
+        Assert.assertEquals(results.getPassedTests().size(), 5 * 3 + 1);
+        ParallelFlows.THREADS.forEach((flow, threads) -> Assert.assertEquals(threads.size(), 1, flow + " moved between threads " + threads));
+    }
+}
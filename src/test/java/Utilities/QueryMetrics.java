@@ -0,0 +1,59 @@
+package Utilities;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Per-query call count, error count and latency (total/max) for DbClient.
+public final class QueryMetrics {
+
+    private final Map<String, Stats> byQuery = new ConcurrentHashMap<>();
+
+    void record(String queryName, long elapsedNanos, boolean failed) {
+        Stats stats = byQuery.computeIfAbsent(queryName, k -> new Stats());
+        stats.calls.increment();
+        stats.totalNanos.add(elapsedNanos);
+        stats.maxNanos.accumulateAndGet(elapsedNanos, Math::max);
+        if (failed) {
+            stats.errors.increment();
+        }
+    }
+
+    // True until the first query is recorded.
+    public boolean isEmpty() {
+        return byQuery.isEmpty();
+    }
+
+    public long calls(String queryName) {
+        Stats stats = byQuery.get(queryName);
+        return stats == null ? 0 : stats.calls.sum();
+    }
+
+    public double averageMillis(String queryName) {
+        Stats stats = byQuery.get(queryName);
+        long calls = stats == null ? 0 : stats.calls.sum();
+        return calls == 0 ? 0 : stats.totalNanos.sum() / 1_000_000.0 / calls;
+    }
+
+    public String report() {
+        StringBuilder sb = new StringBuilder(String.format("%-20s %8s %8s %10s %10s%n", "query", "calls", "errors", "avg ms", "max ms"));
+        for (Map.Entry<String, Stats> entry : new TreeMap<>(byQuery).entrySet()) {
+            Stats stats = entry.getValue();
+            long calls = stats.calls.sum();
+            sb.append(String.format("%-20s %8d %8d %10.1f %10.1f%n",
+                entry.getKey(), calls, stats.errors.sum(),
+                calls == 0 ? 0 : stats.totalNanos.sum() / 1_000_000.0 / calls,
+                stats.maxNanos.get() / 1_000_000.0));
+        }
+        return sb.toString();
+    }
+
+    private static final class Stats {
+        final LongAdder calls = new LongAdder();
+        final LongAdder errors = new LongAdder();
+        final LongAdder totalNanos = new LongAdder();
+        final AtomicLong maxNanos = new AtomicLong();
+    }
+}
@@ -0,0 +1,309 @@
+package Utilities;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/*
+    Structured run log: one JSON line per event in runlog.file (default target/run-log.jsonl), e.g.
+        {"time":"2026-10-18T10:15:02.114","epochMs":...,"thread":"TestNG-test-Regression-1","flow":"OfferCancel",
+         "step":"testMyBids","account":"9911991191","event":"pass","durationMs":812.4}
+    Events: "step" (a flow's step banner), "info" (status message), and the outcome of every flow step -
+    "pass", "fail" (with the message) or "skip" - logged by StepListener, and by LoadRunner in load mode.
+
+    Logging never blocks or locks the calling thread: the event is put into a fixed ring buffer of
+    runlog.capacity slots (a CAS on the claim counter, then a plain slot write), and a single writer
+    thread drains it in batches, formats the JSON and writes it through a buffered file writer. When the
+    writer falls behind by a full buffer, new events are dropped and counted rather than waiting.
+    With runlog.console=true (default; false in load mode) the writer also prints each event as one
+    readable line, so lines of concurrent classes no longer interleave.
+
+    close() is final: the log is not reopened (which would truncate the file), and events logged
+    after it, e.g. by listeners that clean up after LoadRunner, are only printed.
+*/
+public final class RunLog {
+
+    private static final DateTimeFormatter TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSS");
+    private static final DateTimeFormatter CONSOLE_TIME = DateTimeFormatter.ofPattern("HH:mm:ss.SSS");
+    private static final ThreadLocal<String> ACCOUNT = new ThreadLocal<>();
+    private static final int BATCH = 512;
+    private static volatile RunLog shared;
+    private static volatile boolean closed;
+
+    private final AtomicReferenceArray<Event> slots;
+    private final int mask;
+    private final AtomicLong claimed = new AtomicLong();
+    // Only the writer advances this; producers read it to see how much room is left.
+    private final AtomicLong consumed = new AtomicLong();
+    private final LongAdder dropped = new LongAdder();
+    private final Path file;
+    private final boolean console;
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    RunLog(Path file, int capacity, boolean console) {
+        int size = capacity <= 2 ? 2 : Integer.highestOneBit(capacity - 1) << 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+        this.file = file;
+        this.console = console;
+        this.writer = new Thread(this::drainLoop, "run-log-writer");
+        this.writer.setDaemon(true);
+    }
+
+    // The run's log; after close() a stopped one, so events are printed instead of written.
+    static RunLog shared() {
+        if (shared == null) {
+            synchronized (RunLog.class) {
+                if (shared == null) {
+                    RunLog log = new RunLog(Paths.get(Config.get("runlog.file", "target/run-log.jsonl")),
+                        Config.getInt("runlog.capacity", 65536), Config.getBoolean("runlog.console", true));
+                    if (closed) {
+                        log.running = false;
+                    } else {
+                        log.start();
+                    }
+                    shared = log;
+                }
+            }
+        }
+        return shared;
+    }
+
+    // === Events ===
+
+    // A flow's step banner, e.g. "Step 4: Enter mobile number and click Login".
+    public static void step(String title) {
+        shared().publish("step", title, -1);
+    }
+
+    public static void info(String message) {
+        shared().publish("info", message, -1);
+    }
+
+    // Outcome of the current flow step: "pass", "fail" or "skip", with how long it took.
+    public static void outcome(String outcome, long durationNanos, String message) {
+        shared().publish(outcome, message, durationNanos);
+    }
+
+    // The account the current thread's flow is using, added to its events.
+    public static void account(String mobileNumber) {
+        if (mobileNumber == null) {
+            ACCOUNT.remove();
+        } else {
+            ACCOUNT.set(mobileNumber);
+        }
+    }
+
+    // Writes out everything logged so far and stops the writer. Called when the run ends.
+    public static void close() {
+        RunLog log;
+        synchronized (RunLog.class) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            log = shared;
+        }
+        if (log != null) {
+            log.stop();
+        }
+    }
+
+    void publish(String event, String message, long durationNanos) {
+        Event e = new Event(System.currentTimeMillis(), Thread.currentThread().getName(), StepContext.flow(),
+            StepContext.step(), ACCOUNT.get(), event, message, durationNanos);
+        if (!running) {
+            StringBuilder line = new StringBuilder();
+            e.appendLine(line);
+            System.out.print(line);
+            return;
+        }
+        long seq;
+        do {
+            seq = claimed.get();
+            if (seq - consumed.get() >= slots.length()) {
+                dropped.increment();
+                return;
+            }
+        } while (!claimed.compareAndSet(seq, seq + 1));
+        slots.set((int) seq & mask, e);
+    }
+
+    long dropped() {
+        return dropped.sum();
+    }
+
+    // === Writer ===
+
+    void start() {
+        writer.start();
+    }
+
+    void stop() {
+        running = false;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (dropped() > 0) {
+            System.out.println("Run log dropped " + dropped() + " events: the writer fell " + slots.length() + " events behind.");
+        }
+    }
+
+    private void drainLoop() {
+        try {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                StringBuilder json = new StringBuilder(BATCH * 200);
+                StringBuilder lines = new StringBuilder();
+                while (true) {
+                    // Read running before draining, so events published before stop() are still written.
+                    boolean last = !running;
+                    int n = drain(json, lines);
+                    if (n > 0) {
+                        out.append(json);
+                        out.flush();
+                        if (console) {
+                            System.out.print(lines);
+                        }
+                        json.setLength(0);
+                        lines.setLength(0);
+                    } else if (last) {
+                        return;
+                    } else {
+                        LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(5));
+                    }
+                }
+            }
+        } catch (IOException e) {
+            System.out.println("Run log disabled, cannot write " + file + ": " + e.getMessage());
+            // Keep consuming so producers do not count every later event as dropped.
+            while (running) {
+                consumed.set(claimed.get());
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(50));
+            }
+        }
+    }
+
+    // Moves up to BATCH events out of the buffer, in order; stops at a slot still being written.
+    private int drain(StringBuilder json, StringBuilder lines) {
+        long next = consumed.get();
+        int n = 0;
+        while (n < BATCH) {
+            int index = (int) next & mask;
+            Event e = slots.get(index);
+            if (e == null) {
+                break;
+            }
+            slots.set(index, null);
+            next++;
+            n++;
+            e.appendJson(json);
+            if (console) {
+                e.appendLine(lines);
+            }
+        }
+        consumed.set(next);
+        return n;
+    }
+
+    private static final class Event {
+        final long epochMs;
+        final String thread;
+        final String flow;
+        final String step;
+        final String account;
+        final String event;
+        final String message;
+        final long durationNanos;
+
+        Event(long epochMs, String thread, String flow, String step, String account, String event, String message, long durationNanos) {
+            this.epochMs = epochMs;
+            this.thread = thread;
+            this.flow = flow;
+            this.step = step;
+            this.account = account;
+            this.event = event;
+            this.message = message;
+            this.durationNanos = durationNanos;
+        }
+
+        void appendJson(StringBuilder sb) {
+            sb.append("{\"time\":\"").append(TIME.format(localTime())).append("\",\"epochMs\":").append(epochMs);
+            field(sb, "thread", thread);
+            field(sb, "flow", flow);
+            field(sb, "step", step);
+            field(sb, "account", account);
+            field(sb, "event", event);
+            if (durationNanos >= 0) {
+                sb.append(",\"durationMs\":").append(Math.round(durationNanos / 100_000.0) / 10.0);
+            }
+            field(sb, "message", message);
+            sb.append("}\n");
+        }
+
+        void appendLine(StringBuilder sb) {
+            sb.append(CONSOLE_TIME.format(localTime())).append(" [").append(thread).append("] ")
+                .append(flow).append('.').append(step);
+            if ("step".equals(event)) {
+                sb.append(" ========== ").append(message).append(" ==========");
+            } else {
+                if (!"info".equals(event)) {
+                    sb.append(' ').append(event.toUpperCase());
+                }
+                if (durationNanos >= 0) {
+                    sb.append(String.format(" (%.1f s)", durationNanos / 1e9));
+                }
+                if (message != null) {
+                    sb.append(" ").append(message);
+                }
+            }
+            sb.append('\n');
+        }
+
+        private LocalDateTime localTime() {
+            return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMs), ZoneId.systemDefault());
+        }
+
+        private static void field(StringBuilder sb, String name, String value) {
+            if (value == null) {
+                return;
+            }
+            sb.append(",\"").append(name).append("\":\"");
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                switch (c) {
+                    case '"': sb.append("\\\""); break;
+                    case '\\': sb.append("\\\\"); break;
+                    case '\n': sb.append("\\n"); break;
+                    case '\r': sb.append("\\r"); break;
+                    case '\t': sb.append("\\t"); break;
+                    default:
+                        if (c < 0x20) {
+                            sb.append(String.format("\\u%04x", (int) c));
+                        } else {
+                            sb.append(c);
+                        }
+                }
+            }
+            sb.append('"');
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package Utilities;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.openqa.selenium.json.Json;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class RunLogTest {
+
+    @Test
+    public void concurrentEventsAreAllWrittenAsJsonLines() throws Exception {
+        Path file = Files.createTempDirectory("run-log").resolve("run-log.jsonl");
+        RunLog log = new RunLog(file, 1 << 16, false);
+        log.start();
+        List<Thread> producers = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            int producer = t;
+            producers.add(new Thread(() -> {
+                StepContext.begin("Flow" + producer, "step");
+                for (int i = 0; i < 10_000; i++) {
+                    log.publish("info", "event \"" + i + "\"\n", -1);
+                }
+                StepContext.end();
+            }, "producer-" + t));
+        }
+        producers.forEach(Thread::start);
+        for (Thread producer : producers) {
+            producer.join();
+        }
+        log.stop();
+
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        Assert.assertEquals(lines.size() + log.dropped(), 40_000);
+        Assert.assertEquals(log.dropped(), 0, "Writer kept up with 40k events in a 64k buffer");
+        Set<String> flows = new HashSet<>();
+        for (String line : lines) {
+            Map<String, Object> event = new Json().toType(line, Json.MAP_TYPE);
+            flows.add(String.valueOf(event.get("flow")));
+            Assert.assertTrue(String.valueOf(event.get("message")).startsWith("event \""), line);
+        }
+        Assert.assertEquals(flows.size(), 4);
+    }
+
+    @Test
+    public void fullBufferDropsInsteadOfBlocking() throws Exception {
+        Path file = Files.createTempDirectory("run-log").resolve("run-log.jsonl");
+        RunLog log = new RunLog(file, 8, false);
+
+        // Writer not started yet: the buffer fills up.
+        for (int i = 0; i < 10; i++) {
+            log.publish("pass", null, 1_500_000);
+        }
+        Assert.assertEquals(log.dropped(), 2);
+
+        log.start();
+        log.stop();
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        Assert.assertEquals(lines.size(), 8);
+        Assert.assertTrue(lines.get(0).contains("\"event\":\"pass\",\"durationMs\":1.5"), lines.get(0));
+    }
+
+    @Test
+    public void eventsAfterStopAreNotWritten() throws Exception {
+        Path file = Files.createTempDirectory("run-log").resolve("run-log.jsonl");
+        RunLog log = new RunLog(file, 8, false);
+        log.start();
+        log.publish("info", "before", -1);
+        log.stop();
+
+        log.publish("info", "after", -1);
+
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        Assert.assertEquals(lines.size(), 1);
+        Assert.assertTrue(lines.get(0).contains("\"message\":\"before\""), lines.get(0));
+    }
+}
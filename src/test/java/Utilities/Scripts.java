@@ -0,0 +1,31 @@
+package Utilities;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Loads browser-side helpers from src/test/resources/scripts once and keeps them in memory.
+public final class Scripts {
+
+    private static final Map<String, String> CACHE = new ConcurrentHashMap<>();
+
+    private Scripts() {
+    }
+
+    public static String load(String name) {
+        return CACHE.computeIfAbsent(name, Scripts::read);
+    }
+
+    private static String read(String name) {
+        try (InputStream in = Scripts.class.getClassLoader().getResourceAsStream("scripts/" + name)) {
+            if (in == null) {
+                throw new IllegalStateException("Missing script resource: scripts/" + name);
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not read script " + name, e);
+        }
+    }
+}
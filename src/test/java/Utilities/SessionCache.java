@@ -0,0 +1,147 @@
+package Utilities;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.json.Json;
+
+import Pages.LocatorRegistry;
+
+/*
+    Remembers a logged-in browser session per mobile number so later classes can skip the
+    OTP login (steps 3-7) and start straight at the post-login page.
+
+    capture() is called once a UI login has finished; restore() loads cookies, localStorage and
+    sessionStorage into a fresh browser and returns the URL to open. A snapshot older than
+    session.cache.maxAgeMinutes, or holding an expired cookie/JWT, is dropped. If the app still
+    shows the login page after a restore, invalidate() removes the snapshot and the flow logs in normally.
+    Snapshots are also written to target/session-cache so a rerun in the same workspace can reuse them.
+
+    Disable with -Dsession.cache=false.
+*/
+public final class SessionCache {
+
+    private static final Json JSON = new Json();
+
+    private static final SessionCache SHARED = new SessionCache(
+        Config.getBoolean("session.cache", true),
+        TimeUnit.MINUTES.toMillis(Config.getLong("session.cache.maxAgeMinutes", 30)),
+        Paths.get(Config.get("session.cache.dir", "target/session-cache")));
+
+    private final boolean enabled;
+    private final long maxAgeMillis;
+    private final Path dir;
+    private final Map<String, SessionSnapshot> snapshots = new ConcurrentHashMap<>();
+
+    public SessionCache(boolean enabled, long maxAgeMillis, Path dir) {
+        this.enabled = enabled;
+        this.maxAgeMillis = maxAgeMillis;
+        this.dir = dir;
+    }
+
+    public static SessionCache shared() {
+        return SHARED;
+    }
+
+    // Store the current browser session for this account. Call only after a successful login.
+    public void capture(WebDriver driver, String mobileNumber) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            SessionSnapshot snapshot = SessionSnapshot.of(driver);
+            snapshots.put(mobileNumber, snapshot);
+            persist(mobileNumber, snapshot);
+            RunLog.info("Session snapshot captured for " + mobileNumber + " (" + snapshot.cookies.size() + " cookies).");
+        } catch (Exception e) {
+            RunLog.info("Could not capture session snapshot: " + e.getMessage());
+        }
+    }
+
+    /*
+        Load the account's snapshot into the browser. Returns the page to open, or null when there is
+        no usable snapshot (the caller then opens the login page as usual).
+    */
+    public String restore(WebDriver driver, String mobileNumber) {
+        if (!enabled) {
+            return null;
+        }
+        SessionSnapshot snapshot = snapshots.computeIfAbsent(mobileNumber, this::load);
+        if (snapshot == null) {
+            return null;
+        }
+        if (snapshot.isExpired(maxAgeMillis)) {
+            RunLog.info("Session snapshot for " + mobileNumber + " has expired, logging in again.");
+            invalidate(mobileNumber);
+            return null;
+        }
+        try {
+            snapshot.applyTo(driver);
+            return snapshot.landingUrl;
+        } catch (Exception e) {
+            RunLog.info("Could not restore session snapshot, logging in again: " + e.getMessage());
+            invalidate(mobileNumber);
+            return null;
+        }
+    }
+
+    // True once the post-login layout (sidebar) shows up; false if the Login/Register button appears instead.
+    public boolean isLoggedIn(WebDriver driver) {
+        By sidebar = LocatorRegistry.by("nav.sidebar");
+        try {
+            AppWait.on(driver).anyPresent(Duration.ofSeconds(Config.getLong("session.cache.verifySeconds", 10)),
+                sidebar, LocatorRegistry.by("login.open"));
+        } catch (TimeoutException e) {
+            RunLog.info("Neither the sidebar nor the login button showed up after restoring the session: " + e.getMessage());
+            return false;
+        }
+        return !driver.findElements(sidebar).isEmpty();
+    }
+
+    public void invalidate(String mobileNumber) {
+        snapshots.remove(mobileNumber);
+        try {
+            Files.deleteIfExists(fileFor(mobileNumber));
+        } catch (IOException e) {
+            RunLog.info("Could not delete session snapshot file: " + e.getMessage());
+        }
+    }
+
+    // === Persistence ===
+
+    private void persist(String mobileNumber, SessionSnapshot snapshot) {
+        try {
+            Files.createDirectories(dir);
+            Files.write(fileFor(mobileNumber), JSON.toJson(snapshot.toMap()).getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            RunLog.info("Could not write session snapshot file: " + e.getMessage());
+        }
+    }
+
+    private SessionSnapshot load(String mobileNumber) {
+        Path file = fileFor(mobileNumber);
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try {
+            return SessionSnapshot.fromMap(JSON.toType(new String(Files.readAllBytes(file), StandardCharsets.UTF_8), Json.MAP_TYPE));
+        } catch (Exception e) {
+            RunLog.info("Ignoring unreadable session snapshot " + file + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private Path fileFor(String mobileNumber) {
+        return dir.resolve(mobileNumber + ".json");
+    }
+}
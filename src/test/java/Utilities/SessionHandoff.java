@@ -0,0 +1,85 @@
+package Utilities;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import org.openqa.selenium.WebDriver;
+
+/*
+    Passes a logged-in browser, with its account lease, from one flow class to the next flow of the
+    same role, so the login prefix runs once per role instead of once per class.
+
+    SharedPrefixScheduler tells it how many flows of each role the suite runs. Every flow of the role
+    take()s on setup; at teardown a flow that ended logged in offer()s its session, which is kept only
+    while more flows of the role are still to come. Anything left is returned by releaseAll().
+*/
+public final class SessionHandoff {
+
+    private static final SessionHandoff SHARED = new SessionHandoff();
+
+    private final Map<AccountRole, Integer> remaining = new EnumMap<>(AccountRole.class);
+    private final Map<AccountRole, Session> parked = new EnumMap<>(AccountRole.class);
+
+    SessionHandoff() {
+    }
+
+    public static SessionHandoff shared() {
+        return SHARED;
+    }
+
+    // The suite will run this many flows of the role.
+    public synchronized void expect(AccountRole role, int flows) {
+        remaining.put(role, flows);
+    }
+
+    // Called once by every flow of the role as it starts; returns the session a previous flow left, if any.
+    public synchronized Session take(AccountRole role) {
+        remaining.computeIfPresent(role, (r, left) -> Math.max(0, left - 1));
+        return parked.remove(role);
+    }
+
+    // Keep the session for the next flow of the role. False when no such flow is due; the caller releases it then.
+    public synchronized boolean offer(AccountRole role, Session session) {
+        if (remaining.getOrDefault(role, 0) == 0 || parked.containsKey(role)) {
+            return false;
+        }
+        parked.put(role, session);
+        return true;
+    }
+
+    public void releaseAll() {
+        List<Session> left;
+        synchronized (this) {
+            left = new ArrayList<>(parked.values());
+            parked.clear();
+            remaining.clear();
+        }
+        for (Session session : left) {
+            session.release();
+        }
+    }
+
+    public static final class Session {
+        final WebDriver driver;
+        final AccountLease account;
+        final String url;
+        final String from;
+
+        public Session(WebDriver driver, AccountLease account, String url, String from) {
+            this.driver = driver;
+            this.account = account;
+            this.url = url;
+            this.from = from;
+        }
+
+        void release() {
+            try {
+                DriverPool.shared().release(driver);
+            } finally {
+                account.close();
+            }
+        }
+    }
+}
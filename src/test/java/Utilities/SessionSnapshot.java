@@ -0,0 +1,163 @@
+package Utilities;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.openqa.selenium.Cookie;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.json.Json;
+import org.openqa.selenium.json.TypeToken;
+
+// Everything needed to put a browser back into a logged-in state: cookies, web storage and the page it was on.
+public final class SessionSnapshot {
+
+    private static final Pattern JWT_EXP = Pattern.compile("\"exp\"\\s*:\\s*(\\d+)");
+    private static final String READ_STORAGE =
+        "var out = {local: {}, session: {}};"
+        + "for (var i = 0; i < localStorage.length; i++) { var k = localStorage.key(i); out.local[k] = localStorage.getItem(k); }"
+        + "for (var j = 0; j < sessionStorage.length; j++) { var s = sessionStorage.key(j); out.session[s] = sessionStorage.getItem(s); }"
+        + "return JSON.stringify(out);";
+    private static final String WRITE_STORAGE =
+        "var local = arguments[0], session = arguments[1];"
+        + "Object.keys(local).forEach(function (k) { localStorage.setItem(k, local[k]); });"
+        + "Object.keys(session).forEach(function (k) { sessionStorage.setItem(k, session[k]); });";
+
+    final String origin;
+    final String landingUrl;
+    final long capturedAtMillis;
+    final List<Map<String, Object>> cookies;
+    final Map<String, String> localStorage;
+    final Map<String, String> sessionStorage;
+
+    SessionSnapshot(String origin, String landingUrl, long capturedAtMillis, List<Map<String, Object>> cookies,
+                    Map<String, String> localStorage, Map<String, String> sessionStorage) {
+        this.origin = origin;
+        this.landingUrl = landingUrl;
+        this.capturedAtMillis = capturedAtMillis;
+        this.cookies = cookies;
+        this.localStorage = localStorage;
+        this.sessionStorage = sessionStorage;
+    }
+
+    // The browser's current session, with the page it is on as landing URL.
+    static SessionSnapshot of(WebDriver driver) {
+        String url = driver.getCurrentUrl();
+        Map<String, Map<String, String>> storage = new Json().toType(
+            (String) ((JavascriptExecutor) driver).executeScript(READ_STORAGE),
+            new TypeToken<Map<String, Map<String, String>>>() { }.getType());
+        URI uri = URI.create(url);
+        return new SessionSnapshot(uri.getScheme() + "://" + uri.getAuthority(), url, System.currentTimeMillis(),
+            toMaps(driver.manage().getCookies()), storage.get("local"), storage.get("session"));
+    }
+
+    // Load cookies and web storage into the browser; the caller then opens landingUrl.
+    void applyTo(WebDriver driver) {
+        // Cookies and storage can only be set for the origin currently loaded; a small static resource is enough.
+        driver.get(origin + Config.get("session.cache.bootstrapPath", "/favicon.ico"));
+        for (Cookie cookie : toCookies()) {
+            driver.manage().addCookie(cookie);
+        }
+        ((JavascriptExecutor) driver).executeScript(WRITE_STORAGE, localStorage, sessionStorage);
+    }
+
+    Map<String, Object> toMap() {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("origin", origin);
+        data.put("landingUrl", landingUrl);
+        data.put("capturedAtMillis", capturedAtMillis);
+        data.put("cookies", cookies);
+        data.put("localStorage", localStorage);
+        data.put("sessionStorage", sessionStorage);
+        return data;
+    }
+
+    @SuppressWarnings("unchecked")
+    static SessionSnapshot fromMap(Map<String, Object> data) {
+        return new SessionSnapshot(
+            (String) data.get("origin"),
+            (String) data.get("landingUrl"),
+            ((Number) data.get("capturedAtMillis")).longValue(),
+            (List<Map<String, Object>>) data.get("cookies"),
+            (Map<String, String>) data.get("localStorage"),
+            (Map<String, String>) data.get("sessionStorage"));
+    }
+
+    static List<Map<String, Object>> toMaps(Iterable<Cookie> cookies) {
+        List<Map<String, Object>> list = new ArrayList<>();
+        for (Cookie cookie : cookies) {
+            list.add(new LinkedHashMap<>(cookie.toJson()));
+        }
+        return list;
+    }
+
+    List<Cookie> toCookies() {
+        List<Cookie> list = new ArrayList<>();
+        for (Map<String, Object> c : cookies) {
+            Cookie.Builder builder = new Cookie.Builder((String) c.get("name"), (String) c.get("value"))
+                .path((String) c.getOrDefault("path", "/"))
+                .isSecure(Boolean.TRUE.equals(c.get("secure")))
+                .isHttpOnly(Boolean.TRUE.equals(c.get("httpOnly")));
+            if (c.get("expiry") != null) {
+                builder.expiresOn(new Date(toMillis(c.get("expiry"))));
+            }
+            if (c.get("sameSite") != null) {
+                builder.sameSite((String) c.get("sameSite"));
+            }
+            list.add(builder.build());
+        }
+        return list;
+    }
+
+    // Expired if it is older than maxAgeMillis, any cookie has expired, or a JWT in web storage has passed its exp.
+    boolean isExpired(long maxAgeMillis) {
+        long now = System.currentTimeMillis();
+        if (now - capturedAtMillis > maxAgeMillis) {
+            return true;
+        }
+        for (Map<String, Object> c : cookies) {
+            if (c.get("expiry") != null && toMillis(c.get("expiry")) <= now) {
+                return true;
+            }
+        }
+        return jwtExpired(localStorage.values(), now) || jwtExpired(sessionStorage.values(), now);
+    }
+
+    // Cookie.toJson() gives expiry as a Date; after a round trip through JSON it is epoch seconds.
+    private static long toMillis(Object expiry) {
+        if (expiry instanceof Date) {
+            return ((Date) expiry).getTime();
+        }
+        return ((Number) expiry).longValue() * 1000L;
+    }
+
+    private static boolean jwtExpired(Iterable<String> values, long now) {
+        for (String value : values) {
+            if (value == null) {
+                continue;
+            }
+            String token = value.replace("\"", "");
+            String[] parts = token.split("\\.");
+            if (parts.length != 3 || !token.startsWith("eyJ")) {
+                continue;
+            }
+            try {
+                String payload = new String(Base64.getUrlDecoder().decode(parts[1]));
+                Matcher m = JWT_EXP.matcher(payload);
+                if (m.find() && Long.parseLong(m.group(1)) * 1000L <= now) {
+                    return true;
+                }
+            } catch (IllegalArgumentException ignored) {
+                // not a JWT after all
+            }
+        }
+        return false;
+    }
+}
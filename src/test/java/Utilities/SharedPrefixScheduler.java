@@ -0,0 +1,98 @@
+package Utilities;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.testng.IAlterSuiteListener;
+import org.testng.xml.XmlClass;
+import org.testng.xml.XmlSuite;
+import org.testng.xml.XmlTest;
+
+/*
+    Runs the login prefix once per account role instead of once per flow class.
+
+    Every flow class repeats the same steps up to the KYC popup before it diverges. This listener reads
+    each BaseFlow class as a FlowGraph, groups the classes by their @FlowRole and puts the classes of a
+    role next to each other in the suite (in their original order otherwise). The first flow of a role
+    logs in through the UI; at teardown it hands its logged-in browser and account to the next flow of
+    the role (SessionHandoff), whose login steps are then passed over and whose business steps run
+    straight after - one login per role per run.
+
+    Only in sequential runs: with suite.parallel=classes the classes keep their order and each logs in
+    itself (or from SessionCache). Disable with -Dflow.sharedPrefix=false.
+*/
+public class SharedPrefixScheduler implements IAlterSuiteListener {
+
+    @Override
+    public void alter(List<XmlSuite> suites) {
+        if (!Config.getBoolean("flow.sharedPrefix", true) || "classes".equalsIgnoreCase(Config.get("suite.parallel", "none"))) {
+            return;
+        }
+        Map<AccountRole, Integer> flowsPerRole = new LinkedHashMap<>();
+        for (XmlSuite suite : suites) {
+            for (XmlTest test : suite.getTests()) {
+                List<XmlClass> ordered = schedule(test.getXmlClasses());
+                test.setXmlClasses(ordered);
+                for (XmlClass xmlClass : ordered) {
+                    AccountRole role = roleOf(xmlClass.getSupportClass());
+                    if (role != null) {
+                        flowsPerRole.merge(role, 1, Integer::sum);
+                    }
+                }
+            }
+        }
+        flowsPerRole.forEach(SessionHandoff.shared()::expect);
+    }
+
+    // Flow classes grouped by role at the position of the role's first class; other classes stay put.
+    static List<XmlClass> schedule(List<XmlClass> classes) {
+        Map<AccountRole, List<XmlClass>> byRole = new LinkedHashMap<>();
+        for (XmlClass xmlClass : classes) {
+            AccountRole role = roleOf(xmlClass.getSupportClass());
+            if (role != null) {
+                byRole.computeIfAbsent(role, r -> new ArrayList<>()).add(xmlClass);
+            }
+        }
+        List<XmlClass> ordered = new ArrayList<>();
+        for (XmlClass xmlClass : classes) {
+            AccountRole role = roleOf(xmlClass.getSupportClass());
+            if (role == null) {
+                ordered.add(xmlClass);
+            } else if (byRole.containsKey(role)) {
+                List<XmlClass> group = byRole.remove(role);
+                ordered.addAll(group);
+                describe(role, group);
+            }
+        }
+        return ordered;
+    }
+
+    private static void describe(AccountRole role, List<XmlClass> group) {
+        if (group.size() < 2) {
+            return;
+        }
+        List<FlowGraph> graphs = group.stream().map(c -> new FlowGraph(c.getSupportClass())).collect(Collectors.toList());
+        List<String> shared = FlowGraph.commonPrefix(graphs);
+        // Only login steps are skipped; identical business steps after them still run in every flow.
+        int login = graphs.stream().mapToInt(g -> g.loginPrefix().size()).min().orElse(0);
+        shared = shared.subList(0, Math.min(login, shared.size()));
+        RunLog.info("Shared login for " + role + ": " + (shared.isEmpty() ? "login steps" : String.join(" > ", shared))
+            + " run once, then " + graphs.stream()
+                .map(g -> g.flow().getSimpleName() + " (" + g.suffix().size() + " steps)")
+                .collect(Collectors.joining(", ")));
+    }
+
+    static AccountRole roleOf(Class<?> flow) {
+        if (flow == null || !BaseFlow.class.isAssignableFrom(flow)) {
+            return null;
+        }
+        FlowRole role = flow.getAnnotation(FlowRole.class);
+        if (role == null || new FlowGraph(flow).loginPrefix().isEmpty()) {
+            return null;
+        }
+        return role.value();
+    }
+}
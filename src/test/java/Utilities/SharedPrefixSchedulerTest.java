@@ -0,0 +1,58 @@
+package Utilities;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.testng.xml.XmlClass;
+
+public class SharedPrefixSchedulerTest {
+
+    private static final List<String> LOGIN = Arrays.asList("testOpenLoginPage", "testClickLoginRegisterButton",
+        "testEnterMobileAndClickLogin", "testFetchOtpFromDB", "testEnterOtpInputs", "testDismissKycPopupIfPresent");
+
+    @Test
+    public void loginPrefixIsTheEntryStepAndTheLoginSteps() throws Exception {
+        FlowGraph cancel = new FlowGraph(Class.forName("TestCases.OfferCancel"));
+        Assert.assertEquals(cancel.loginPrefix(), LOGIN);
+        Assert.assertEquals(cancel.suffix().get(0), "testMyBids");
+        Assert.assertEquals(cancel.dependsOn("testMyBids"), Arrays.asList("testDismissKycPopupIfPresent"));
+
+        FlowGraph account = new FlowGraph(Class.forName("TestCases.MyAccount"));
+        Assert.assertEquals(account.loginPrefix(), Arrays.asList("TC_01_Login_With_Mobile_And_OTP", "TC_02_Skip_KYC_Popup"));
+    }
+
+    @Test
+    public void flowsOfARoleShareTheirLoginPrefix() throws Exception {
+        List<FlowGraph> buyers = Arrays.asList(new FlowGraph(Class.forName("TestCases.OfferCancel")),
+            new FlowGraph(Class.forName("TestCases.View_Market_Offer")));
+        Assert.assertEquals(FlowGraph.commonPrefix(buyers).subList(0, LOGIN.size()), LOGIN);
+    }
+
+    @Test
+    public void flowsOfARoleAreScheduledBackToBack() {
+        List<XmlClass> classes = Arrays.asList("TestCases.MyAccount", "TestCases.OfferCancel", "TestCases.Own_CDSell",
+            "TestCases.Own_CDUtilize", "TestCases.View_Market_Offer", "Utilities.StepLatencyGate").stream()
+            .map(XmlClass::new).collect(Collectors.toList());
+
+        List<String> ordered = SharedPrefixScheduler.schedule(classes).stream().map(XmlClass::getName).collect(Collectors.toList());
+
+        Assert.assertEquals(ordered, Arrays.asList("TestCases.MyAccount", "TestCases.OfferCancel", "TestCases.View_Market_Offer",
+            "TestCases.Own_CDSell", "TestCases.Own_CDUtilize", "Utilities.StepLatencyGate"));
+    }
+
+    @Test
+    public void sessionIsKeptOnlyWhileAnotherFlowOfTheRoleFollows() {
+        SessionHandoff handoff = new SessionHandoff();
+        handoff.expect(AccountRole.BUYER, 2);
+        SessionHandoff.Session session = new SessionHandoff.Session(null, null, "https://app/home", "OfferCancel");
+
+        Assert.assertNull(handoff.take(AccountRole.BUYER), "The first flow logs in itself");
+        Assert.assertFalse(handoff.offer(AccountRole.SELLER, session), "No seller flow is due");
+        Assert.assertTrue(handoff.offer(AccountRole.BUYER, session));
+        Assert.assertSame(handoff.take(AccountRole.BUYER), session);
+        Assert.assertFalse(handoff.offer(AccountRole.BUYER, session), "The last buyer flow releases its session");
+    }
+}
@@ -0,0 +1,242 @@
+package Utilities;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import org.HdrHistogram.Histogram;
+import org.openqa.selenium.json.Json;
+
+/*
+    Time budgets for the flow steps, learned from their past timings (StepLatency runs in perf.resultsDir).
+
+    A step's budget is its budget.percentile (default p99) over the last budget.historyRuns runs times
+    budget.factor, kept between budget.floorSeconds and budget.ceilingSeconds; steps with fewer than
+    budget.minSamples timings have none. A flow's budget is the sum of the percentiles of the steps
+    it will actually run times budget.flowFactor: login steps passed over on a restored session and
+    steps before a resumed checkpoint do not count. While a step runs (BaseFlow), every wait in it - AppWait, the OTP wait - is cut
+    to what is left of the step's and the flow's budget, so a stuck page fails in seconds instead of
+    after the fixed 30s timeouts; a flow whose budget is used up fails its next step at once.
+
+    The budgets are re-learned after every run that timed steps, written to step-budgets.json and
+    printed. Only suite runs use them; load mode (LoadRunner) runs steps without the budgets.
+*/
+public final class StepBudgets {
+
+    private static final Json JSON = new Json();
+    private static final ThreadLocal<Deadline> CURRENT = new ThreadLocal<>();
+    private static volatile StepBudgets shared;
+
+    private final Map<String, Long> stepMillis;
+    // The unscaled percentile of every learned step, which the flow budgets are summed from.
+    private final Map<String, Long> percentileMillis;
+    private final double flowFactor;
+    private final long floorMs;
+
+    StepBudgets(Map<String, Long> stepMillis, Map<String, Long> percentileMillis, double flowFactor, long floorMs) {
+        this.stepMillis = new TreeMap<>(stepMillis);
+        this.percentileMillis = new TreeMap<>(percentileMillis);
+        this.flowFactor = flowFactor;
+        this.floorMs = floorMs;
+    }
+
+    private static StepBudgets none() {
+        return new StepBudgets(Collections.emptyMap(), Collections.emptyMap(), 0, 0);
+    }
+
+    public static StepBudgets shared() {
+        if (shared == null) {
+            synchronized (StepBudgets.class) {
+                if (shared == null) {
+                    shared = Config.getBoolean("budget.enabled", true) ? load(file()) : none();
+                }
+            }
+        }
+        return shared;
+    }
+
+    static Path file() {
+        return StepLatency.resultsDir().resolve("step-budgets.json");
+    }
+
+    // Budget of "Flow.step" in ms, or null when the step has too little history.
+    public Long step(String stepKey) {
+        return stepMillis.get(stepKey);
+    }
+
+    // Budget in ms of a flow run made of the given steps, or null unless every one of them has a budget.
+    public Long flow(String flow, Collection<String> steps) {
+        if (steps.isEmpty() || flowFactor <= 0) {
+            return null;
+        }
+        long sum = 0;
+        for (String step : steps) {
+            Long ms = percentileMillis.get(flow + "." + step);
+            if (ms == null) {
+                return null;
+            }
+            sum += ms;
+        }
+        return Math.max(floorMs, Math.round(sum * flowFactor));
+    }
+
+    // === Deadlines of the running step ===
+
+    // Called by BaseFlow around each step; stepMillis may be null, flowDeadlineNanos 0 for no flow budget.
+    static void begin(String stepKey, Long stepMillis, long flowDeadlineNanos) {
+        long stepDeadline = stepMillis == null ? 0 : System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(stepMillis);
+        CURRENT.set(new Deadline(stepKey, stepMillis == null ? 0 : stepMillis, stepDeadline, flowDeadlineNanos));
+    }
+
+    static void end() {
+        CURRENT.remove();
+    }
+
+    // The requested timeout, cut to what is left of the current step's and flow's budget.
+    public static Duration clamp(Duration requested) {
+        Deadline deadline = CURRENT.get();
+        if (deadline == null) {
+            return requested;
+        }
+        long remaining = deadline.remainingNanos();
+        return remaining == Long.MAX_VALUE ? requested : Duration.ofNanos(Math.min(requested.toNanos(), Math.max(0, remaining)));
+    }
+
+    // Why a wait was cut short, for its timeout message.
+    public static String describe() {
+        Deadline deadline = CURRENT.get();
+        if (deadline == null) {
+            return "no time budget";
+        }
+        if (deadline.stepDeadline != 0 && (deadline.flowDeadline == 0 || deadline.stepDeadline <= deadline.flowDeadline)) {
+            return "time budget of " + deadline.stepKey + " is " + deadline.stepMillis + " ms (learned from past runs, see " + file() + ")";
+        }
+        return "time budget of the " + StepContext.flow() + " flow is used up (learned from past runs, see " + file() + ")";
+    }
+
+    // === Learning ===
+
+    static StepBudgets learn(Map<String, Histogram> history, double percentile, double factor, long floorMs,
+                             long ceilingMs, int minSamples, double flowFactor) {
+        Map<String, Long> steps = new TreeMap<>();
+        Map<String, Long> percentiles = new TreeMap<>();
+        for (Map.Entry<String, Histogram> entry : history.entrySet()) {
+            Histogram h = entry.getValue();
+            if (h.getTotalCount() < minSamples) {
+                continue;
+            }
+            double ms = StepLatency.millis(h.getValueAtPercentile(percentile));
+            steps.put(entry.getKey(), Math.min(ceilingMs, Math.max(floorMs, Math.round(ms * factor))));
+            percentiles.put(entry.getKey(), Math.round(ms));
+        }
+        return new StepBudgets(steps, percentiles, flowFactor, floorMs);
+    }
+
+    // Re-learns the budgets from the latest stored runs, saves and prints them. Called after StepLatency.saveRun().
+    public static void relearn() throws IOException {
+        Map<String, Histogram> history = StepLatency.mergeLatestRuns(Config.getInt("budget.historyRuns", 10));
+        StepBudgets learned = learn(history, Config.getDouble("budget.percentile", 99), Config.getDouble("budget.factor", 3),
+            TimeUnit.SECONDS.toMillis(Config.getLong("budget.floorSeconds", 5)),
+            TimeUnit.SECONDS.toMillis(Config.getLong("budget.ceilingSeconds", 90)),
+            Config.getInt("budget.minSamples", 5), Config.getDouble("budget.flowFactor", 1.5));
+        learned.save(file());
+        System.out.println("Step time budgets for the next run (" + file() + "):\n" + learned.report());
+    }
+
+    String report() {
+        StringBuilder sb = new StringBuilder(String.format("%-55s %10s%n", "step / flow", "budget s"));
+        stepMillis.forEach((step, ms) -> sb.append(String.format("%-55s %10.1f%n", step, ms / 1000.0)));
+        Map<String, List<String>> flows = new TreeMap<>();
+        for (String key : percentileMillis.keySet()) {
+            int dot = key.indexOf('.');
+            if (dot > 0) {
+                flows.computeIfAbsent(key.substring(0, dot), k -> new ArrayList<>()).add(key.substring(dot + 1));
+            }
+        }
+        flows.forEach((flow, steps) -> {
+            // Null with budget.flowFactor=0, which switches flow budgets off.
+            Long ms = flow(flow, steps);
+            if (ms != null) {
+                sb.append(String.format("%-55s %10.1f%n", flow + " (all steps)", ms / 1000.0));
+            }
+        });
+        return sb.toString();
+    }
+
+    void save(Path file) throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("unit", "ms");
+        data.put("steps", stepMillis);
+        data.put("percentiles", percentileMillis);
+        data.put("flowFactor", flowFactor);
+        data.put("floorMs", floorMs);
+        Files.write(file, JSON.toJson(data).getBytes(StandardCharsets.UTF_8));
+    }
+
+    @SuppressWarnings("unchecked")
+    static StepBudgets load(Path file) {
+        if (!Files.exists(file)) {
+            return none();
+        }
+        try {
+            Map<String, Object> data = JSON.toType(new String(Files.readAllBytes(file), StandardCharsets.UTF_8), Json.MAP_TYPE);
+            Object flowFactor = data.get("flowFactor");
+            Object floorMs = data.get("floorMs");
+            StepBudgets budgets = new StepBudgets(toMillis((Map<String, Object>) data.get("steps")),
+                toMillis((Map<String, Object>) data.get("percentiles")),
+                flowFactor instanceof Number ? ((Number) flowFactor).doubleValue() : 0,
+                floorMs instanceof Number ? ((Number) floorMs).longValue() : 0);
+            RunLog.info("Step time budgets loaded for " + budgets.stepMillis.size() + " steps from " + file + ".");
+            return budgets;
+        } catch (IOException | RuntimeException e) {
+            RunLog.info("Ignoring unreadable step budgets " + file + ": " + e.getMessage());
+            return none();
+        }
+    }
+
+    private static Map<String, Long> toMillis(Map<String, Object> values) {
+        Map<String, Long> millis = new TreeMap<>();
+        if (values != null) {
+            values.forEach((key, value) -> millis.put(key, ((Number) value).longValue()));
+        }
+        return millis;
+    }
+
+    private static final class Deadline {
+        final String stepKey;
+        final long stepMillis;
+        final long stepDeadline;
+        final long flowDeadline;
+
+        Deadline(String stepKey, long stepMillis, long stepDeadline, long flowDeadline) {
+            this.stepKey = stepKey;
+            this.stepMillis = stepMillis;
+            this.stepDeadline = stepDeadline;
+            this.flowDeadline = flowDeadline;
+        }
+
+        // Nanoseconds left before the nearer deadline, Long.MAX_VALUE without any.
+        long remainingNanos() {
+            long now = System.nanoTime();
+            long remaining = Long.MAX_VALUE;
+            if (stepDeadline != 0) {
+                remaining = stepDeadline - now;
+            }
+            if (flowDeadline != 0) {
+                remaining = Math.min(remaining, flowDeadline - now);
+            }
+            return remaining;
+        }
+    }
+}
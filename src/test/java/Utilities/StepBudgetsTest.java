@@ -0,0 +1,110 @@
+package Utilities;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.HdrHistogram.Histogram;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class StepBudgetsTest {
+
+    private static Map<String, Histogram> history() {
+        Map<String, Histogram> history = new HashMap<>();
+        history.put("Flow.fast", histogram(5, 200));        // p99 200 ms x 3, raised to the 1 s floor
+        history.put("Flow.slow", histogram(5, 4000));       // p99 4 s x 3 = 12 s
+        history.put("Flow.otp", histogram(5, 30_000));      // p99 30 s x 3, capped at 60 s
+        history.put("Flow.rare", histogram(2, 9000));       // too few samples
+        return history;
+    }
+
+    private static Histogram histogram(int count, long millis) {
+        Histogram h = StepLatency.newHistogram();
+        for (int i = 0; i < count; i++) {
+            h.recordValue(millis * 1000);
+        }
+        return h;
+    }
+
+    private static StepBudgets learned() {
+        return StepBudgets.learn(history(), 99, 3, 1000, 60_000, 5, 1.5);
+    }
+
+    @Test
+    public void stepBudgetIsPercentileTimesFactorWithinFloorAndCeiling() {
+        StepBudgets budgets = learned();
+
+        Assert.assertEquals(budgets.step("Flow.fast"), 1000L, 20.0);
+        Assert.assertEquals(budgets.step("Flow.slow"), 12_000L, 20.0);
+        Assert.assertEquals(budgets.step("Flow.otp"), Long.valueOf(60_000));
+        Assert.assertNull(budgets.step("Flow.rare"), "Too few samples to learn from");
+    }
+
+    @Test
+    public void flowBudgetNeedsEveryStepLearned() {
+        StepBudgets budgets = learned();
+
+        Assert.assertEquals(budgets.flow("Flow", Arrays.asList("fast", "slow", "otp")), (200 + 4000 + 30_000) * 1.5, 60.0);
+        Assert.assertNull(budgets.flow("Flow", Arrays.asList("fast", "rare")));
+    }
+
+    @Test
+    public void flowBudgetCoversOnlyTheStepsThatRun() {
+        StepBudgets budgets = learned();
+
+        // e.g. "otp" is a login step passed over on a restored session.
+        Assert.assertEquals(budgets.flow("Flow", Arrays.asList("fast", "slow")), (200 + 4000) * 1.5, 20.0);
+        Assert.assertEquals(budgets.flow("Flow", Arrays.asList("fast")), Long.valueOf(1000), "Raised to the floor");
+        Assert.assertNull(budgets.flow("Flow", Arrays.asList()), "No steps left to run");
+    }
+
+    @Test
+    public void flowFactorZeroSwitchesFlowBudgetsOff() {
+        StepBudgets budgets = StepBudgets.learn(history(), 99, 3, 1000, 60_000, 5, 0);
+
+        Assert.assertNull(budgets.flow("Flow", Arrays.asList("fast", "slow")));
+        String report = budgets.report();
+        Assert.assertTrue(report.contains("Flow.slow") && !report.contains("(all steps)"), report);
+    }
+
+    @Test
+    public void waitsAreCutToTheRunningStepsBudget() {
+        Duration requested = Duration.ofSeconds(30);
+        Assert.assertEquals(StepBudgets.clamp(requested), requested, "No step running, no budget");
+
+        StepBudgets.begin("Flow.slow", 12_000L, 0);
+        try {
+            Assert.assertTrue(StepBudgets.clamp(requested).toMillis() <= 12_000);
+            Assert.assertTrue(StepBudgets.clamp(requested).toMillis() > 11_000);
+            Assert.assertEquals(StepBudgets.clamp(Duration.ofSeconds(5)), Duration.ofSeconds(5), "Shorter waits are left alone");
+        } finally {
+            StepBudgets.end();
+        }
+
+        StepBudgets.begin("Flow.new", null, System.nanoTime() - 1);
+        try {
+            Assert.assertEquals(StepBudgets.clamp(requested), Duration.ZERO, "Flow budget used up");
+        } finally {
+            StepBudgets.end();
+        }
+    }
+
+    @Test
+    public void budgetsSurviveTheStore() throws Exception {
+        Path file = Files.createTempFile("step-budgets", ".json");
+        try {
+            learned().save(file);
+
+            StepBudgets read = StepBudgets.load(file);
+
+            Assert.assertEquals(read.step("Flow.otp"), Long.valueOf(60_000));
+            Assert.assertEquals(read.flow("Flow", Arrays.asList("fast", "slow")), learned().flow("Flow", Arrays.asList("fast", "slow")));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
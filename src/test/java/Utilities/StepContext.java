@@ -0,0 +1,41 @@
+package Utilities;
+
+/*
+    Which flow and step the current thread is executing, e.g. flow "Own_CDSell", step "testClickSellButton".
+    Set by StepListener around every TestNG method; read by anything that attributes cost to a step.
+*/
+public final class StepContext {
+
+    private static final ThreadLocal<StepContext> CURRENT = new ThreadLocal<>();
+
+    private final String flow;
+    private final String step;
+
+    private StepContext(String flow, String step) {
+        this.flow = flow;
+        this.step = step;
+    }
+
+    public static void begin(String flow, String step) {
+        CURRENT.set(new StepContext(flow, step));
+    }
+
+    public static void end() {
+        CURRENT.remove();
+    }
+
+    public static String flow() {
+        StepContext context = CURRENT.get();
+        return context == null ? "(none)" : context.flow;
+    }
+
+    public static String step() {
+        StepContext context = CURRENT.get();
+        return context == null ? "(none)" : context.step;
+    }
+
+    // "Flow.step", the key used in reports.
+    public static String key() {
+        return flow() + "." + step();
+    }
+}
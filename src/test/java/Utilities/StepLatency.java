@@ -0,0 +1,225 @@
+package Utilities;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.DataFormatException;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.openqa.selenium.json.Json;
+
+/*
+    Step timings of the UI flows (BaseFlow subclasses) in HdrHistograms, in microseconds, per "Flow.step".
+
+    Every run is stored under perf.resultsDir (default perf-results) as runs/<timestamp>.json holding
+    the compressed histograms. baseline.json is what the regression gate (StepLatencyGate) compares
+    against: the last perf.baseline.runs runs (default 5) merged, so a sequential suite's one sample
+    per step and run is not compared against a single earlier sample. Until that many runs are stored
+    it is rebuilt after every run (and the gate skips); after that it stays fixed, so a slow drift does
+    not become the new normal, until the suite is run with -Dperf.updateBaseline=true.
+*/
+public final class StepLatency {
+
+    private static final Map<String, Histogram> CURRENT = new ConcurrentHashMap<>();
+    private static final Json JSON = new Json();
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    private StepLatency() {
+    }
+
+    public static void record(String stepKey, long nanos) {
+        CURRENT.computeIfAbsent(stepKey, k -> newHistogram()).recordValue(Math.max(1, TimeUnit.NANOSECONDS.toMicros(nanos)));
+    }
+
+    public static Map<String, Histogram> current() {
+        return Collections.unmodifiableMap(new TreeMap<>(CURRENT));
+    }
+
+    public static boolean isEmpty() {
+        return CURRENT.isEmpty();
+    }
+
+    public static Histogram newHistogram() {
+        return new ConcurrentHistogram(SIGNIFICANT_DIGITS);
+    }
+
+    // === Report ===
+
+    public static String report(Map<String, Histogram> histograms) {
+        StringBuilder sb = new StringBuilder(String.format("%-55s %6s %9s %9s %9s %9s%n", "step", "n", "p50 ms", "p95 ms", "p99 ms", "max ms"));
+        for (Map.Entry<String, Histogram> entry : new TreeMap<>(histograms).entrySet()) {
+            Histogram h = entry.getValue();
+            sb.append(String.format("%-55s %6d %9.1f %9.1f %9.1f %9.1f%n", entry.getKey(), h.getTotalCount(),
+                millis(h.getValueAtPercentile(50)), millis(h.getValueAtPercentile(95)),
+                millis(h.getValueAtPercentile(99)), millis(h.getMaxValue())));
+        }
+        return sb.toString();
+    }
+
+    static double millis(long micros) {
+        return micros / 1000.0;
+    }
+
+    // === Regression gate ===
+
+    // Steps whose p95 exceeds the baseline p95 by more than marginPct and by at least minDeltaMs.
+    public static List<String> regressions(Map<String, Histogram> current, Map<String, Histogram> baseline,
+                                           double marginPct, long minDeltaMs) {
+        List<String> failures = new ArrayList<>();
+        for (Map.Entry<String, Histogram> entry : new TreeMap<>(current).entrySet()) {
+            Histogram before = baseline.get(entry.getKey());
+            if (before == null || before.getTotalCount() == 0 || entry.getValue().getTotalCount() == 0) {
+                continue;
+            }
+            double was = millis(before.getValueAtPercentile(95));
+            double now = millis(entry.getValue().getValueAtPercentile(95));
+            if (now > was * (1 + marginPct / 100.0) && now - was >= minDeltaMs) {
+                failures.add(String.format("%s: p95 %.1f ms vs baseline %.1f ms (+%.0f%%, allowed +%.0f%%)",
+                    entry.getKey(), now, was, (now / was - 1) * 100, marginPct));
+            }
+        }
+        return failures;
+    }
+
+    // === Results store ===
+
+    public static Path resultsDir() {
+        return Paths.get(Config.get("perf.resultsDir", "perf-results"));
+    }
+
+    // Writes this run's histograms and builds or refreshes the baseline. Returns the run file.
+    public static Path saveRun() throws IOException {
+        Path runs = resultsDir().resolve("runs");
+        Files.createDirectories(runs);
+        Path runFile = runs.resolve(LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS")) + ".json");
+        write(runFile, current());
+        int merged = updateBaseline(resultsDir(), baselineRunsWanted(), Config.getBoolean("perf.updateBaseline", false));
+        if (merged > 0) {
+            RunLog.info("Step latency baseline built from the latest " + merged + " of " + baselineRunsWanted()
+                + " runs (" + resultsDir().resolve("baseline.json") + ").");
+        }
+        return runFile;
+    }
+
+    static int baselineRunsWanted() {
+        return Math.max(1, Config.getInt("perf.baseline.runs", 5));
+    }
+
+    // Rebuilds dir/baseline.json from the latest stored runs while it holds fewer than wanted runs, or when
+    // asked to. Returns how many runs went into it, 0 when it was left alone.
+    static int updateBaseline(Path dir, int wanted, boolean rebuild) throws IOException {
+        Path baselineFile = dir.resolve("baseline.json");
+        if (!rebuild && baselineRuns(baselineFile) >= wanted) {
+            return 0;
+        }
+        List<Path> files = latestRuns(dir.resolve("runs"), wanted);
+        write(baselineFile, merge(files), files.size());
+        return files.size();
+    }
+
+    public static Map<String, Histogram> loadBaseline() throws IOException {
+        Path baselineFile = resultsDir().resolve("baseline.json");
+        return Files.exists(baselineFile) ? read(baselineFile) : Collections.emptyMap();
+    }
+
+    // How many runs the baseline was merged from; 0 without one, 1 for one written before this was stored.
+    public static int baselineRuns() throws IOException {
+        return baselineRuns(resultsDir().resolve("baseline.json"));
+    }
+
+    static int baselineRuns(Path baselineFile) throws IOException {
+        if (!Files.exists(baselineFile)) {
+            return 0;
+        }
+        Map<String, Object> data = JSON.toType(new String(Files.readAllBytes(baselineFile), StandardCharsets.UTF_8), Json.MAP_TYPE);
+        Object runs = data.get("runs");
+        return runs instanceof Number ? ((Number) runs).intValue() : 1;
+    }
+
+    static Map<String, Histogram> mergeLatestRuns(int count) throws IOException {
+        return merge(latestRuns(resultsDir().resolve("runs"), count));
+    }
+
+    private static List<Path> latestRuns(Path runsDir, int count) throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(runsDir, "*.json")) {
+            stream.forEach(files::add);
+        }
+        Collections.sort(files);
+        return files.subList(Math.max(0, files.size() - count), files.size());
+    }
+
+    private static Map<String, Histogram> merge(List<Path> files) throws IOException {
+        Map<String, Histogram> merged = new HashMap<>();
+        for (Path file : files) {
+            for (Map.Entry<String, Histogram> entry : read(file).entrySet()) {
+                merged.computeIfAbsent(entry.getKey(), k -> newHistogram()).add(entry.getValue());
+            }
+        }
+        return merged;
+    }
+
+    static void write(Path file, Map<String, Histogram> histograms) throws IOException {
+        write(file, histograms, 0);
+    }
+
+    // runs > 0 records how many runs the histograms were merged from (the baseline).
+    static void write(Path file, Map<String, Histogram> histograms, int runs) throws IOException {
+        Map<String, Object> steps = new LinkedHashMap<>();
+        for (Map.Entry<String, Histogram> entry : new TreeMap<>(histograms).entrySet()) {
+            Histogram h = entry.getValue();
+            ByteBuffer buffer = ByteBuffer.allocate(h.getNeededByteBufferCapacity());
+            int length = h.encodeIntoCompressedByteBuffer(buffer);
+            Map<String, Object> step = new LinkedHashMap<>();
+            step.put("count", h.getTotalCount());
+            step.put("p50Ms", millis(h.getValueAtPercentile(50)));
+            step.put("p95Ms", millis(h.getValueAtPercentile(95)));
+            step.put("p99Ms", millis(h.getValueAtPercentile(99)));
+            step.put("maxMs", millis(h.getMaxValue()));
+            step.put("histogram", Base64.getEncoder().encodeToString(Arrays.copyOf(buffer.array(), length)));
+            steps.put(entry.getKey(), step);
+        }
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("unit", "us");
+        if (runs > 0) {
+            data.put("runs", runs);
+        }
+        data.put("steps", steps);
+        Files.write(file, JSON.toJson(data).getBytes(StandardCharsets.UTF_8));
+    }
+
+    @SuppressWarnings("unchecked")
+    static Map<String, Histogram> read(Path file) throws IOException {
+        Map<String, Object> data = JSON.toType(new String(Files.readAllBytes(file), StandardCharsets.UTF_8), Json.MAP_TYPE);
+        Map<String, Histogram> histograms = new HashMap<>();
+        Map<String, Object> steps = (Map<String, Object>) data.getOrDefault("steps", Collections.emptyMap());
+        for (Map.Entry<String, Object> entry : steps.entrySet()) {
+            String encoded = String.valueOf(((Map<String, Object>) entry.getValue()).get("histogram"));
+            try {
+                histograms.put(entry.getKey(), Histogram.decodeFromCompressedByteBuffer(
+                    ByteBuffer.wrap(Base64.getDecoder().decode(encoded)), 0));
+            } catch (DataFormatException | IllegalArgumentException e) {
+                RunLog.info("Skipping unreadable histogram for " + entry.getKey() + " in " + file + ": " + e.getMessage());
+            }
+        }
+        return histograms;
+    }
+}
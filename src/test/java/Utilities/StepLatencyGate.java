@@ -0,0 +1,41 @@
+package Utilities;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import org.HdrHistogram.Histogram;
+import org.testng.Assert;
+import org.testng.SkipException;
+import org.testng.annotations.Test;
+
+/*
+    Regression gate, run as the last <test> of testng.xml: fails the build when any flow step's p95 in
+    this run is worse than the stored baseline (StepLatency) by more than perf.gate.marginPct percent
+    (default 25) and at least perf.gate.minDeltaMs (default 500, so sub-second noise never trips it).
+    Skipped while the baseline is merged from fewer than perf.baseline.runs runs (it is still being
+    built, see StepLatency) or with -Dperf.gate.enabled=false.
+*/
+public class StepLatencyGate {
+
+    @Test
+    public void stepP95WithinBaseline() throws IOException {
+        if (!Config.getBoolean("perf.gate.enabled", true)) {
+            throw new SkipException("Step latency gate disabled (perf.gate.enabled=false)");
+        }
+        Map<String, Histogram> current = StepLatency.current();
+        Map<String, Histogram> baseline = StepLatency.loadBaseline();
+        if (current.isEmpty() || baseline.isEmpty()) {
+            throw new SkipException("Nothing to compare: " + current.size() + " steps timed, " + baseline.size() + " in the baseline");
+        }
+        int runs = StepLatency.baselineRuns();
+        if (runs < StepLatency.baselineRunsWanted()) {
+            throw new SkipException("Step latency baseline has " + runs + " of " + StepLatency.baselineRunsWanted()
+                + " runs (perf.baseline.runs); the gate starts once it has them all");
+        }
+        double margin = Config.getInt("perf.gate.marginPct", 25);
+        List<String> regressions = StepLatency.regressions(current, baseline, margin, Config.getLong("perf.gate.minDeltaMs", 500));
+        RunLog.info("Step latency vs baseline: " + regressions.size() + " regression(s) across " + current.size() + " steps.");
+        Assert.assertTrue(regressions.isEmpty(), "FAILED [Latency Gate]: steps slower than baseline:\n  " + String.join("\n  ", regressions));
+    }
+}
@@ -0,0 +1,82 @@
+package Utilities;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.HdrHistogram.Histogram;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class StepLatencyTest {
+
+    @Test
+    public void slowerP95BeyondMarginIsARegression() {
+        Map<String, Histogram> baseline = histograms("Flow.step", 1000, 1100, 1200);
+        Map<String, Histogram> current = histograms("Flow.step", 1900, 2000, 2100);
+
+        List<String> failures = StepLatency.regressions(current, baseline, 25, 500);
+
+        Assert.assertEquals(failures.size(), 1);
+        Assert.assertTrue(failures.get(0).startsWith("Flow.step: p95 21"), failures.get(0));
+    }
+
+    @Test
+    public void smallOrUnknownChangesPass() {
+        Map<String, Histogram> baseline = histograms("Flow.fast", 100, 100, 100);
+        baseline.putAll(histograms("Flow.slow", 5000, 5000, 5000));
+        Map<String, Histogram> current = histograms("Flow.fast", 300, 300, 300);   // +200%, but only 200ms
+        current.putAll(histograms("Flow.slow", 5800, 5800, 5800));                // +16%, within margin
+        current.putAll(histograms("Flow.new", 9000, 9000, 9000));                 // no baseline yet
+
+        Assert.assertTrue(StepLatency.regressions(current, baseline, 25, 500).isEmpty());
+    }
+
+    @Test
+    public void histogramsSurviveTheResultsStore() throws Exception {
+        Path file = Files.createTempFile("step-latency", ".json");
+        try {
+            StepLatency.write(file, histograms("Flow.step", 1000, 2000, 3000));
+
+            Histogram read = StepLatency.read(file).get("Flow.step");
+
+            Assert.assertEquals(read.getTotalCount(), 3);
+            Assert.assertEquals(StepLatency.millis(read.getValueAtPercentile(50)), 2000.0, 2.0);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void baselineGrowsFromTheLatestRunsUntilItHasEnough() throws Exception {
+        Path dir = Files.createTempDirectory("perf-results");
+        Files.createDirectories(dir.resolve("runs"));
+        Path baseline = dir.resolve("baseline.json");
+        long[] runMillis = {1000, 3000, 5000, 9000};
+        for (int i = 0; i < runMillis.length; i++) {
+            StepLatency.write(dir.resolve("runs").resolve("2026010" + (i + 1) + "-100000-000.json"), histograms("Flow.step", runMillis[i]));
+            StepLatency.updateBaseline(dir, 3, false);
+        }
+
+        Assert.assertEquals(StepLatency.baselineRuns(baseline), 3);
+        Histogram merged = StepLatency.read(baseline).get("Flow.step");
+        Assert.assertEquals(merged.getTotalCount(), 3, "Frozen once it held three runs: the fourth is not in it");
+        Assert.assertEquals(StepLatency.millis(merged.getMaxValue()), 5000.0, 5.0);
+
+        Assert.assertEquals(StepLatency.updateBaseline(dir, 3, true), 3);
+        Assert.assertEquals(StepLatency.millis(StepLatency.read(baseline).get("Flow.step").getMinValue()), 3000.0, 3.0,
+            "A requested rebuild takes the latest runs");
+    }
+
+    private static Map<String, Histogram> histograms(String step, long... millis) {
+        Histogram h = StepLatency.newHistogram();
+        for (long ms : millis) {
+            h.recordValue(ms * 1000);
+        }
+        Map<String, Histogram> map = new HashMap<>();
+        map.put(step, h);
+        return map;
+    }
+}
@@ -0,0 +1,108 @@
+package Utilities;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import org.openqa.selenium.WebDriver;
+import org.testng.IExecutionListener;
+import org.testng.IInvokedMethod;
+import org.testng.IInvokedMethodListener;
+import org.testng.ITestResult;
+import org.testng.Reporter;
+
+/*
+    Tags the executing thread with the current flow/step (StepContext) for the duration of every
+    test and configuration method, captures FailureArtifacts when a flow method fails, and prints the
+    per-step wait, command, network, page load and latency reports when the run ends. The outcome of
+    every flow step goes to the RunLog. Passing flow steps are also timed into StepLatency for the
+    regression gate, and the step time budgets (StepBudgets) are re-learned from them.
+*/
+public class StepListener implements IInvokedMethodListener, IExecutionListener {
+
+    private static final ThreadLocal<Long> STARTED = new ThreadLocal<>();
+
+    @Override
+    public void beforeInvocation(IInvokedMethod method, ITestResult testResult) {
+        StepContext.begin(testResult.getTestClass().getRealClass().getSimpleName(), method.getTestMethod().getMethodName());
+        if (testResult.getInstance() instanceof BaseFlow) {
+            RunLog.account(((BaseFlow) testResult.getInstance()).flowMobile());
+        }
+        STARTED.set(System.nanoTime());
+    }
+
+    @Override
+    public void afterInvocation(IInvokedMethod method, ITestResult testResult) {
+        Long started = STARTED.get();
+        if (started != null) {
+            long elapsed = System.nanoTime() - started;
+            CommandProfiler.recordStep(StepContext.key(), elapsed);
+            if (method.isTestMethod() && testResult.isSuccess() && testResult.getInstance() instanceof BaseFlow
+                    && testResult.getAttribute(BaseFlow.NOT_RUN) == null) {
+                StepLatency.record(StepContext.key(), elapsed);
+            }
+            if (method.isTestMethod() && testResult.getInstance() instanceof BaseFlow) {
+                logOutcome(testResult, elapsed);
+            }
+            STARTED.remove();
+        }
+        if (testResult.getStatus() == ITestResult.FAILURE && testResult.getInstance() instanceof BaseFlow
+                && FailureArtifacts.enabled()) {
+            captureArtifacts((BaseFlow) testResult.getInstance(), testResult);
+        }
+        StepContext.end();
+        RunLog.account(null);
+    }
+
+    private static void logOutcome(ITestResult testResult, long elapsed) {
+        Throwable failure = testResult.getThrowable();
+        if (testResult.getAttribute(BaseFlow.NOT_RUN) != null) {
+            RunLog.outcome("skip", elapsed, "passed over: logged in already or resuming at a checkpoint");
+        } else if (testResult.isSuccess()) {
+            RunLog.outcome("pass", elapsed, null);
+        } else {
+            RunLog.outcome(testResult.getStatus() == ITestResult.SKIP ? "skip" : "fail", elapsed,
+                failure == null ? null : failure.getMessage());
+        }
+    }
+
+    private static void captureArtifacts(BaseFlow flow, ITestResult testResult) {
+        WebDriver driver = flow.flowDriver();
+        if (driver == null) {
+            return;
+        }
+        Path dir = FailureArtifacts.capture(DriverPool.shared().raw(driver), StepContext.key(), testResult.getThrowable());
+        testResult.setAttribute("failureArtifacts", dir.toAbsolutePath().toString());
+        Reporter.setCurrentTestResult(testResult);
+        Reporter.log("Failure artifacts: <a href=\"" + dir.toAbsolutePath().toUri() + "\">" + dir.getFileName() + "</a>"
+            + " (<a href=\"" + dir.resolve("screenshot.png").toAbsolutePath().toUri() + "\">screenshot</a>)");
+        RunLog.info("Failure artifacts for " + StepContext.key() + " in " + dir);
+    }
+
+    @Override
+    public void onExecutionFinish() {
+        FailureArtifacts.flush();
+        if (!WaitStats.isEmpty()) {
+            System.out.println("Time spent waiting on the app, per step:\n" + WaitStats.report());
+        }
+        if (!CommandProfiler.isEmpty()) {
+            CommandProfiler.export();
+        }
+        if (!NetworkCapture.isEmpty()) {
+            NetworkCapture.export();
+        }
+        if (!PageVitals.isEmpty()) {
+            PageVitals.export();
+        }
+        if (!StepLatency.isEmpty()) {
+            System.out.println("Step latency this run:\n" + StepLatency.report(StepLatency.current()));
+            try {
+                RunLog.info("Step latency stored in " + StepLatency.saveRun());
+                StepBudgets.relearn();
+            } catch (IOException | RuntimeException e) {
+                // Never skip RunLog.close() below, which writes out the buffered tail of the log.
+                RunLog.info("Could not store step latency results: " + e);
+            }
+        }
+        RunLog.close();
+    }
+}
@@ -0,0 +1,80 @@
+package Utilities;
+
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chrome.ChromeDriver;
+import org.openqa.selenium.chrome.ChromeOptions;
+import org.openqa.selenium.support.events.EventFiringDecorator;
+import org.openqa.selenium.support.events.WebDriverListener;
+import org.testng.SkipException;
+
+import io.github.bonigarcia.wdm.WebDriverManager;
+
+/*
+    Headless Chrome for framework tests that run against the stub pages in src/test/resources/stub.
+    Every WebDriver / WebElement command sent through the returned driver is counted, so tests can
+    assert on round trips. Tests are skipped when no Chrome is available on the machine.
+*/
+public final class StubBrowser implements AutoCloseable {
+
+    private final WebDriver rawDriver;
+    private final WebDriver driver;
+    private final AtomicInteger commands = new AtomicInteger();
+
+    private StubBrowser(WebDriver rawDriver) {
+        this.rawDriver = rawDriver;
+        this.driver = new EventFiringDecorator<>(new WebDriverListener() {
+            @Override
+            public void beforeAnyCall(Object target, Method method, Object[] args) {
+                commands.incrementAndGet();
+            }
+        }).decorate(rawDriver);
+    }
+
+    public static StubBrowser start() {
+        try {
+            WebDriverManager.chromedriver().setup();
+            ChromeOptions options = BrowserProfile.FAST_HEADLESS.options();
+            options.addArguments("--no-sandbox");
+            WebDriver driver = new ChromeDriver(options);
+            BrowserProfile.FAST_HEADLESS.afterStart(driver);
+            return new StubBrowser(driver);
+        } catch (Exception e) {
+            throw new SkipException("Chrome not available for stub-page tests: " + e.getMessage());
+        }
+    }
+
+    public static String pageUrl(String name) {
+        URL url = StubBrowser.class.getClassLoader().getResource("stub/" + name);
+        if (url == null) {
+            throw new IllegalStateException("Missing stub page: stub/" + name);
+        }
+        return url.toString();
+    }
+
+    public WebDriver driver() {
+        return driver;
+    }
+
+    // The undecorated ChromeDriver, for DevTools access.
+    public WebDriver rawDriver() {
+        return rawDriver;
+    }
+
+    // Commands sent since the last reset.
+    public int commandCount() {
+        return commands.get();
+    }
+
+    public void resetCommandCount() {
+        commands.set(0);
+    }
+
+    @Override
+    public void close() {
+        rawDriver.quit();
+    }
+}
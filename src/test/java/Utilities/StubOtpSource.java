@@ -0,0 +1,52 @@
+package Utilities;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+// In-memory OTP store standing in for common.user_mstr; issue() behaves like the backend sending an OTP.
+public class StubOtpSource implements OtpSource {
+
+    private final Map<String, String> otps = new ConcurrentHashMap<>();
+    private final Map<String, Long> issued = new ConcurrentHashMap<>();
+    private final List<Consumer<String>> listeners = new CopyOnWriteArrayList<>();
+    private final boolean push;
+
+    public StubOtpSource(boolean push) {
+        this.push = push;
+    }
+
+    public void issue(String mobileNumber, String otp) {
+        otps.put(mobileNumber, otp);
+        issued.merge(mobileNumber, 1L, Long::sum);
+        if (push) {
+            for (Consumer<String> listener : listeners) {
+                listener.accept(mobileNumber);
+            }
+        }
+    }
+
+    @Override
+    public String currentOtp(String mobileNumber) {
+        return otps.get(mobileNumber);
+    }
+
+    @Override
+    public void subscribe(Consumer<String> otpWritten) {
+        listeners.add(otpWritten);
+    }
+
+    @Override
+    public boolean pushes() {
+        return push;
+    }
+
+    // How many OTPs were issued for the mobile so far.
+    @Override
+    public String issueMarker(String mobileNumber) {
+        Long count = issued.get(mobileNumber);
+        return count == null ? null : String.valueOf(count);
+    }
+}
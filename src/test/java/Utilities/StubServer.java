@@ -0,0 +1,144 @@
+package Utilities;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/*
+    Local HTTP server for framework tests that need real network traffic (the stub pages are otherwise
+    opened from file:// and cannot call an API), and the backend of the stub app (stub/app.html) the
+    load mode runs against. Binds an ephemeral port on 127.0.0.1 and serves:
+        /stub/<name>     the pages in src/test/resources/stub
+        /api/login       ?mobile= issues a new OTP for the number into otps(), like the backend sending an SMS
+        /api/verify      ?mobile=&otp= answers {"ok": true|false}
+        /api/<anything>  a JSON body of ?bytes= bytes (default 256)
+    Every /api call answers after ?delay= ms (default 0).
+
+    As the mock backend of the API load driver, start(serviceMs, workers) gives calls without ?delay
+    a service time and a fixed number of workers: beyond that concurrency, requests queue the way they
+    would on a saturated backend, so latency bends upwards as the arrival rate grows.
+*/
+public final class StubServer implements AutoCloseable {
+
+    private static final StubOtpSource OTPS = new StubOtpSource(true);
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final HttpServer server;
+    private final long serviceMs;
+    private final Semaphore workers;
+
+    private StubServer(HttpServer server, long serviceMs, Semaphore workers) {
+        this.server = server;
+        this.serviceMs = serviceMs;
+        this.workers = workers;
+    }
+
+    public static StubServer start() throws IOException {
+        return start(0, 0);
+    }
+
+    // workers <= 0 means unlimited.
+    public static StubServer start(long serviceMs, int workers) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 4096);
+        StubServer stub = new StubServer(server, serviceMs, workers > 0 ? new Semaphore(workers, true) : null);
+        server.createContext("/stub/", StubServer::page);
+        server.createContext("/api/", stub::api);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+        return stub;
+    }
+
+    // OTPs issued by /api/login of every stub server in this JVM (OtpWaiter reads them with app.backend=stub).
+    public static StubOtpSource otps() {
+        return OTPS;
+    }
+
+    public String url(String path) {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + path;
+    }
+
+    private static void page(HttpExchange exchange) throws IOException {
+        String name = exchange.getRequestURI().getPath().substring("/stub/".length());
+        try (InputStream in = StubServer.class.getClassLoader().getResourceAsStream("stub/" + name)) {
+            if (in == null || name.contains("..")) {
+                send(exchange, 404, "text/plain", "Not found".getBytes(StandardCharsets.UTF_8));
+            } else {
+                send(exchange, 200, "text/html; charset=utf-8", in.readAllBytes());
+            }
+        }
+    }
+
+    private void api(HttpExchange exchange) throws IOException {
+        Map<String, String> query = query(exchange.getRequestURI());
+        exchange.getRequestBody().readAllBytes();
+        try {
+            if (query.containsKey("delay")) {
+                Thread.sleep(Long.parseLong(query.get("delay")));
+            } else if (workers != null) {
+                workers.acquire();
+                try {
+                    Thread.sleep(serviceMs);
+                } finally {
+                    workers.release();
+                }
+            } else {
+                Thread.sleep(serviceMs);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        String path = exchange.getRequestURI().getPath();
+        String mobile = query.getOrDefault("mobile", "");
+        String body;
+        if (path.equals("/api/login")) {
+            OTPS.issue(mobile, String.format("%06d", RANDOM.nextInt(1_000_000)));
+            body = "{\"sent\": true}";
+        } else if (path.equals("/api/verify")) {
+            body = "{\"ok\": " + query.getOrDefault("otp", "").equals(OTPS.currentOtp(mobile)) + "}";
+        } else {
+            char[] padding = new char[Math.max(0, Integer.parseInt(query.getOrDefault("bytes", "256")) - 14)];
+            Arrays.fill(padding, 'x');
+            body = "{\"data\": \"" + new String(padding) + "\"}";
+        }
+        send(exchange, 200, "application/json", (body + "\n").getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void send(HttpExchange exchange, int status, String contentType, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.getResponseHeaders().set("Cache-Control", "no-store");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static Map<String, String> query(URI uri) {
+        Map<String, String> query = new HashMap<>();
+        if (uri.getRawQuery() != null) {
+            for (String pair : uri.getRawQuery().split("&")) {
+                int eq = pair.indexOf('=');
+                if (eq > 0) {
+                    query.put(pair.substring(0, eq), pair.substring(eq + 1));
+                }
+            }
+        }
+        return query;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}
@@ -0,0 +1,135 @@
+package Utilities;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.openqa.selenium.json.Json;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+/*
+    How long each test class took in past runs, for DurationScheduler.
+
+    TestNG's testng-results.xml records duration-ms for every test and configuration method; a class's
+    time is their sum, which is also how long it holds a worker in a parallel=classes run. The times of
+    each run are folded into perf-results/class-durations.json as a moving average (new = old / 2 + latest / 2),
+    so one slow run moves the estimate but does not replace it. A results file is folded in only once.
+    Only flow classes (BaseFlow) are kept, and a class whose test methods were all skipped - e.g. every
+    flow while a circuit breaker was open (EnvironmentHealth) - is left out rather than counted as ~0 ms.
+*/
+public final class TestDurations {
+
+    private static final Json JSON = new Json();
+
+    private final Map<String, Long> classMillis;
+    private final long foldedResultsMillis;
+
+    TestDurations(Map<String, Long> classMillis, long foldedResultsMillis) {
+        this.classMillis = new TreeMap<>(classMillis);
+        this.foldedResultsMillis = foldedResultsMillis;
+    }
+
+    public Map<String, Long> classMillis() {
+        return classMillis;
+    }
+
+    // Per-class total of duration-ms in a testng-results.xml, for the flow classes that ran.
+    static Map<String, Long> fromResults(Path resultsXml) throws Exception {
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+        Document doc = factory.newDocumentBuilder().parse(resultsXml.toFile());
+        Map<String, Long> totals = new LinkedHashMap<>();
+        NodeList classes = doc.getElementsByTagName("class");
+        for (int i = 0; i < classes.getLength(); i++) {
+            Element testClass = (Element) classes.item(i);
+            if (!isFlow(testClass.getAttribute("name"))) {
+                continue;
+            }
+            NodeList methods = testClass.getElementsByTagName("test-method");
+            long sum = 0;
+            boolean ran = false;
+            for (int j = 0; j < methods.getLength(); j++) {
+                Element method = (Element) methods.item(j);
+                String duration = method.getAttribute("duration-ms");
+                if (!duration.isEmpty()) {
+                    sum += Long.parseLong(duration);
+                }
+                ran |= !"true".equals(method.getAttribute("is-config")) && !"SKIP".equals(method.getAttribute("status"));
+            }
+            if (ran) {
+                totals.merge(testClass.getAttribute("name"), sum, Long::sum);
+            }
+        }
+        return totals;
+    }
+
+    private static boolean isFlow(String className) {
+        try {
+            return BaseFlow.class.isAssignableFrom(Class.forName(className, false, TestDurations.class.getClassLoader()));
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    // The stored history with the given results folded in (unless they already were).
+    TestDurations fold(Map<String, Long> latest, long resultsMillis) {
+        if (resultsMillis <= foldedResultsMillis) {
+            return this;
+        }
+        Map<String, Long> merged = new TreeMap<>(classMillis);
+        latest.forEach((name, millis) -> merged.merge(name, millis, (old, now) -> (old + now) / 2));
+        return new TestDurations(merged, resultsMillis);
+    }
+
+    // Load the history, fold in the results file if it is newer, and store the result.
+    public static TestDurations update(Path historyFile, Path resultsXml) {
+        TestDurations history = load(historyFile);
+        try {
+            if (Files.exists(resultsXml)) {
+                TestDurations updated = history.fold(fromResults(resultsXml), Files.getLastModifiedTime(resultsXml).toMillis());
+                if (updated != history) {
+                    updated.save(historyFile);
+                }
+                return updated;
+            }
+        } catch (Exception e) {
+            RunLog.info("Could not read test durations from " + resultsXml + ": " + e.getMessage());
+        }
+        return history;
+    }
+
+    static TestDurations load(Path historyFile) {
+        if (!Files.exists(historyFile)) {
+            return new TestDurations(new TreeMap<>(), 0);
+        }
+        try {
+            Map<String, Object> data = JSON.toType(new String(Files.readAllBytes(historyFile), StandardCharsets.UTF_8), Json.MAP_TYPE);
+            Map<String, Long> classes = new TreeMap<>();
+            ((Map<?, ?>) data.get("classes")).forEach((name, millis) -> classes.put(String.valueOf(name), ((Number) millis).longValue()));
+            return new TestDurations(classes, ((Number) data.get("foldedResultsMillis")).longValue());
+        } catch (Exception e) {
+            RunLog.info("Ignoring unreadable test duration history " + historyFile + ": " + e.getMessage());
+            return new TestDurations(new TreeMap<>(), 0);
+        }
+    }
+
+    void save(Path historyFile) {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("foldedResultsMillis", foldedResultsMillis);
+        data.put("classes", classMillis);
+        try {
+            Files.createDirectories(historyFile.toAbsolutePath().getParent());
+            Files.write(historyFile, JSON.toJson(data).getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            RunLog.info("Could not write test duration history " + historyFile + ": " + e.getMessage());
+        }
+    }
+}
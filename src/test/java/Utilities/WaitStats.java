@@ -0,0 +1,60 @@
+package Utilities;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Accumulates how long each step spent inside AppWait, so idle time can be compared across steps and runs.
+public final class WaitStats {
+
+    private static final Map<String, Stats> BY_STEP = new ConcurrentHashMap<>();
+    private static final ThreadLocal<Boolean> WAITING = ThreadLocal.withInitial(() -> false);
+
+    private WaitStats() {
+    }
+
+    public static void record(String stepKey, long waitedNanos, int polls) {
+        Stats stats = BY_STEP.computeIfAbsent(stepKey, k -> new Stats());
+        stats.waits.increment();
+        stats.polls.add(polls);
+        stats.totalNanos.add(waitedNanos);
+        stats.maxNanos.accumulateAndGet(waitedNanos, Math::max);
+    }
+
+    // True while the current thread is inside an AppWait; lets CommandProfiler tell wait commands apart.
+    public static boolean waiting() {
+        return WAITING.get();
+    }
+
+    static void setWaiting(boolean waiting) {
+        WAITING.set(waiting);
+    }
+
+    public static boolean isEmpty() {
+        return BY_STEP.isEmpty();
+    }
+
+    public static long totalMillis(String stepKey) {
+        Stats stats = BY_STEP.get(stepKey);
+        return stats == null ? 0 : stats.totalNanos.sum() / 1_000_000;
+    }
+
+    public static String report() {
+        StringBuilder sb = new StringBuilder(String.format("%-55s %6s %6s %10s %10s%n", "step", "waits", "polls", "total ms", "max ms"));
+        for (Map.Entry<String, Stats> entry : new TreeMap<>(BY_STEP).entrySet()) {
+            Stats stats = entry.getValue();
+            sb.append(String.format("%-55s %6d %6d %10d %10d%n", entry.getKey(), stats.waits.sum(), stats.polls.sum(),
+                stats.totalNanos.sum() / 1_000_000, stats.maxNanos.get() / 1_000_000));
+        }
+        return sb.toString();
+    }
+
+    private static final class Stats {
+        final LongAdder waits = new LongAdder();
+        final LongAdder polls = new LongAdder();
+        final LongAdder totalNanos = new LongAdder();
+        final AtomicLong maxNanos = new AtomicLong();
+    }
+}
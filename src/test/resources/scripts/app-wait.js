@@ -0,0 +1,70 @@
+/*
+  One AppWait probe: reports whether the app is idle and whether the element is in the wanted state.
+  arguments: [0] locator strategy ('css selector' | 'xpath' | 'tag name' | 'any'), [1] locator value
+             (for 'any' a JSON list of [strategy, value] pairs, whose matches are taken in that order),
+             [2] mode ('present' | 'visible' | 'clickable' | 'allVisible' | 'none'), [3] require idle (boolean),
+             [4] optional popups to skip first: [[name, strategy, value], ...] (AppWait.interrupt).
+  Returns {state: 'interrupted' | 'busy' | 'missing' | 'hidden' | 'disabled' | 'ready', el?: element or element list}.
+  A skipped popup is counted in window.__interrupts[name].
+*/
+var using = arguments[0], value = arguments[1], mode = arguments[2], requireIdle = arguments[3];
+var interrupts = arguments[4] || [];
+
+function angularStable() {
+  var testabilities = window.getAllAngularTestabilities && window.getAllAngularTestabilities();
+  return !testabilities || testabilities.every(function (t) { return t.isStable(); });
+}
+
+function findAll(using, value) {
+  if (using === 'any') {
+    return JSON.parse(value).reduce(function (found, pair) { return found.concat(findAll(pair[0], pair[1])); }, []);
+  }
+  if (using === 'xpath') {
+    var found = [], snapshot = document.evaluate(value, document, null, XPathResult.ORDERED_NODE_SNAPSHOT_TYPE, null);
+    for (var i = 0; i < snapshot.snapshotLength; i++) { found.push(snapshot.snapshotItem(i)); }
+    return found;
+  }
+  // 'css selector' and 'tag name' values are both valid querySelectorAll selectors.
+  return Array.prototype.slice.call(document.querySelectorAll(value));
+}
+
+function visible(el) {
+  var rect = el.getBoundingClientRect(), style = window.getComputedStyle(el);
+  return rect.width > 0 && rect.height > 0 && style.visibility !== 'hidden' && style.display !== 'none';
+}
+
+// An optional popup on screen is skipped before anything else; the caller checks again once it is gone.
+for (var i = 0; i < interrupts.length; i++) {
+  var popup = findAll(interrupts[i][1], interrupts[i][2]).filter(visible)[0];
+  if (popup) {
+    popup.click();
+    window.__interrupts = window.__interrupts || {};
+    window.__interrupts[interrupts[i][0]] = (window.__interrupts[interrupts[i][0]] || 0) + 1;
+    return { state: 'interrupted' };
+  }
+}
+if (requireIdle && (!angularStable() || (window.__pendingHttp || 0) > 0)) {
+  return { state: 'busy' };
+}
+if (mode === 'none') {
+  return { state: 'ready' };
+}
+var all = findAll(using, value);
+if (all.length === 0) {
+  return { state: 'missing' };
+}
+if (mode === 'allVisible') {
+  return all.every(visible) ? { state: 'ready', el: all } : { state: 'hidden' };
+}
+if (mode === 'present') {
+  return { state: 'ready', el: all[0] };
+}
+// Take the first match that is on screen, so a locator need not index past hidden dialog copies.
+var el = all.filter(visible)[0];
+if (!el) {
+  return { state: 'hidden' };
+}
+if (mode === 'clickable' && (el.disabled || el.getAttribute('aria-disabled') === 'true')) {
+  return { state: 'disabled' };
+}
+return { state: 'ready', el: el };
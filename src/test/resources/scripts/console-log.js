@@ -0,0 +1,36 @@
+/*
+  Installed into every document before the app's own scripts run (CDP Page.addScriptToEvaluateOnNewDocument).
+  Keeps the last 200 console messages and uncaught errors in window.__console as
+  {t: ms since page start, level, text}, for the failure artifacts (FailureArtifacts).
+*/
+(function () {
+  if (window.__console !== undefined) {
+    return;
+  }
+  var entries = window.__console = [];
+  function add(level, args) {
+    var text = Array.prototype.map.call(args, function (a) {
+      if (a instanceof Error) { return a.stack || String(a); }
+      if (typeof a === 'object') { try { return JSON.stringify(a); } catch (e) { return String(a); } }
+      return String(a);
+    }).join(' ');
+    entries.push({ t: Math.round(performance.now()), level: level, text: text.slice(0, 2000) });
+    if (entries.length > 200) {
+      entries.shift();
+    }
+  }
+
+  ['error', 'warn', 'info', 'log'].forEach(function (level) {
+    var original = console[level];
+    console[level] = function () {
+      add(level, arguments);
+      return original.apply(console, arguments);
+    };
+  });
+  window.addEventListener('error', function (e) {
+    add('uncaught', [e.error || e.message]);
+  });
+  window.addEventListener('unhandledrejection', function (e) {
+    add('unhandledrejection', [e.reason]);
+  });
+})();
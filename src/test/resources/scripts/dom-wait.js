@@ -0,0 +1,58 @@
+/*
+  Observer-driven AppWait: blocks in the page until the probe (app-wait.js, prepended by AppWait as
+  function __probe) reports 'ready', so a whole wait costs one WebDriver call instead of one per poll.
+  arguments: [0..4] as app-wait.js, [5] timeout in ms, [6] ms after which the idle requirement is dropped,
+             [7] backstop interval in ms, [last] async callback.
+  The probe re-runs on every DOM mutation (coalesced into one check per task) and on the backstop timer,
+  which catches changes that never touch the DOM: pending HTTP, Angular zone, CSS transitions.
+  Resolves with the ready element(s) themselves, {state: <last state>, timedOut: true} or {state: 'error', message}.
+*/
+var probeArgs = Array.prototype.slice.call(arguments, 0, 5);
+var timeoutMs = arguments[5], idleMaxMs = arguments[6], backstopMs = arguments[7];
+var done = arguments[arguments.length - 1];
+var start = Date.now(), finished = false, scheduled = false, checks = 0, last = 'none';
+var observer = null, backstop = null, deadline = null;
+
+function finish(result) {
+  if (finished) { return; }
+  finished = true;
+  if (observer) { observer.disconnect(); }
+  clearInterval(backstop);
+  clearTimeout(deadline);
+  result.checks = checks;
+  done(result.state === 'ready' && result.el ? result.el : result);
+}
+
+function check() {
+  scheduled = false;
+  if (finished) { return; }
+  checks++;
+  var args = probeArgs.slice();
+  args[3] = args[3] && (Date.now() - start) < idleMaxMs;
+  var result;
+  try {
+    result = __probe.apply(null, args);
+  } catch (e) {
+    finish({ state: 'error', message: String(e && e.message || e) });
+    return;
+  }
+  last = result.state;
+  if (last === 'ready') {
+    finish(result);
+  }
+}
+
+function schedule() {
+  if (!scheduled && !finished) {
+    scheduled = true;
+    setTimeout(check, 0);
+  }
+}
+
+check();
+if (!finished) {
+  observer = new MutationObserver(schedule);
+  observer.observe(document.documentElement || document, { childList: true, subtree: true, attributes: true, characterData: true });
+  backstop = setInterval(schedule, backstopMs);
+  deadline = setTimeout(function () { finish({ state: last, timedOut: true }); }, timeoutMs);
+}
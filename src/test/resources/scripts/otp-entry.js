@@ -0,0 +1,67 @@
+/*
+  Fill every box of a PrimeNG <p-inputotp> in one WebDriver call, then wait for the app to accept it.
+  arguments: [0] otp string, [1] timeout in ms, [last] async callback.
+  Resolves with {status: 'accepted' | 'no-inputs' | 'not-accepted', ...}.
+*/
+var otp = arguments[0], timeoutMs = arguments[1], done = arguments[arguments.length - 1];
+var start = Date.now();
+
+function visibleBoxes() {
+  return Array.prototype.slice.call(document.querySelectorAll('p-inputotp input.p-inputotp-input'))
+    .filter(function (box) { return box.offsetParent !== null; });
+}
+
+function allFilled(boxes) {
+  return boxes.every(function (box, i) { return box.value === otp.charAt(i); });
+}
+
+function fill(boxes) {
+  // PrimeNG handles paste on the first box by splitting the text across all boxes.
+  try {
+    var data = new DataTransfer();
+    data.setData('text', otp);
+    boxes[0].focus();
+    boxes[0].dispatchEvent(new ClipboardEvent('paste', { clipboardData: data, bubbles: true, cancelable: true }));
+  } catch (e) { /* fall through to per-box input events */ }
+  if (allFilled(boxes)) {
+    return 'paste';
+  }
+  // Native setter + InputEvent, so Angular's value accessor sees each digit as typed text.
+  var setValue = Object.getOwnPropertyDescriptor(HTMLInputElement.prototype, 'value').set;
+  boxes.forEach(function (box, i) {
+    var digit = otp.charAt(i);
+    box.focus();
+    setValue.call(box, digit);
+    box.dispatchEvent(new InputEvent('input', { bubbles: true, inputType: 'insertText', data: digit }));
+    box.dispatchEvent(new Event('change', { bubbles: true }));
+  });
+  return 'input-events';
+}
+
+function angularStable() {
+  var testabilities = window.getAllAngularTestabilities && window.getAllAngularTestabilities();
+  return !testabilities || testabilities.every(function (t) { return t.isStable(); });
+}
+
+function waitForAcceptance(method) {
+  if (!document.querySelector('p-inputotp') && angularStable()) {
+    return done({ status: 'accepted', method: method, ms: Date.now() - start });
+  }
+  if (Date.now() - start > timeoutMs) {
+    return done({ status: 'not-accepted', method: method, values: visibleBoxes().map(function (b) { return b.value; }).join('') });
+  }
+  setTimeout(function () { waitForAcceptance(method); }, 50);
+}
+
+function waitForBoxes() {
+  var boxes = visibleBoxes();
+  if (boxes.length === otp.length) {
+    return waitForAcceptance(fill(boxes));
+  }
+  if (Date.now() - start > timeoutMs) {
+    return done({ status: 'no-inputs', found: boxes.length });
+  }
+  setTimeout(waitForBoxes, 50);
+}
+
+waitForBoxes();
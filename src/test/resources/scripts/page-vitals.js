@@ -0,0 +1,30 @@
+/*
+  Reads the load metrics of the screen currently shown, for PageVitals.
+  The first read of a document is its hard navigation: Navigation Timing and LCP are reported. Later reads
+  (Angular route changes) report only what happened since the previous read: layout shift and long tasks.
+  Values are in ms from the document's time origin; heap is performance.memory (Chrome only).
+*/
+var vitals = window.__vitals;
+var nav = performance.getEntriesByType('navigation')[0];
+var result = { url: location.href, instrumented: !!vitals, hardNavigation: !vitals || !vitals.read };
+
+if (result.hardNavigation && nav) {
+  result.ttfbMs = nav.responseStart;
+  result.domContentLoadedMs = nav.domContentLoadedEventEnd;
+  result.loadMs = nav.loadEventEnd > 0 ? nav.loadEventEnd : null;
+}
+if (vitals) {
+  if (result.hardNavigation) {
+    result.lcpMs = vitals.lcpMs;
+  }
+  result.cls = vitals.cls;
+  result.longTasks = vitals.longTasks.length;
+  result.longTaskMs = vitals.longTasks.reduce(function (sum, d) { return sum + d; }, 0);
+  vitals.cls = 0;
+  vitals.longTasks = [];
+  vitals.read = true;
+}
+if (performance.memory) {
+  result.heapMb = performance.memory.usedJSHeapSize / 1048576;
+}
+return result;
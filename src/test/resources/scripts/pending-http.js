@@ -0,0 +1,28 @@
+/*
+  Installed into every document before the app's own scripts run (CDP Page.addScriptToEvaluateOnNewDocument).
+  Keeps window.__pendingHttp = number of XHR/fetch requests still in flight, for AppWait's idle check.
+*/
+(function () {
+  if (window.__pendingHttp !== undefined) {
+    return;
+  }
+  window.__pendingHttp = 0;
+  function done() { window.__pendingHttp = Math.max(0, window.__pendingHttp - 1); }
+
+  var send = XMLHttpRequest.prototype.send;
+  XMLHttpRequest.prototype.send = function () {
+    window.__pendingHttp++;
+    this.addEventListener('loadend', done);
+    return send.apply(this, arguments);
+  };
+
+  if (window.fetch) {
+    var fetch = window.fetch;
+    window.fetch = function () {
+      window.__pendingHttp++;
+      return fetch.apply(this, arguments).then(
+        function (response) { done(); return response; },
+        function (error) { done(); throw error; });
+    };
+  }
+})();
@@ -0,0 +1,25 @@
+/*
+  Installed into every document before the app's own scripts run (CDP Page.addScriptToEvaluateOnNewDocument).
+  Keeps window.__vitals up to date from PerformanceObservers: largest contentful paint, cumulative layout
+  shift (shifts right after user input excluded, as in the CLS definition) and long tasks.
+  page-vitals.js reads and resets it.
+*/
+(function () {
+  if (window.__vitals !== undefined) {
+    return;
+  }
+  var vitals = window.__vitals = { lcpMs: null, cls: 0, longTasks: [], read: false };
+
+  function observe(type, onEntry) {
+    try {
+      new PerformanceObserver(function (list) { list.getEntries().forEach(onEntry); })
+        .observe({ type: type, buffered: true });
+    } catch (e) {
+      // Entry type not supported by this browser; the metric stays empty.
+    }
+  }
+
+  observe('largest-contentful-paint', function (entry) { vitals.lcpMs = entry.startTime; });
+  observe('layout-shift', function (entry) { if (!entry.hadRecentInput) { vitals.cls += entry.value; } });
+  observe('longtask', function (entry) { vitals.longTasks.push(entry.duration); });
+})();